@@ -0,0 +1,232 @@
+/**
+ * 	This file is part of Kayak.
+ *
+ *	Kayak is free software: you can redistribute it and/or modify
+ *	it under the terms of the GNU Lesser General Public License as published by
+ *	the Free Software Foundation, either version 3 of the License, or
+ *	(at your option) any later version.
+ *
+ *	Kayak is distributed in the hope that it will be useful,
+ *	but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *	GNU General Public License for more details.
+ *
+ *	You should have received a copy of the GNU Lesser General Public License
+ *	along with Kayak.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.kayak.core;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Decouples the thread that delivers frames from a {@link FrameListener}.
+ * Frames are put into a bounded {@link FrameRingBuffer} and handed to the
+ * listener by an own consumer thread. Frames that queued up while the
+ * listener was busy are handed over as one {@link FrameBatch}. What happens
+ * if the buffer is full is decided by the {@link Subscription.OverflowPolicy}.
+ * @author Jan-Niklas Meier <dschanoeh@googlemail.com>
+ */
+class AsynchronousDelivery implements Runnable {
+
+    private static final Logger logger = Logger.getLogger(AsynchronousDelivery.class.getCanonicalName());
+
+    private static final int STANDARD_IDS = 2048;
+    private static final long BLOCK_WAIT_NANOS = 50000;
+    /* Maximum number of frames that are handed to the receiver at once */
+    private static final int MAX_BATCH = 256;
+
+    private final FrameListener receiver;
+    private final Subscription.OverflowPolicy policy;
+    private final FrameRingBuffer buffer;
+    private final AtomicLong dropped = new AtomicLong();
+    private final Thread thread;
+    private volatile boolean waiting = false;
+    private volatile boolean running = true;
+    private volatile boolean draining = false;
+
+    /* Latest frame per identifier for LATEST_PER_ID. A frame is in the
+     * ring buffer if and only if its identifier has an entry here. */
+    private final AtomicReferenceArray<Frame> latestStandard;
+    private final ConcurrentHashMap<Long, Frame> latestOther;
+
+    public AsynchronousDelivery(FrameListener receiver, int capacity, Subscription.OverflowPolicy policy) {
+        this.receiver = receiver;
+        this.policy = policy;
+        this.buffer = new FrameRingBuffer(capacity);
+
+        if(policy == Subscription.OverflowPolicy.LATEST_PER_ID) {
+            latestStandard = new AtomicReferenceArray<Frame>(STANDARD_IDS);
+            latestOther = new ConcurrentHashMap<Long, Frame>();
+        } else {
+            latestStandard = null;
+            latestOther = null;
+        }
+
+        thread = new Thread(this);
+        thread.setName("Subscription delivery thread");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public long getDroppedFrames() {
+        return dropped.get();
+    }
+
+    public Subscription.OverflowPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Queue a frame for delivery. Only blocks if the policy is BLOCK and the
+     * buffer is full.
+     */
+    public void offer(Frame frame) {
+        if(!running)
+            return;
+
+        switch(policy) {
+            case BLOCK:
+                while(!buffer.offer(frame)) {
+                    if(!running)
+                        return;
+                    LockSupport.parkNanos(BLOCK_WAIT_NANOS);
+                }
+                break;
+            case DROP_OLDEST:
+                while(!buffer.offer(frame)) {
+                    if(buffer.poll() != null)
+                        dropped.incrementAndGet();
+                }
+                break;
+            case DROP_NEWEST:
+                if(!buffer.offer(frame)) {
+                    dropped.incrementAndGet();
+                    return;
+                }
+                break;
+            case LATEST_PER_ID:
+                offerLatest(frame);
+                break;
+        }
+
+        if(waiting)
+            LockSupport.unpark(thread);
+    }
+
+    private void offerLatest(Frame frame) {
+        int id = frame.getIdentifier();
+        Frame previous;
+
+        if(!frame.isExtended() && (id & ~(STANDARD_IDS - 1)) == 0) {
+            previous = latestStandard.getAndSet(id, frame);
+            if(previous == null && !buffer.offer(frame)) {
+                /* More identifiers than capacity */
+                latestStandard.set(id, null);
+                dropped.incrementAndGet();
+            }
+        } else {
+            Long key = key(frame);
+            previous = latestOther.put(key, frame);
+            if(previous == null && !buffer.offer(frame)) {
+                latestOther.remove(key);
+                dropped.incrementAndGet();
+            }
+        }
+
+        /* The frame replaced one that was not delivered yet */
+        if(previous != null)
+            dropped.incrementAndGet();
+    }
+
+    private static Long key(Frame frame) {
+        return frame.isExtended() ? (1L << 32) | (frame.getIdentifier() & 0xFFFFFFFFL) : (long) frame.getIdentifier();
+    }
+
+    /**
+     * For LATEST_PER_ID the queued frame only marks the identifier. The
+     * frame that is delivered is the latest one for this identifier.
+     */
+    private Frame takeLatest(Frame marker) {
+        int id = marker.getIdentifier();
+
+        if(!marker.isExtended() && (id & ~(STANDARD_IDS - 1)) == 0) {
+            return latestStandard.getAndSet(id, null);
+        } else {
+            return latestOther.remove(key(marker));
+        }
+    }
+
+    /**
+     * Stops the consumer thread. Frames that were not delivered yet are
+     * discarded. Waits for a frame that is being delivered to complete
+     * unless called from the consumer thread.
+     */
+    public void shutdown() {
+        running = false;
+        LockSupport.unpark(thread);
+        join();
+    }
+
+    /**
+     * Stops the consumer thread after all frames that are queued at the
+     * time of the call were delivered. Frames that are offered afterwards
+     * are discarded. Waits for the delivery to complete unless called from
+     * the consumer thread.
+     */
+    public void drain() {
+        draining = true;
+        running = false;
+        LockSupport.unpark(thread);
+        join();
+    }
+
+    private void join() {
+
+        if(Thread.currentThread() != thread) {
+            try {
+                thread.join();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public void run() {
+        FrameBatch batch = new FrameBatch(MAX_BATCH);
+
+        while(running || (draining && !buffer.isEmpty())) {
+            Frame frame;
+            while(batch.size() < MAX_BATCH && (frame = buffer.poll()) != null) {
+                if(latestStandard != null) {
+                    frame = takeLatest(frame);
+                    if(frame == null)
+                        continue;
+                }
+                batch.add(frame);
+            }
+
+            if(batch.isEmpty()) {
+                waiting = true;
+                if(buffer.isEmpty() && running)
+                    LockSupport.park(this);
+                waiting = false;
+                continue;
+            }
+
+            try {
+                batch.deliverTo(receiver);
+            } catch (Exception ex) {
+                logger.log(Level.WARNING, "Exception while delivering frames", ex);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+}
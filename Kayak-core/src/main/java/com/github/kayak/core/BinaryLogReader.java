@@ -0,0 +1,388 @@
+/**
+ * 	This file is part of Kayak.
+ *
+ *	Kayak is free software: you can redistribute it and/or modify
+ *	it under the terms of the GNU Lesser General Public License as published by
+ *	the Free Software Foundation, either version 3 of the License, or
+ *	(at your option) any later version.
+ *
+ *	Kayak is distributed in the hope that it will be useful,
+ *	but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *	GNU General Public License for more details.
+ *
+ *	You should have received a copy of the GNU Lesser General Public License
+ *	along with Kayak.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.kayak.core;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Reads a log file in the binary format that is written by
+ * {@link BinaryLogWriter}. The header is read on creation. Afterwards the
+ * records can be read one by one with {@link #next()}. The reader can be
+ * positioned at every sync marker. A record that was cut off at the end of
+ * the file, e.g. because the recording was interrupted, ends the log file.
+ * @author Jan-Niklas Meier <dschanoeh@googlemail.com>
+ */
+public class BinaryLogReader implements LogFrameSource {
+
+    private static final int BUFFER_SIZE = 64*1024;
+
+    private final RandomAccessFile file;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private long bufferStart; /* Position of the buffer in the file */
+    private int bufferFill;
+    private int bufferPosition;
+
+    private final String platform;
+    private final String description;
+    private final String[] busNames;
+    private final Map<String, String> deviceAliases;
+    private final long dataPosition;
+
+    private long lastTimestamp;
+    private long lastSync = -1;
+    private boolean synced;
+
+    /* the current record */
+    private boolean event;
+    private long timestamp;
+    private String busName;
+    private int identifier;
+    private boolean extended;
+    private byte[] data;
+    private String message;
+
+    public BinaryLogReader(File file) throws IOException {
+        this.file = new RandomAccessFile(file, "r");
+
+        try {
+            if(readInt() != BinaryLogWriter.MAGIC)
+                throw new IOException("Not a binary log file");
+
+            int version = readUnsignedByte();
+            if(version != BinaryLogWriter.VERSION)
+                throw new IOException("Unsupported binary log file version " + version);
+
+            platform = readString();
+            description = readString();
+
+            int count = readUnsignedByte();
+            busNames = new String[count];
+            Map<String, String> aliases = new LinkedHashMap<String, String>();
+            for(int i=0;i<count;i++) {
+                busNames[i] = readString();
+                aliases.put(busNames[i], readString());
+            }
+            deviceAliases = Collections.unmodifiableMap(aliases);
+        } catch(EOFException ex) {
+            this.file.close();
+            throw new IOException("Binary log file header is incomplete", ex);
+        } catch(IOException ex) {
+            this.file.close();
+            throw ex;
+        }
+
+        dataPosition = getPosition();
+    }
+
+    public String getPlatform() {
+        return platform;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * All bus names of the log file mapped to their alias.
+     */
+    public Map<String, String> getDeviceAliases() {
+        return deviceAliases;
+    }
+
+    /**
+     * Position of the first record.
+     */
+    public long getDataPosition() {
+        return dataPosition;
+    }
+
+    /**
+     * Position of the next record in the file.
+     */
+    public long getPosition() {
+        return bufferStart + bufferPosition;
+    }
+
+    /**
+     * Position of the last sync marker that was read or -1.
+     */
+    public long getPositionOfLastSync() {
+        return lastSync;
+    }
+
+    public long getSize() throws IOException {
+        return file.length();
+    }
+
+    /**
+     * Continue reading at a position. The position must be the start of the
+     * records or a sync marker.
+     */
+    @Override
+    public void seek(long position) {
+        if(position >= bufferStart && position <= bufferStart + bufferFill) {
+            bufferPosition = (int) (position - bufferStart);
+        } else {
+            bufferStart = position;
+            bufferFill = 0;
+            bufferPosition = 0;
+        }
+        synced = false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+
+    private void fill() throws IOException {
+        bufferStart += bufferFill;
+        bufferPosition = 0;
+        file.seek(bufferStart);
+        int read = file.read(buffer, 0, BUFFER_SIZE);
+        bufferFill = read > 0 ? read : 0;
+        if(bufferFill == 0)
+            throw new EOFException();
+    }
+
+    private int readUnsignedByte() throws IOException {
+        if(bufferPosition >= bufferFill)
+            fill();
+
+        return buffer[bufferPosition++] & 0xFF;
+    }
+
+    private void readFully(byte[] b) throws IOException {
+        int done = 0;
+        while(done < b.length) {
+            if(bufferPosition >= bufferFill)
+                fill();
+
+            int n = Math.min(b.length - done, bufferFill - bufferPosition);
+            System.arraycopy(buffer, bufferPosition, b, done, n);
+            bufferPosition += n;
+            done += n;
+        }
+    }
+
+    private int readShort() throws IOException {
+        return (readUnsignedByte() << 8) | readUnsignedByte();
+    }
+
+    private int readInt() throws IOException {
+        return (readUnsignedByte() << 24) | (readUnsignedByte() << 16)
+                | (readUnsignedByte() << 8) | readUnsignedByte();
+    }
+
+    private long readLong() throws IOException {
+        return ((long) readInt() << 32) | (readInt() & 0xFFFFFFFFL);
+    }
+
+    private long readVarLong() throws IOException {
+        long value = 0;
+        for(int shift=0;shift<64;shift+=7) {
+            int b = readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if((b & 0x80) == 0)
+                return value;
+        }
+        throw new IOException("Malformed timestamp at position " + getPosition());
+    }
+
+    private String readString() throws IOException {
+        byte[] bytes = new byte[readShort()];
+        readFully(bytes);
+        return new String(bytes, "UTF-8");
+    }
+
+    private String getBusName(int index) throws IOException {
+        if(index >= busNames.length)
+            throw new IOException("Unknown bus index " + index + " at position " + getPosition());
+
+        return busNames[index];
+    }
+
+    /**
+     * Read the next frame or event.
+     * @return false if the end of the file was reached
+     * @throws IOException if the file is malformed
+     */
+    public boolean next() throws IOException {
+        try {
+            while(true) {
+                long position = getPosition();
+                int tag = readUnsignedByte();
+
+                if(tag == BinaryLogWriter.SYNC) {
+                    if(readInt() != BinaryLogWriter.SYNC_MAGIC)
+                        throw new IOException("Malformed sync marker at position " + position);
+
+                    lastTimestamp = readLong();
+                    lastSync = position;
+                    synced = true;
+                    continue;
+                }
+
+                if(!synced)
+                    throw new IOException("Record at position " + position + " is not preceded by a sync marker");
+
+                timestamp = lastTimestamp + readVarLong();
+                lastTimestamp = timestamp;
+
+                if(tag == BinaryLogWriter.EVENT) {
+                    int bus = readUnsignedByte();
+                    busName = bus == BinaryLogWriter.NO_BUS ? null : getBusName(bus);
+                    message = readString();
+                    event = true;
+                    identifier = 0;
+                    extended = false;
+                    data = new byte[0];
+                } else {
+                    busName = getBusName(tag);
+                    int flags = readUnsignedByte();
+                    extended = (flags & 0x80) != 0;
+                    identifier = extended ? readInt() : readShort();
+                    data = new byte[flags & BinaryLogWriter.MAX_DATA_LENGTH];
+                    readFully(data);
+                    message = null;
+                    event = false;
+                }
+                return true;
+            }
+        } catch(EOFException ex) {
+            return false;
+        }
+    }
+
+    @Override
+    public boolean nextFrame() throws IOException {
+        while(next()) {
+            if(!event)
+                return true;
+        }
+        return false;
+    }
+
+    @Override
+    public long getResumePosition() {
+        return lastSync;
+    }
+
+    /**
+     * True if the current record is an event.
+     */
+    public boolean isEvent() {
+        return event;
+    }
+
+    /**
+     * Timestamp of the current record in microseconds.
+     */
+    @Override
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Name of the bus of the current record. May be null for events.
+     */
+    public String getBusName() {
+        return busName;
+    }
+
+    public int getIdentifier() {
+        return identifier;
+    }
+
+    public boolean isExtended() {
+        return extended;
+    }
+
+    public byte[] getData() {
+        return data;
+    }
+
+    /**
+     * Message of the current event.
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * Creates a new {@link Frame} from the current record.
+     */
+    public Frame getFrame() {
+        return new Frame(identifier, extended, data, timestamp);
+    }
+
+    @Override
+    public Frame.FrameBusNamePair getFrameBusNamePair() {
+        return new Frame.FrameBusNamePair(getFrame(), busName);
+    }
+
+    /**
+     * Timestamp of the last record in the file. The tail of the file is
+     * searched for the last sync marker from which the remaining records
+     * are read. The position of the reader is changed.
+     * @return the timestamp or -1 if the file contains no records
+     */
+    public long findLastTimestamp() throws IOException {
+        long size = file.length();
+
+        for(long tail = BUFFER_SIZE;;tail *= 2) {
+            long tailStart = Math.max(dataPosition, size - tail);
+            byte[] bytes = new byte[(int) (size - tailStart)];
+            file.seek(tailStart);
+            file.readFully(bytes);
+
+            /* try the sync candidates from the end of the file */
+            for(int i=bytes.length-5;i>=0;i--) {
+                if((bytes[i] & 0xFF) != BinaryLogWriter.SYNC)
+                    continue;
+
+                int magic = ((bytes[i+1] & 0xFF) << 24) | ((bytes[i+2] & 0xFF) << 16)
+                        | ((bytes[i+3] & 0xFF) << 8) | (bytes[i+4] & 0xFF);
+                if(magic != BinaryLogWriter.SYNC_MAGIC)
+                    continue;
+
+                long last = -1;
+                try {
+                    seek(tailStart + i);
+                    while(next())
+                        last = timestamp;
+                } catch(IOException ex) {
+                    /* the marker was part of a record */
+                    continue;
+                }
+
+                if(last != -1)
+                    return last;
+            }
+
+            if(tailStart <= dataPosition)
+                return -1;
+        }
+    }
+}
@@ -0,0 +1,198 @@
+/**
+ * 	This file is part of Kayak.
+ *
+ *	Kayak is free software: you can redistribute it and/or modify
+ *	it under the terms of the GNU Lesser General Public License as published by
+ *	the Free Software Foundation, either version 3 of the License, or
+ *	(at your option) any later version.
+ *
+ *	Kayak is distributed in the hope that it will be useful,
+ *	but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *	GNU General Public License for more details.
+ *
+ *	You should have received a copy of the GNU Lesser General Public License
+ *	along with Kayak.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.kayak.core;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Writes frames in the binary log file format. A binary log file starts
+ * with a header that contains the platform, the description and a table of
+ * all busses with their aliases. It is followed by records:
+ * <ul>
+ * <li>Frame: bus index (0 to 252), timestamp delta (unsigned varint),
+ * flags (bit 7: extended identifier, bits 0 to 6: data length),
+ * identifier (2 or 4 bytes big endian), data</li>
+ * <li>Event: 0xFE, timestamp delta, bus index or 0xFF, message</li>
+ * <li>Sync marker: 0xFF, 0x4B53594E, absolute timestamp (8 bytes)</li>
+ * </ul>
+ * Timestamps are in microseconds and relative to the previous record. A
+ * sync marker is written before the first record, at the start of every
+ * second, after {@value #SYNC_INTERVAL} records and whenever the timestamp
+ * goes back. Reading can start at every sync marker.
+ * @author Jan-Niklas Meier <dschanoeh@googlemail.com>
+ */
+public class BinaryLogWriter {
+
+    public static final String EXTENSION = ".klog";
+
+    static final int MAGIC = 0x4B4C4F47; /* KLOG */
+    static final int VERSION = 1;
+    static final int SYNC = 0xFF;
+    static final int SYNC_MAGIC = 0x4B53594E; /* KSYN */
+    static final int EVENT = 0xFE;
+    static final int NO_BUS = 0xFF;
+    static final int MAX_BUSSES = 0xFD;
+    static final int MAX_DATA_LENGTH = 0x7F;
+    static final int SYNC_INTERVAL = 4096;
+
+    private final DataOutputStream out;
+    private final Map<String, Integer> busIndices = new HashMap<String, Integer>();
+
+    private long lastTimestamp;
+    private long syncSecond = -1;
+    private int recordsSinceSync;
+
+    /**
+     * Create a new writer and write the header.
+     * @param out Stream the log file is written to
+     * @param platform Platform of the log file
+     * @param description Description of the log file
+     * @param deviceAliases All bus names that will be written mapped to
+     * their alias
+     */
+    public BinaryLogWriter(OutputStream out, String platform, String description, Map<String, String> deviceAliases) throws IOException {
+        if(deviceAliases.size() > MAX_BUSSES)
+            throw new IllegalArgumentException("A binary log file can not hold more than " + MAX_BUSSES + " busses");
+
+        this.out = new DataOutputStream(new BufferedOutputStream(out, 64*1024));
+
+        int i = 0;
+        for(String name : deviceAliases.keySet()) {
+            busIndices.put(name, i++);
+        }
+
+        writeHeader(this.out, platform, description, deviceAliases);
+    }
+
+    static void writeHeader(DataOutputStream out, String platform, String description, Map<String, String> deviceAliases) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        writeString(out, platform);
+        writeString(out, description);
+        out.writeByte(deviceAliases.size());
+        for(Map.Entry<String, String> entry : deviceAliases.entrySet()) {
+            writeString(out, entry.getKey());
+            writeString(out, entry.getValue() != null ? entry.getValue() : entry.getKey());
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes("UTF-8");
+        if(bytes.length > 0xFFFF)
+            throw new IllegalArgumentException("String is too long");
+
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private void writeVarLong(long value) throws IOException {
+        while((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private int getBusIndex(String busName) {
+        Integer index = busIndices.get(busName);
+        if(index == null)
+            throw new IllegalArgumentException("Bus " + busName + " is not part of the log file header");
+
+        return index;
+    }
+
+    /* writes a sync marker if necessary and returns the timestamp delta */
+    private long prepareRecord(long timestamp) throws IOException {
+        if(recordsSinceSync >= SYNC_INTERVAL || timestamp < lastTimestamp
+                || timestamp / 1000000 != syncSecond) {
+            out.writeByte(SYNC);
+            out.writeInt(SYNC_MAGIC);
+            out.writeLong(timestamp);
+            syncSecond = timestamp / 1000000;
+            recordsSinceSync = 0;
+            lastTimestamp = timestamp;
+        }
+
+        long delta = timestamp - lastTimestamp;
+        lastTimestamp = timestamp;
+        recordsSinceSync++;
+        return delta;
+    }
+
+    /**
+     * Write a frame that was received on a bus. The name of the bus must be
+     * part of the header.
+     */
+    public void write(Frame frame) throws IOException {
+        write(frame, frame.getBus().getName());
+    }
+
+    /**
+     * Write a frame for the bus with the given name. The name must be part
+     * of the header.
+     */
+    public synchronized void write(Frame frame, String busName) throws IOException {
+        int bus = getBusIndex(busName);
+        byte[] data = frame.getData();
+        if(data.length > MAX_DATA_LENGTH)
+            throw new IllegalArgumentException("Frame data is too long");
+
+        long delta = prepareRecord(frame.getTimestamp());
+
+        out.writeByte(bus);
+        writeVarLong(delta);
+        if(frame.isExtended()) {
+            out.writeByte(0x80 | data.length);
+            out.writeInt(frame.getIdentifier());
+        } else {
+            out.writeByte(data.length);
+            out.writeShort(frame.getIdentifier());
+        }
+        out.write(data);
+    }
+
+    /**
+     * Write an event.
+     * @param timestamp Timestamp in microseconds
+     * @param busName Name of the bus or null if the event belongs to all
+     * busses
+     * @param message The message of the event
+     */
+    public synchronized void writeEvent(long timestamp, String busName, String message) throws IOException {
+        int bus = busName != null ? getBusIndex(busName) : NO_BUS;
+        long delta = prepareRecord(timestamp);
+
+        out.writeByte(EVENT);
+        writeVarLong(delta);
+        out.writeByte(bus);
+        writeString(out, message);
+    }
+
+    public synchronized void flush() throws IOException {
+        out.flush();
+    }
+
+    public synchronized void close() throws IOException {
+        out.close();
+    }
+}
@@ -0,0 +1,247 @@
+/**
+ * 	This file is part of Kayak.
+ *
+ *	Kayak is free software: you can redistribute it and/or modify
+ *	it under the terms of the GNU Lesser General Public License as published by
+ *	the Free Software Foundation, either version 3 of the License, or
+ *	(at your option) any later version.
+ *
+ *	Kayak is distributed in the hope that it will be useful,
+ *	but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *	GNU General Public License for more details.
+ *
+ *	You should have received a copy of the GNU Lesser General Public License
+ *	along with Kayak.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.kayak.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reads a file that was written by {@link BlockGzipOutputStream}. Only one
+ * block is decompressed at a time. Positions are virtual offsets: the file
+ * position of a block shifted left by 16 bits combined with the offset in
+ * the uncompressed data of the block. A seek to a virtual offset
+ * decompresses only the block it points into.
+ * @author Jan-Niklas Meier <dschanoeh@googlemail.com>
+ */
+public class BlockGzipInputStream extends InputStream {
+
+    private final RandomAccessFile file;
+    private final long size;
+    private final byte[] block = new byte[BlockGzipOutputStream.MAX_BLOCK_SIZE];
+    private final byte[] buffer = new byte[BlockGzipOutputStream.MAX_BLOCK_SIZE];
+    private final Inflater inflater = new Inflater(true);
+    private final CRC32 crc = new CRC32();
+
+    private long blockAddress;
+    private long nextBlockAddress;
+    private int bufferFill;
+    private int bufferPosition;
+
+    public BlockGzipInputStream(File file) throws IOException {
+        this.file = new RandomAccessFile(file, "r");
+        this.size = this.file.length();
+    }
+
+    /**
+     * True if the file starts with a block of the block compressed format.
+     */
+    public static boolean isBlockCompressed(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            byte[] header = new byte[BlockGzipOutputStream.HEADER_SIZE];
+            if(raf.read(header) != header.length)
+                return false;
+            return isBlockHeader(header, 0);
+        } finally {
+            raf.close();
+        }
+    }
+
+    private static boolean isBlockHeader(byte[] b, int pos) {
+        for(int i=0;i<16;i++) {
+            /* modification time, extra flags and OS may differ */
+            if(i >= 4 && i <= 9)
+                continue;
+            if(b[pos + i] != BlockGzipOutputStream.EOF_BLOCK[i])
+                return false;
+        }
+        return true;
+    }
+
+    private static int readShort(byte[] b, int pos) {
+        return (b[pos] & 0xFF) | ((b[pos + 1] & 0xFF) << 8);
+    }
+
+    private static int readInt(byte[] b, int pos) {
+        return readShort(b, pos) | (readShort(b, pos + 2) << 16);
+    }
+
+    /**
+     * Reads and decompresses the block at an address.
+     * @return false if the address is at the end of the file
+     */
+    private boolean readBlock(long address) throws IOException {
+        blockAddress = address;
+        bufferFill = 0;
+        bufferPosition = 0;
+
+        if(address >= size) {
+            nextBlockAddress = address;
+            return false;
+        }
+
+        file.seek(address);
+        file.readFully(block, 0, BlockGzipOutputStream.HEADER_SIZE);
+        if(!isBlockHeader(block, 0))
+            throw new IOException("No compressed block at position " + address);
+
+        int blockSize = readShort(block, 16) + 1;
+        int length = blockSize - BlockGzipOutputStream.HEADER_SIZE - BlockGzipOutputStream.TRAILER_SIZE;
+        if(length < 0)
+            throw new IOException("Malformed block at position " + address);
+
+        file.readFully(block, BlockGzipOutputStream.HEADER_SIZE, blockSize - BlockGzipOutputStream.HEADER_SIZE);
+        int expectedCrc = readInt(block, BlockGzipOutputStream.HEADER_SIZE + length);
+        int expectedSize = readInt(block, BlockGzipOutputStream.HEADER_SIZE + length + 4);
+        if(expectedSize < 0 || expectedSize > buffer.length)
+            throw new IOException("Malformed block at position " + address);
+
+        inflater.reset();
+        inflater.setInput(block, BlockGzipOutputStream.HEADER_SIZE, length);
+        try {
+            int n = 0;
+            while(n < expectedSize && !inflater.finished()) {
+                int r = inflater.inflate(buffer, n, expectedSize - n);
+                if(r == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+                    break;
+                n += r;
+            }
+            if(n != expectedSize)
+                throw new IOException("Block at position " + address + " is truncated");
+        } catch(DataFormatException ex) {
+            throw new IOException("Malformed block at position " + address, ex);
+        }
+
+        crc.reset();
+        crc.update(buffer, 0, expectedSize);
+        if((int) crc.getValue() != expectedCrc)
+            throw new IOException("CRC error in block at position " + address);
+
+        bufferFill = expectedSize;
+        nextBlockAddress = address + blockSize;
+        return true;
+    }
+
+    /* makes sure that there is data in the buffer or returns false at the end */
+    private boolean ensureData() throws IOException {
+        while(bufferPosition >= bufferFill) {
+            if(!readBlock(nextBlockAddress))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * The virtual offset of the next byte that will be read.
+     */
+    public long getVirtualOffset() {
+        if(bufferPosition >= bufferFill)
+            return nextBlockAddress << 16;
+
+        return (blockAddress << 16) | bufferPosition;
+    }
+
+    /**
+     * Continue reading at a virtual offset.
+     */
+    public void seek(long virtualOffset) throws IOException {
+        long address = virtualOffset >>> 16;
+        int offset = (int) (virtualOffset & 0xFFFF);
+
+        if(address != blockAddress || (bufferFill == 0 && address < size)) {
+            readBlock(address);
+        }
+
+        if(offset > bufferFill)
+            throw new IOException("Invalid virtual offset " + virtualOffset);
+        bufferPosition = offset;
+    }
+
+    /**
+     * Address of the first block that starts at or after a file position.
+     * Candidates are validated by reading the block header and checking that
+     * another block or the end of the file follows.
+     * @return the address or -1 if there is none
+     */
+    public long findBlock(long position) throws IOException {
+        byte[] bytes = new byte[BlockGzipOutputStream.MAX_BLOCK_SIZE + BlockGzipOutputStream.HEADER_SIZE];
+
+        for(long start=Math.max(0, position);start<size;start+=BlockGzipOutputStream.MAX_BLOCK_SIZE) {
+            file.seek(start);
+            int read = (int) Math.min(bytes.length, size - start);
+            file.readFully(bytes, 0, read);
+
+            for(int i=0;i<Math.min(read, BlockGzipOutputStream.MAX_BLOCK_SIZE);i++) {
+                if(i + BlockGzipOutputStream.HEADER_SIZE > read || !isBlockHeader(bytes, i))
+                    continue;
+
+                long address = start + i;
+                long next = address + readShort(bytes, i + 16) + 1;
+                if(next == size || (next < size && isBlockAt(next)))
+                    return address;
+            }
+        }
+        return -1;
+    }
+
+    private boolean isBlockAt(long address) throws IOException {
+        byte[] header = new byte[BlockGzipOutputStream.HEADER_SIZE];
+        file.seek(address);
+        if(size - address < header.length)
+            return false;
+        file.readFully(header);
+        return isBlockHeader(header, 0);
+    }
+
+    @Override
+    public int read() throws IOException {
+        if(!ensureData())
+            return -1;
+
+        return buffer[bufferPosition++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if(len == 0)
+            return 0;
+        if(!ensureData())
+            return -1;
+
+        int n = Math.min(len, bufferFill - bufferPosition);
+        System.arraycopy(buffer, bufferPosition, b, off, n);
+        bufferPosition += n;
+        return n;
+    }
+
+    @Override
+    public int available() {
+        return bufferFill - bufferPosition;
+    }
+
+    @Override
+    public void close() throws IOException {
+        inflater.end();
+        file.close();
+    }
+}
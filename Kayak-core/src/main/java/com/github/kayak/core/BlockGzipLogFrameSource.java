@@ -0,0 +1,123 @@
+/**
+ * 	This file is part of Kayak.
+ *
+ *	Kayak is free software: you can redistribute it and/or modify
+ *	it under the terms of the GNU Lesser General Public License as published by
+ *	the Free Software Foundation, either version 3 of the License, or
+ *	(at your option) any later version.
+ *
+ *	Kayak is distributed in the hope that it will be useful,
+ *	but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *	GNU General Public License for more details.
+ *
+ *	You should have received a copy of the GNU Lesser General Public License
+ *	along with Kayak.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.kayak.core;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Reads the frames of a block compressed text log file. Positions are
+ * virtual offsets of {@link BlockGzipInputStream}, so a seek decompresses
+ * only a single block. Lines that are not frames are skipped.
+ * @author Jan-Niklas Meier <dschanoeh@googlemail.com>
+ */
+class BlockGzipLogFrameSource implements LogFrameSource {
+
+    private final BlockGzipInputStream in;
+    private final LogLineParser parser = new LogLineParser();
+    private byte[] line = new byte[128];
+    private long lineStart = -1;
+
+    public BlockGzipLogFrameSource(File file, long position) throws IOException {
+        in = new BlockGzipInputStream(file);
+        in.seek(position);
+    }
+
+    @Override
+    public void seek(long position) throws IOException {
+        in.seek(position);
+        lineStart = -1;
+    }
+
+    /**
+     * Seek to the first block that starts at or after a file position.
+     * @return false if there is no such block
+     */
+    boolean seekToBlockAfter(long filePosition) throws IOException {
+        long address = in.findBlock(filePosition);
+        if(address == -1)
+            return false;
+
+        seek(address << 16);
+        return true;
+    }
+
+    /* reads a line into the line buffer and returns its length or -1 at the end */
+    private int readLine() throws IOException {
+        lineStart = in.getVirtualOffset();
+        int length = 0;
+
+        while(true) {
+            int b = in.read();
+            if(b == -1) {
+                if(length == 0)
+                    return -1;
+                break;
+            }
+            if(b == '\n')
+                break;
+
+            if(length == line.length) {
+                byte[] larger = new byte[line.length * 2];
+                System.arraycopy(line, 0, larger, 0, length);
+                line = larger;
+            }
+            line[length++] = (byte) b;
+        }
+
+        if(length > 0 && line[length - 1] == '\r')
+            length--;
+
+        return length;
+    }
+
+    @Override
+    public boolean nextFrame() throws IOException {
+        try {
+            int length;
+            while((length = readLine()) != -1) {
+                if(parser.parse(line, 0, length))
+                    return true;
+            }
+        } catch(EOFException ex) {
+            /* the last block was cut off */
+        }
+        return false;
+    }
+
+    @Override
+    public long getResumePosition() {
+        return lineStart;
+    }
+
+    @Override
+    public long getTimestamp() {
+        return parser.getTimestamp();
+    }
+
+    @Override
+    public Frame.FrameBusNamePair getFrameBusNamePair() {
+        return parser.getFrameBusNamePair();
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
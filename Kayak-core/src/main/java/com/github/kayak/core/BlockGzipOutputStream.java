@@ -0,0 +1,145 @@
+/**
+ * 	This file is part of Kayak.
+ *
+ *	Kayak is free software: you can redistribute it and/or modify
+ *	it under the terms of the GNU Lesser General Public License as published by
+ *	the Free Software Foundation, either version 3 of the License, or
+ *	(at your option) any later version.
+ *
+ *	Kayak is distributed in the hope that it will be useful,
+ *	but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *	GNU General Public License for more details.
+ *
+ *	You should have received a copy of the GNU Lesser General Public License
+ *	along with Kayak.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.kayak.core;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Writes data in independently compressed blocks. Every block is a
+ * complete gzip member that holds at most {@value #MAX_BLOCK_DATA} bytes and
+ * carries its own compressed size in an extra field (like BGZF). The result
+ * is a valid gzip file but a reader can start decompressing at every block.
+ * Positions in such a file are virtual offsets, see
+ * {@link BlockGzipInputStream}. The file ends with an empty block.
+ * @author Jan-Niklas Meier <dschanoeh@googlemail.com>
+ */
+public class BlockGzipOutputStream extends OutputStream {
+
+    static final int MAX_BLOCK_DATA = 0xFF00;
+    static final int MAX_BLOCK_SIZE = 0x10000;
+    static final int HEADER_SIZE = 18;
+    static final int TRAILER_SIZE = 8;
+
+    static final byte[] EOF_BLOCK = new byte[] {
+        0x1f, (byte) 0x8b, 0x08, 0x04, 0x00, 0x00, 0x00, 0x00, 0x00, (byte) 0xff,
+        0x06, 0x00, 0x42, 0x43, 0x02, 0x00, 0x1b, 0x00, 0x03, 0x00,
+        0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00 };
+
+    private final OutputStream out;
+    private final byte[] buffer = new byte[MAX_BLOCK_DATA];
+    private final byte[] block = new byte[MAX_BLOCK_SIZE];
+    private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    private final CRC32 crc = new CRC32();
+    private int count;
+    private boolean closed;
+
+    public BlockGzipOutputStream(OutputStream out) {
+        this.out = out;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if(count == MAX_BLOCK_DATA)
+            writeBlock();
+
+        buffer[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        while(len > 0) {
+            if(count == MAX_BLOCK_DATA)
+                writeBlock();
+
+            int n = Math.min(len, MAX_BLOCK_DATA - count);
+            System.arraycopy(b, off, buffer, count, n);
+            count += n;
+            off += n;
+            len -= n;
+        }
+    }
+
+    private int deflate(int level) {
+        deflater.reset();
+        deflater.setLevel(level);
+        deflater.setInput(buffer, 0, count);
+        deflater.finish();
+        int max = MAX_BLOCK_SIZE - HEADER_SIZE - TRAILER_SIZE;
+        int length = deflater.deflate(block, HEADER_SIZE, max);
+        return deflater.finished() ? length : -1;
+    }
+
+    private static void writeShort(byte[] b, int pos, int value) {
+        b[pos] = (byte) value;
+        b[pos + 1] = (byte) (value >>> 8);
+    }
+
+    private static void writeInt(byte[] b, int pos, int value) {
+        writeShort(b, pos, value);
+        writeShort(b, pos + 2, value >>> 16);
+    }
+
+    private void writeBlock() throws IOException {
+        if(count == 0)
+            return;
+
+        int length = deflate(Deflater.DEFAULT_COMPRESSION);
+        /* data that can not be compressed is stored */
+        if(length == -1)
+            length = deflate(Deflater.NO_COMPRESSION);
+
+        crc.reset();
+        crc.update(buffer, 0, count);
+
+        int size = HEADER_SIZE + length + TRAILER_SIZE;
+        System.arraycopy(EOF_BLOCK, 0, block, 0, 16);
+        writeShort(block, 16, size - 1);
+        writeInt(block, HEADER_SIZE + length, (int) crc.getValue());
+        writeInt(block, HEADER_SIZE + length + 4, count);
+
+        out.write(block, 0, size);
+        count = 0;
+    }
+
+    /**
+     * Writes the pending data as a block of its own.
+     */
+    @Override
+    public void flush() throws IOException {
+        writeBlock();
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if(closed)
+            return;
+
+        closed = true;
+        try {
+            writeBlock();
+            out.write(EOF_BLOCK);
+        } finally {
+            deflater.end();
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,150 @@
+/**
+ * 	This file is part of Kayak.
+ *
+ *	Kayak is free software: you can redistribute it and/or modify
+ *	it under the terms of the GNU Lesser General Public License as published by
+ *	the Free Software Foundation, either version 3 of the License, or
+ *	(at your option) any later version.
+ *
+ *	Kayak is distributed in the hope that it will be useful,
+ *	but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *	GNU General Public License for more details.
+ *
+ *	You should have received a copy of the GNU Lesser General Public License
+ *	along with Kayak.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.kayak.core;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Growable ASCII buffer in which socketcand commands are assembled. Commands
+ * of a connection are collected here until the {@link SocketcandReactor}
+ * writes them with a single write call. Numbers are formatted directly into
+ * the buffer so no intermediate Strings are needed.
+ * Callers must synchronize on the buffer.
+ * @author Jan-Niklas Meier <dschanoeh@googlemail.com>
+ */
+class CommandBuffer {
+
+    private static final byte[] HEX = new byte[] { '0', '1', '2', '3', '4', '5',
+        '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f' };
+    private static final byte[] HEX_UPPER = new byte[] { '0', '1', '2', '3', '4', '5',
+        '6', '7', '8', '9', 'A', 'B', 'C', 'D', 'E', 'F' };
+
+    private byte[] data;
+    private int length;
+
+    public CommandBuffer(int capacity) {
+        data = new byte[capacity];
+    }
+
+    public boolean isEmpty() {
+        return length == 0;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public void clear() {
+        length = 0;
+    }
+
+    private void ensureCapacity(int additional) {
+        if(length + additional > data.length) {
+            byte[] newData = new byte[Math.max(data.length * 2, length + additional)];
+            System.arraycopy(data, 0, newData, 0, length);
+            data = newData;
+        }
+    }
+
+    public CommandBuffer append(char c) {
+        ensureCapacity(1);
+        data[length++] = (byte) c;
+        return this;
+    }
+
+    /**
+     * Append a String that only consists of ASCII characters.
+     */
+    public CommandBuffer append(String s) {
+        int len = s.length();
+        ensureCapacity(len);
+        for(int i=0;i<len;i++) {
+            data[length++] = (byte) s.charAt(i);
+        }
+        return this;
+    }
+
+    public CommandBuffer appendDecimal(long value) {
+        if(value < 0) {
+            append('-');
+            value = -value;
+        }
+
+        int digits = 1;
+        for(long v = value / 10;v != 0;v /= 10)
+            digits++;
+
+        ensureCapacity(digits);
+        for(int i=length+digits-1;i>=length;i--) {
+            data[i] = (byte) ('0' + (value % 10));
+            value /= 10;
+        }
+        length += digits;
+        return this;
+    }
+
+    /**
+     * Append the lower digits of value as lower case hex number with
+     * leading zeros.
+     */
+    public CommandBuffer appendHex(int value, int digits) {
+        ensureCapacity(digits);
+        for(int i=digits-1;i>=0;i--) {
+            data[length++] = HEX[(value >>> (i * 4)) & 0xF];
+        }
+        return this;
+    }
+
+    /**
+     * Append an identifier. Standard identifiers are formatted with three,
+     * extended identifiers with eight digits.
+     */
+    public CommandBuffer appendIdentifier(int identifier, boolean extended) {
+        return appendHex(identifier, extended ? 8 : 3);
+    }
+
+    /**
+     * Append the bytes as upper case hex numbers separated by spaces.
+     */
+    public CommandBuffer appendBytes(byte[] bytes) {
+        ensureCapacity(bytes.length * 3);
+        for(int i=0;i<bytes.length;i++) {
+            if(i != 0)
+                data[length++] = ' ';
+            data[length++] = HEX_UPPER[(bytes[i] >> 4) & 0xF];
+            data[length++] = HEX_UPPER[bytes[i] & 0xF];
+        }
+        return this;
+    }
+
+    /**
+     * Move the content of the buffer to the given {@link ByteBuffer}. If it
+     * is too small a larger one is allocated. The returned buffer is ready to
+     * be written and the CommandBuffer is empty afterwards.
+     */
+    public ByteBuffer drainTo(ByteBuffer buffer) {
+        if(buffer.capacity() < length)
+            buffer = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, length));
+
+        buffer.clear();
+        buffer.put(data, 0, length);
+        buffer.flip();
+        length = 0;
+        return buffer;
+    }
+}
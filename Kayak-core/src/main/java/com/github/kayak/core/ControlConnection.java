@@ -19,10 +19,6 @@
 package com.github.kayak.core;
 
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.PrintWriter;
-import java.net.InetSocketAddress;
-import java.net.Socket;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -30,15 +26,11 @@ import java.util.logging.Logger;
  *
  * @author Jan-Niklas Meier <dschanoeh@googlemail.com>
  */
-public class ControlConnection extends SocketcandConnection implements Runnable {
+public class ControlConnection extends SocketcandConnection {
 
     private static final Logger logger = Logger.getLogger(ControlConnection.class.getName());
 
-    private Socket socket;
-    private PrintWriter output;
-    private Thread thread;
-    private InputStreamReader input;
-    private Boolean connected = false;
+    private volatile boolean statisticsEnabled = false;
     private StatisticsListener statisticsReceiver;
 
     public void setStatisticsReceiver(StatisticsListener receiver) {
@@ -55,132 +47,67 @@ public class ControlConnection extends SocketcandConnection implements Runnable
         this.busName = url.getBus();
     }
 
-    public void open() {
-        InetSocketAddress address = new InetSocketAddress(host, port);
-
-        try {
-            socket = new Socket();
-            socket.connect(address);
-            socket.setSoTimeout(1000);
-
-            input = new InputStreamReader(socket.getInputStream());
-            setInput(input);
-
-            output = new PrintWriter(socket.getOutputStream(), true);
-
-            String ret = getElement();
-            if (!ret.equals("< hi >")) {
-                logger.log(Level.SEVERE, "Did not receive greeting from host.");
-            }
-
-            output.print("< open " + busName + " >");
-            output.flush();
-
-            ret = getElement();
-            if (!ret.equals("< ok >")) {
-                logger.log(Level.SEVERE, "Could not open bus");
-            }
-
-            output.print("< controlmode >");
-            output.flush();
+    @Override
+    protected boolean handshake() throws IOException {
+        if(!openBus())
+            return false;
 
-            ret = getElement();
-            if (!ret.equals("< ok >")) {
-                logger.log(Level.SEVERE, "Could not switch to control mode.");
-            }
-            socket.setSoTimeout(100);
+        handshakeWrite("< controlmode >");
 
-        } catch (Exception e) {
-            logger.log(Level.SEVERE, "IOException while creating the socket.", e);
-            return;
+        String ret = handshakeElement();
+        if (!ret.equals("< ok >")) {
+            logger.log(Level.SEVERE, "Could not switch to control mode.");
+            return false;
         }
 
-        connected = true;
+        return true;
     }
 
+    @Override
     public void close() {
-        if (thread != null && thread.isAlive()) {
-            try {
-                thread.interrupt();
-                thread.join();
-            } catch (Exception e) {
-            }
-        }
-        try {
-            socket.close();
-        } catch (IOException e) {
-        }
-
-        connected = false;
-    }
-
-    public Boolean isConnected() {
-        return connected;
+        statisticsEnabled = false;
+        super.close();
     }
 
     public void requestStatistics(int interval) {
         if(this.isConnected()) {
-            output.write("< statistics " + Integer.toString(interval) + " >");
-            output.flush();
-
-            /* Start worker thread for frame reception */
-            thread = new Thread(this);
-            thread.start();
+            statisticsEnabled = true;
+            send("< statistics " + Integer.toString(interval) + " >");
         } else {
             logger.log(Level.WARNING, "requested statistics while connection was not opened.");
         }
     }
 
     public void disableStatistics() {
-        if(this.isConnected() && thread != null && thread.isAlive()) {
-            thread.interrupt();
-            try {
-                thread.join();
-            } catch (InterruptedException ex) {
-            }
+        if(this.isConnected() && statisticsEnabled) {
+            statisticsEnabled = false;
+            send("< statistics 0 >");
         }
     }
 
-
     @Override
-    public void run() {
-        while (true) {
-            if (Thread.interrupted()) {
-                break;
-            }
+    protected void elementReceived(String element) {
+        String[] fields = element.split("\\s");
+
+        if (fields[1].equals("stat")) {
+            if(!statisticsEnabled)
+                return;
 
             try {
-                String frame = getElement();
-
-                String[] fields = frame.split("\\s");
-
-                if (fields[1].equals("stat")) {
-                    try {
-                        long rxBytes = Long.parseLong(fields[2]);
-                        long rxPackets = Long.parseLong(fields[3]);
-                        long txBytes = Long.parseLong(fields[4]);
-                        long txPackets = Long.parseLong(fields[5]);
-
-                        if(statisticsReceiver != null) {
-                            statisticsReceiver.statisticsUpdated(rxBytes, rxPackets, txBytes, txPackets);
-                        }
-
-                    } catch (Exception ex) {
-                        logger.log(Level.WARNING, "Could not properly deliver CAN frame", ex);
-                    }
-                } else if (fields[1].equals("error")) {
-                    logger.log(Level.WARNING, "Received error from socketcand: {0}", frame);
+                long rxBytes = Long.parseLong(fields[2]);
+                long rxPackets = Long.parseLong(fields[3]);
+                long txBytes = Long.parseLong(fields[4]);
+                long txPackets = Long.parseLong(fields[5]);
+
+                if(statisticsReceiver != null) {
+                    statisticsReceiver.statisticsUpdated(rxBytes, rxPackets, txBytes, txPackets);
                 }
-            }catch(InterruptedException ex) {
-                logger.log(Level.WARNING, "Interrupted exception. Shutting down connection thread", ex);
-                return;
-            } catch (IOException ex) {
-                /*
-                 * A read from the socket may time out if there are very few frames.
-                 * this will cause an IOException. This is ok so we will ignore these
-                 * exceptions
-                 */
+
+            } catch (Exception ex) {
+                logger.log(Level.WARNING, "Could not properly deliver CAN frame", ex);
             }
+        } else if (fields[1].equals("error")) {
+            logger.log(Level.WARNING, "Received error from socketcand: {0}", element);
         }
     }
 
@@ -0,0 +1,191 @@
+/**
+ * 	This file is part of Kayak.
+ *
+ *	Kayak is free software: you can redistribute it and/or modify
+ *	it under the terms of the GNU Lesser General Public License as published by
+ *	the Free Software Foundation, either version 3 of the License, or
+ *	(at your option) any later version.
+ *
+ *	Kayak is distributed in the hope that it will be useful,
+ *	but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *	GNU General Public License for more details.
+ *
+ *	You should have received a copy of the GNU Lesser General Public License
+ *	along with Kayak.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.kayak.core;
+
+import java.util.Collection;
+
+/**
+ * Immutable lookup table that maps identifiers to the {@link Subscription}s
+ * that receive them. Standard identifiers index a dense array, extended
+ * identifiers are kept in a primitive hash map. Subscriptions that receive
+ * all frames are kept in a separate array.
+ * A {@link Bus} never modifies a table that is in use. Every change creates
+ * a modified copy so frames can be dispatched without locking.
+ * @author Jan-Niklas Meier <dschanoeh@googlemail.com>
+ */
+final class DispatchTable {
+
+    private static final int STANDARD_IDS = 2048;
+    private static final Subscription[] NONE = new Subscription[0];
+
+    public static final DispatchTable EMPTY = new DispatchTable(new Subscription[STANDARD_IDS][],
+            new IntObjectHashMap<Subscription[]>(), new IntObjectHashMap<Subscription[]>(), NONE);
+
+    private final Subscription[][] standard;
+    private final IntObjectHashMap<Subscription[]> extended;
+    /* standard identifiers that do not fit into 11 bits */
+    private final IntObjectHashMap<Subscription[]> standardOverflow;
+    private final Subscription[] all;
+
+    private DispatchTable(Subscription[][] standard, IntObjectHashMap<Subscription[]> extended,
+            IntObjectHashMap<Subscription[]> standardOverflow, Subscription[] all) {
+        this.standard = standard;
+        this.extended = extended;
+        this.standardOverflow = standardOverflow;
+        this.all = all;
+    }
+
+    /**
+     * Builds a new table.
+     * @param subscribeAll subscriptions that receive all frames
+     * @param subscriptions subscriptions that receive single identifiers
+     */
+    public static DispatchTable build(Collection<Subscription> subscribeAll, Collection<Subscription> subscriptions) {
+        DispatchTable table = new DispatchTable(new Subscription[STANDARD_IDS][],
+                new IntObjectHashMap<Subscription[]>(), new IntObjectHashMap<Subscription[]>(),
+                subscribeAll.toArray(new Subscription[subscribeAll.size()]));
+
+        for(Subscription s : subscriptions) {
+            for(int id : s.getIdentifierArray(false))
+                table.add(id, false, s);
+            for(int id : s.getIdentifierArray(true))
+                table.add(id, true, s);
+        }
+
+        return table;
+    }
+
+    /**
+     * Returns all subscriptions that receive frames with this identifier.
+     * The returned array must not be modified.
+     */
+    public Subscription[] getSubscribers(int id, boolean extended) {
+        Subscription[] subscribers;
+
+        if(extended) {
+            subscribers = this.extended.get(id);
+        } else if((id & ~(STANDARD_IDS - 1)) == 0) {
+            subscribers = standard[id];
+        } else {
+            subscribers = standardOverflow.get(id);
+        }
+
+        return subscribers == null ? NONE : subscribers;
+    }
+
+    /**
+     * Returns all subscriptions that receive all frames. The returned array
+     * must not be modified.
+     */
+    public Subscription[] getSubscribeAll() {
+        return all;
+    }
+
+    /**
+     * Returns a copy of the table in which the subscription receives the
+     * identifier.
+     */
+    public DispatchTable withSubscriber(int id, boolean extended, Subscription s) {
+        if(contains(getSubscribers(id, extended), s))
+            return this;
+
+        DispatchTable copy = copy(id, extended);
+        copy.add(id, extended, s);
+        return copy;
+    }
+
+    /**
+     * Returns a copy of the table in which the subscription does not receive
+     * the identifier any more.
+     */
+    public DispatchTable withoutSubscriber(int id, boolean extended, Subscription s) {
+        Subscription[] subscribers = getSubscribers(id, extended);
+        if(!contains(subscribers, s))
+            return this;
+
+        Subscription[] newSubscribers = new Subscription[subscribers.length - 1];
+        int j = 0;
+        for(int i=0;i<subscribers.length;i++) {
+            if(subscribers[i] != s)
+                newSubscribers[j++] = subscribers[i];
+        }
+
+        DispatchTable copy = copy(id, extended);
+        copy.set(id, extended, newSubscribers.length == 0 ? null : newSubscribers);
+        return copy;
+    }
+
+    /**
+     * Creates a copy that shares everything except the part that holds
+     * the given identifier.
+     */
+    private DispatchTable copy(int id, boolean extended) {
+        if(extended) {
+            return new DispatchTable(standard, new IntObjectHashMap<Subscription[]>(this.extended),
+                    standardOverflow, all);
+        } else if((id & ~(STANDARD_IDS - 1)) == 0) {
+            return new DispatchTable(standard.clone(), this.extended, standardOverflow, all);
+        } else {
+            return new DispatchTable(standard, this.extended,
+                    new IntObjectHashMap<Subscription[]>(standardOverflow), all);
+        }
+    }
+
+    /**
+     * Only used while a new table is constructed.
+     */
+    private void add(int id, boolean extended, Subscription s) {
+        Subscription[] subscribers = getSubscribers(id, extended);
+        if(contains(subscribers, s))
+            return;
+
+        Subscription[] newSubscribers = new Subscription[subscribers.length + 1];
+        System.arraycopy(subscribers, 0, newSubscribers, 0, subscribers.length);
+        newSubscribers[subscribers.length] = s;
+        set(id, extended, newSubscribers);
+    }
+
+    /**
+     * Only used while a new table is constructed.
+     */
+    private void set(int id, boolean extended, Subscription[] subscribers) {
+        IntObjectHashMap<Subscription[]> map;
+
+        if(extended) {
+            map = this.extended;
+        } else if((id & ~(STANDARD_IDS - 1)) == 0) {
+            standard[id] = subscribers;
+            return;
+        } else {
+            map = standardOverflow;
+        }
+
+        if(subscribers == null)
+            map.remove(id);
+        else
+            map.put(id, subscribers);
+    }
+
+    private static boolean contains(Subscription[] subscribers, Subscription s) {
+        for(int i=0;i<subscribers.length;i++) {
+            if(subscribers[i] == s)
+                return true;
+        }
+        return false;
+    }
+}
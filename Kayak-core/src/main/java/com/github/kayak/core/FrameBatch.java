@@ -0,0 +1,96 @@
+/**
+ * 	This file is part of Kayak.
+ *
+ *	Kayak is free software: you can redistribute it and/or modify
+ *	it under the terms of the GNU Lesser General Public License as published by
+ *	the Free Software Foundation, either version 3 of the License, or
+ *	(at your option) any later version.
+ *
+ *	Kayak is distributed in the hope that it will be useful,
+ *	but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *	GNU General Public License for more details.
+ *
+ *	You should have received a copy of the GNU Lesser General Public License
+ *	along with Kayak.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.kayak.core;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * A FrameBatch is an ordered list of frames that is delivered to listeners
+ * with a single call. The batch grows as needed and can be cleared and
+ * reused so the source of the frames does not need to allocate a new
+ * list for every chunk.
+ * @author Jan-Niklas Meier <dschanoeh@googlemail.com>
+ */
+public class FrameBatch extends AbstractList<Frame> implements RandomAccess {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private Frame[] frames;
+    private int size = 0;
+
+    public FrameBatch() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public FrameBatch(int capacity) {
+        frames = new Frame[Math.max(1, capacity)];
+    }
+
+    @Override
+    public boolean add(Frame frame) {
+        if(size == frames.length)
+            frames = Arrays.copyOf(frames, frames.length * 2);
+
+        frames[size++] = frame;
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public Frame get(int index) {
+        if(index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+
+        return frames[index];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Removes all frames. The capacity is kept.
+     */
+    @Override
+    public void clear() {
+        Arrays.fill(frames, 0, size, null);
+        size = 0;
+        modCount++;
+    }
+
+    /**
+     * Hands all frames of the batch to a listener. A
+     * {@link FrameBatchListener} receives the whole batch with a single
+     * call, every other listener is called once per frame.
+     */
+    public void deliverTo(FrameListener listener) {
+        if(size == 0)
+            return;
+
+        if(listener instanceof FrameBatchListener) {
+            ((FrameBatchListener) listener).newFrames(this);
+        } else {
+            for(int i=0;i<size;i++) {
+                listener.newFrame(frames[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,36 @@
+/**
+ * 	This file is part of Kayak.
+ *
+ *	Kayak is free software: you can redistribute it and/or modify
+ *	it under the terms of the GNU Lesser General Public License as published by
+ *	the Free Software Foundation, either version 3 of the License, or
+ *	(at your option) any later version.
+ *
+ *	Kayak is distributed in the hope that it will be useful,
+ *	but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *	GNU General Public License for more details.
+ *
+ *	You should have received a copy of the GNU Lesser General Public License
+ *	along with Kayak.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.kayak.core;
+
+/**
+ * A {@link FrameListener} that is able to receive a number of frames with
+ * a single call. Sources that deliver frames in chunks (a socket read,
+ * a part of a log file) call {@link #newFrames(FrameBatch)} once per chunk
+ * so the listener only has to lock or flush once. Sources that only know
+ * about single frames still call {@link #newFrame(Frame)}.
+ * @author Jan-Niklas Meier <dschanoeh@googlemail.com>
+ */
+public interface FrameBatchListener extends FrameListener {
+
+    /**
+     * Called with all frames of one chunk in the order they were received.
+     * The batch is only valid during the call and may be reused by the
+     * caller afterwards. Listeners may keep the frames but not the batch.
+     */
+    public void newFrames(FrameBatch batch);
+}
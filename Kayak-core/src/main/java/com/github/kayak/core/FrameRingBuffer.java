@@ -0,0 +1,111 @@
+/**
+ * 	This file is part of Kayak.
+ *
+ *	Kayak is free software: you can redistribute it and/or modify
+ *	it under the terms of the GNU Lesser General Public License as published by
+ *	the Free Software Foundation, either version 3 of the License, or
+ *	(at your option) any later version.
+ *
+ *	Kayak is distributed in the hope that it will be useful,
+ *	but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *	GNU General Public License for more details.
+ *
+ *	You should have received a copy of the GNU Lesser General Public License
+ *	along with Kayak.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.kayak.core;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free ring buffer for frames. Any number of threads may offer
+ * and poll concurrently. Every slot carries a sequence number that tells
+ * producers and consumers whether the slot may be written or read, so no
+ * locks are needed.
+ * @author Jan-Niklas Meier <dschanoeh@googlemail.com>
+ */
+class FrameRingBuffer {
+
+    private final AtomicReferenceArray<Frame> frames;
+    private final AtomicLongArray sequences;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+    private final int mask;
+
+    /**
+     * @param capacity the capacity. Rounded up to the next power of two.
+     */
+    public FrameRingBuffer(int capacity) {
+        int size = 2;
+        while(size < capacity)
+            size <<= 1;
+
+        frames = new AtomicReferenceArray<Frame>(size);
+        sequences = new AtomicLongArray(size);
+        for(int i=0;i<size;i++)
+            sequences.set(i, i);
+        mask = size - 1;
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Inserts the frame if the buffer is not full.
+     * @return false if the buffer was full
+     */
+    public boolean offer(Frame frame) {
+        while(true) {
+            long position = tail.get();
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - position;
+
+            if(difference == 0) {
+                if(tail.compareAndSet(position, position + 1)) {
+                    frames.lazySet(index, frame);
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+            } else if(difference < 0) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Removes the oldest frame.
+     * @return the frame or null if the buffer is empty
+     */
+    public Frame poll() {
+        while(true) {
+            long position = head.get();
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - (position + 1);
+
+            if(difference == 0) {
+                if(head.compareAndSet(position, position + 1)) {
+                    Frame frame = frames.get(index);
+                    frames.lazySet(index, null);
+                    sequences.set(index, position + mask + 1);
+                    return frame;
+                }
+            } else if(difference < 0) {
+                return null;
+            }
+        }
+    }
+
+    public boolean isEmpty() {
+        return head.get() >= tail.get();
+    }
+
+    public int size() {
+        long size = tail.get() - head.get();
+        return (int) Math.max(0, Math.min(size, mask + 1));
+    }
+}
@@ -0,0 +1,108 @@
+/**
+ * 	This file is part of Kayak.
+ *
+ *	Kayak is free software: you can redistribute it and/or modify
+ *	it under the terms of the GNU Lesser General Public License as published by
+ *	the Free Software Foundation, either version 3 of the License, or
+ *	(at your option) any later version.
+ *
+ *	Kayak is distributed in the hope that it will be useful,
+ *	but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *	GNU General Public License for more details.
+ *
+ *	You should have received a copy of the GNU Lesser General Public License
+ *	along with Kayak.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.kayak.core;
+
+/**
+ * Counts how many subscriptions of a {@link Bus} subscribe to each
+ * identifier. An identifier has to be subscribed on the BCM connection as
+ * long as its count is above zero. All methods are synchronized.
+ * @author Jan-Niklas Meier <dschanoeh@googlemail.com>
+ */
+class IdentifierRefCount {
+
+    private static final int STANDARD_IDS = 2048;
+
+    private final int[] standard = new int[STANDARD_IDS];
+    private final IntObjectHashMap<int[]> extended = new IntObjectHashMap<int[]>();
+    /* standard identifiers that do not fit into 11 bits */
+    private final IntObjectHashMap<int[]> standardOverflow = new IntObjectHashMap<int[]>();
+    private final IdentifierSet identifiers = new IdentifierSet();
+
+    private static boolean isDense(int id) {
+        return (id & ~(STANDARD_IDS - 1)) == 0;
+    }
+
+    /**
+     * Increments the count of the identifier.
+     * @return the new count. 1 if the identifier was not referenced before.
+     */
+    public synchronized int increment(int id, boolean extended) {
+        int count;
+
+        if(!extended && isDense(id)) {
+            count = ++standard[id];
+        } else {
+            IntObjectHashMap<int[]> map = extended ? this.extended : standardOverflow;
+            int[] counter = map.get(id);
+            if(counter == null) {
+                counter = new int[1];
+                map.put(id, counter);
+            }
+            count = ++counter[0];
+        }
+
+        if(count == 1)
+            identifiers.add(id, extended);
+
+        return count;
+    }
+
+    /**
+     * Decrements the count of the identifier.
+     * @return the new count. 0 if the identifier is not referenced any more
+     * or was not referenced at all.
+     */
+    public synchronized int decrement(int id, boolean extended) {
+        int count;
+
+        if(!extended && isDense(id)) {
+            if(standard[id] == 0)
+                return 0;
+            count = --standard[id];
+        } else {
+            IntObjectHashMap<int[]> map = extended ? this.extended : standardOverflow;
+            int[] counter = map.get(id);
+            if(counter == null)
+                return 0;
+            count = --counter[0];
+            if(count == 0)
+                map.remove(id);
+        }
+
+        if(count == 0)
+            identifiers.remove(id, extended);
+
+        return count;
+    }
+
+    public synchronized int getCount(int id, boolean extended) {
+        if(!extended && isDense(id)) {
+            return standard[id];
+        } else {
+            int[] counter = (extended ? this.extended : standardOverflow).get(id);
+            return counter == null ? 0 : counter[0];
+        }
+    }
+
+    /**
+     * Returns all identifiers with a count above zero.
+     */
+    public int[] toArray(boolean extended) {
+        return identifiers.toArray(extended);
+    }
+}
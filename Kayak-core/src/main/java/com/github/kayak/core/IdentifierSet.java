@@ -0,0 +1,228 @@
+/**
+ * 	This file is part of Kayak.
+ *
+ *	Kayak is free software: you can redistribute it and/or modify
+ *	it under the terms of the GNU Lesser General Public License as published by
+ *	the Free Software Foundation, either version 3 of the License, or
+ *	(at your option) any later version.
+ *
+ *	Kayak is distributed in the hope that it will be useful,
+ *	but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *	GNU General Public License for more details.
+ *
+ *	You should have received a copy of the GNU Lesser General Public License
+ *	along with Kayak.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.kayak.core;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A set of CAN identifiers that works on primitive ints. Standard
+ * identifiers are kept in a bitset, extended identifiers in an open
+ * addressing hash table that is replaced on every change. Lookups never
+ * lock and never box the identifier. Modifications are synchronized.
+ * @author Jan-Niklas Meier <dschanoeh@googlemail.com>
+ */
+public class IdentifierSet {
+
+    private static final int STANDARD_IDS = 2048;
+
+    private final AtomicLongArray standard = new AtomicLongArray(STANDARD_IDS / 64);
+    private volatile IntTable extended = IntTable.EMPTY;
+    /* standard identifiers that do not fit into 11 bits */
+    private volatile IntTable standardOverflow = IntTable.EMPTY;
+
+    /**
+     * Immutable open addressing hash table of ints.
+     */
+    private static final class IntTable {
+
+        private static final IntTable EMPTY = new IntTable(new int[0], new boolean[0], 0);
+
+        private final int[] keys;
+        private final boolean[] used;
+        private final int size;
+
+        private IntTable(int[] keys, boolean[] used, int size) {
+            this.keys = keys;
+            this.used = used;
+            this.size = size;
+        }
+
+        private static int hash(int key) {
+            int h = key * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+
+        boolean contains(int key) {
+            if(size == 0)
+                return false;
+
+            int mask = keys.length - 1;
+            int i = hash(key) & mask;
+            while(used[i]) {
+                if(keys[i] == key)
+                    return true;
+                i = (i + 1) & mask;
+            }
+            return false;
+        }
+
+        int[] toArray() {
+            int[] result = new int[size];
+            int j = 0;
+            for(int i=0;i<keys.length;i++) {
+                if(used[i])
+                    result[j++] = keys[i];
+            }
+            return result;
+        }
+
+        IntTable with(int key) {
+            int[] content = toArray();
+            int[] newContent = new int[content.length + 1];
+            System.arraycopy(content, 0, newContent, 0, content.length);
+            newContent[content.length] = key;
+            return build(newContent);
+        }
+
+        IntTable without(int key) {
+            int[] content = toArray();
+            int[] newContent = new int[content.length - 1];
+            int j = 0;
+            for(int i=0;i<content.length;i++) {
+                if(content[i] != key)
+                    newContent[j++] = content[i];
+            }
+            return build(newContent);
+        }
+
+        private static IntTable build(int[] content) {
+            if(content.length == 0)
+                return EMPTY;
+
+            int capacity = 4;
+            while(capacity < content.length * 2)
+                capacity <<= 1;
+
+            int[] keys = new int[capacity];
+            boolean[] used = new boolean[capacity];
+            int mask = capacity - 1;
+
+            for(int key : content) {
+                int i = hash(key) & mask;
+                while(used[i])
+                    i = (i + 1) & mask;
+                keys[i] = key;
+                used[i] = true;
+            }
+
+            return new IntTable(keys, used, content.length);
+        }
+    }
+
+    private static boolean isDense(int id) {
+        return (id & ~(STANDARD_IDS - 1)) == 0;
+    }
+
+    public boolean contains(int id, boolean extended) {
+        if(extended)
+            return this.extended.contains(id);
+        else if(isDense(id))
+            return (standard.get(id >> 6) & (1L << (id & 63))) != 0;
+        else
+            return standardOverflow.contains(id);
+    }
+
+    /**
+     * Adds the identifier.
+     * @return true if the identifier was not in the set before
+     */
+    public synchronized boolean add(int id, boolean extended) {
+        if(contains(id, extended))
+            return false;
+
+        if(extended) {
+            this.extended = this.extended.with(id);
+        } else if(isDense(id)) {
+            standard.set(id >> 6, standard.get(id >> 6) | (1L << (id & 63)));
+        } else {
+            standardOverflow = standardOverflow.with(id);
+        }
+        return true;
+    }
+
+    /**
+     * Removes the identifier.
+     * @return true if the identifier was in the set
+     */
+    public synchronized boolean remove(int id, boolean extended) {
+        if(!contains(id, extended))
+            return false;
+
+        if(extended) {
+            this.extended = this.extended.without(id);
+        } else if(isDense(id)) {
+            standard.set(id >> 6, standard.get(id >> 6) & ~(1L << (id & 63)));
+        } else {
+            standardOverflow = standardOverflow.without(id);
+        }
+        return true;
+    }
+
+    public synchronized void clear() {
+        for(int i=0;i<standard.length();i++)
+            standard.set(i, 0);
+        extended = IntTable.EMPTY;
+        standardOverflow = IntTable.EMPTY;
+    }
+
+    public int size(boolean extended) {
+        if(extended)
+            return this.extended.size;
+
+        int size = standardOverflow.size;
+        for(int i=0;i<standard.length();i++)
+            size += Long.bitCount(standard.get(i));
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size(false) == 0 && size(true) == 0;
+    }
+
+    /**
+     * Returns a snapshot of the standard or extended identifiers in the set.
+     * Standard identifiers are sorted.
+     */
+    public int[] toArray(boolean extended) {
+        if(extended)
+            return this.extended.toArray();
+
+        IntTable overflow = standardOverflow;
+        long[] words = new long[standard.length()];
+        int size = overflow.size;
+        for(int i=0;i<words.length;i++) {
+            words[i] = standard.get(i);
+            size += Long.bitCount(words[i]);
+        }
+
+        int[] result = new int[size];
+        int j = 0;
+        for(int i=0;i<words.length;i++) {
+            long word = words[i];
+            while(word != 0) {
+                int bit = Long.numberOfTrailingZeros(word);
+                result[j++] = (i << 6) | bit;
+                word &= word - 1;
+            }
+        }
+
+        int[] others = overflow.toArray();
+        System.arraycopy(others, 0, result, j, others.length);
+        return result;
+    }
+}
@@ -0,0 +1,193 @@
+/**
+ * 	This file is part of Kayak.
+ *
+ *	Kayak is free software: you can redistribute it and/or modify
+ *	it under the terms of the GNU Lesser General Public License as published by
+ *	the Free Software Foundation, either version 3 of the License, or
+ *	(at your option) any later version.
+ *
+ *	Kayak is distributed in the hope that it will be useful,
+ *	but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *	GNU General Public License for more details.
+ *
+ *	You should have received a copy of the GNU Lesser General Public License
+ *	along with Kayak.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.kayak.core;
+
+/**
+ * A hash map with primitive int keys. Uses open addressing with linear
+ * probing so lookups neither box the key nor allocate. Null values are not
+ * supported. The map is not synchronized.
+ * @author Jan-Niklas Meier <dschanoeh@googlemail.com>
+ */
+public class IntObjectHashMap<V> {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private int[] keys;
+    private Object[] values;
+    private int size;
+    private int mask;
+
+    public IntObjectHashMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param expectedSize number of entries that can be added without
+     * resizing the map
+     */
+    public IntObjectHashMap(int expectedSize) {
+        int capacity = DEFAULT_CAPACITY;
+        while(capacity * 3 / 4 < expectedSize)
+            capacity <<= 1;
+
+        keys = new int[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Creates a copy of the given map.
+     */
+    public IntObjectHashMap(IntObjectHashMap<? extends V> map) {
+        keys = map.keys.clone();
+        values = map.values.clone();
+        size = map.size;
+        mask = map.mask;
+    }
+
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private int indexOf(int key) {
+        int i = hash(key) & mask;
+        while(values[i] != null) {
+            if(keys[i] == key)
+                return i;
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        int i = indexOf(key);
+        return i < 0 ? null : (V) values[i];
+    }
+
+    public boolean containsKey(int key) {
+        return indexOf(key) >= 0;
+    }
+
+    /**
+     * Associates the value with the key.
+     * @return the previous value or null
+     */
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+        if(value == null)
+            throw new IllegalArgumentException("Null values are not supported");
+
+        int i = hash(key) & mask;
+        while(values[i] != null) {
+            if(keys[i] == key) {
+                V old = (V) values[i];
+                values[i] = value;
+                return old;
+            }
+            i = (i + 1) & mask;
+        }
+
+        keys[i] = key;
+        values[i] = value;
+        size++;
+
+        if(size > keys.length * 3 / 4)
+            resize(keys.length << 1);
+
+        return null;
+    }
+
+    /**
+     * Removes the mapping for the key.
+     * @return the removed value or null
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        int i = indexOf(key);
+        if(i < 0)
+            return null;
+
+        V old = (V) values[i];
+        values[i] = null;
+        size--;
+
+        /* Move entries of the probe sequence into the gap */
+        int gap = i;
+        i = (i + 1) & mask;
+        while(values[i] != null) {
+            int home = hash(keys[i]) & mask;
+            if(((i - home) & mask) >= ((i - gap) & mask)) {
+                keys[gap] = keys[i];
+                values[gap] = values[i];
+                values[i] = null;
+                gap = i;
+            }
+            i = (i + 1) & mask;
+        }
+
+        return old;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        for(int i=0;i<values.length;i++)
+            values[i] = null;
+        size = 0;
+    }
+
+    /**
+     * Returns all keys in no particular order.
+     */
+    public int[] keys() {
+        int[] result = new int[size];
+        int j = 0;
+        for(int i=0;i<values.length;i++) {
+            if(values[i] != null)
+                result[j++] = keys[i];
+        }
+        return result;
+    }
+
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+
+        keys = new int[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+
+        for(int i=0;i<oldValues.length;i++) {
+            if(oldValues[i] != null) {
+                int j = hash(oldKeys[i]) & mask;
+                while(values[j] != null)
+                    j = (j + 1) & mask;
+                keys[j] = oldKeys[i];
+                values[j] = oldValues[i];
+            }
+        }
+    }
+}
@@ -17,8 +17,10 @@
  */
 package com.github.kayak.core;
 
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
@@ -29,12 +31,12 @@ import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
 import java.io.RandomAccessFile;
 import java.util.HashMap;
+import java.util.Map;
 import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.regex.Pattern;
 import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
 
 /**
  * Represents an already existing log file. On creation the file is parsed and
@@ -46,6 +48,8 @@ public class LogFile {
     private static final Logger logger = Logger.getLogger(LogFile.class.getCanonicalName());
 
     private Boolean compressed;
+    private boolean binary;
+    private boolean blockCompressed;
     private File file;
     private InputStream inputStream;
     private String description;
@@ -107,6 +111,22 @@ public class LogFile {
         return compressed;
     }
 
+    /**
+     * True if the log file is stored in the binary format of
+     * {@link BinaryLogWriter}.
+     */
+    public boolean isBinary() {
+        return binary;
+    }
+
+    /**
+     * True if the frames of the log file can be read from any position.
+     * This is the case for uncompressed and block compressed files.
+     */
+    public boolean isSeekable() {
+        return !compressed || blockCompressed;
+    }
+
     public String getFileName() {
         return file.getName();
     }
@@ -134,26 +154,121 @@ public class LogFile {
         deviceAlias = new HashMap<String, String>();
         String filename = file.getPath();
 
-        if (filename.endsWith(".log.gz")) {
-            compressed = true;
-            inputStream = new GZIPInputStream(new FileInputStream(file));
-        } else {
+        if (filename.endsWith(BinaryLogWriter.EXTENSION)) {
             compressed = false;
-            inputStream = new FileInputStream(file);
+            binary = true;
+            parseBinaryHeader();
+        } else {
+            if (filename.endsWith(".log.gz")) {
+                compressed = true;
+                blockCompressed = BlockGzipInputStream.isBlockCompressed(file);
+                inputStream = new GZIPInputStream(new FileInputStream(file));
+            } else {
+                compressed = false;
+                inputStream = new FileInputStream(file);
+            }
+
+            parseHeader();
+            findPositions();
         }
+    }
 
-        parseHeader();
-        findPositions();
+    /**
+     * Open a source that reads the frames of the log file starting at the
+     * start position. Only seekable files can be read this way.
+     */
+    LogFrameSource openFrameSource() throws IOException {
+        if(binary) {
+            BinaryLogReader reader = new BinaryLogReader(file);
+            reader.seek(startPosition);
+            return reader;
+        } else if(blockCompressed) {
+            return new BlockGzipLogFrameSource(file, startPosition);
+        } else if(compressed) {
+            throw new IOException("Log file " + file.getName() + " is not block compressed");
+        } else {
+            return new TextLogFrameSource(file, startPosition);
+        }
+    }
+
+    private void parseBinaryHeader() throws IOException {
+        BinaryLogReader reader = new BinaryLogReader(file);
+        try {
+            description = reader.getDescription();
+            platform = reader.getPlatform();
+            for(Map.Entry<String, String> entry : reader.getDeviceAliases().entrySet()) {
+                deviceAlias.put(entry.getKey(), entry.getValue());
+            }
+
+            if (description.equals("")) {
+                description = file.getName();
+            }
+            if (platform.equals("")) {
+                platform = "No platform";
+            }
+
+            startPosition = reader.getDataPosition();
+            reader.seek(startPosition);
+            if(reader.nextFrame()) {
+                startTime = reader.getTimestamp();
+                stopTime = reader.findLastTimestamp();
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    private void rewriteBinaryHeader() throws IOException {
+        File tempFile = new File(file.getAbsolutePath() + ".tmp");
+        BinaryLogReader reader = new BinaryLogReader(file);
+        RandomAccessFile in = null;
+        DataOutputStream out = null;
+
+        try {
+            Map<String, String> aliases = reader.getDeviceAliases();
+            long dataPosition = reader.getDataPosition();
+
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+            BinaryLogWriter.writeHeader(out, platform, description, aliases);
+
+            in = new RandomAccessFile(file, "r");
+            in.seek(dataPosition);
+            byte[] buff = new byte[64*1024];
+            int len;
+            while ((len = in.read(buff)) > 0) {
+                out.write(buff, 0, len);
+            }
+        } finally {
+            reader.close();
+            if(in != null)
+                in.close();
+            if(out != null)
+                out.close();
+        }
+
+        if (!MappedLogReader.delete(file)) {
+            logger.log(Level.WARNING, "Could not delete old file");
+            return;
+        }
+
+        if (!tempFile.renameTo(file)) {
+            logger.log(Level.WARNING, "Could not rename new file to old filename");
+        }
     }
 
     private void rewriteHeader() throws FileNotFoundException, IOException {
+        if(binary) {
+            rewriteBinaryHeader();
+            return;
+        }
+
         BufferedWriter wr = null;
         BufferedReader br = null;
         File tempFile = new File(file.getAbsolutePath() + ".tmp");
         if(compressed) {
             GZIPInputStream zipStream = new GZIPInputStream(new FileInputStream(file));
             br = new BufferedReader(new InputStreamReader(zipStream));
-            GZIPOutputStream outStream = new GZIPOutputStream(new FileOutputStream(tempFile));
+            BlockGzipOutputStream outStream = new BlockGzipOutputStream(new FileOutputStream(tempFile));
             wr = new BufferedWriter(new OutputStreamWriter(outStream));
         } else {
             br = new BufferedReader(new InputStreamReader(new FileInputStream(file)));
@@ -209,7 +324,7 @@ public class LogFile {
         wr.close();
         br.close();
 
-        if (!file.delete()) {
+        if (!MappedLogReader.delete(file)) {
             logger.log(Level.WARNING, "Could not delete old file");
             return;
         }
@@ -272,43 +387,134 @@ public class LogFile {
     }
 
     private void findPositions() {
-        RandomAccessFile newFile = null;
+        if(blockCompressed) {
+            findPositionsBlockCompressed();
+            return;
+        } else if(compressed) {
+            findPositionsSequential();
+            return;
+        }
+
+        MappedLogReader reader = null;
+        LogLineParser parser = new LogLineParser();
         try {
-            newFile = new RandomAccessFile(file, "r");
+            reader = new MappedLogReader(file, 0);
 
-            while(true) {
-                long posBefore = newFile.getFilePointer();
-                String line = newFile.readLine();
-                if(line.startsWith("(")) {
-                    Frame f = Frame.fromLogFileNotation(line).getFrame();
-                    startTime = f.getTimestamp();
-                    startPosition = posBefore;
+            while(reader.nextLine()) {
+                if(parser.parse(reader.getBuffer(), reader.getLineOffset(), reader.getLineLength())) {
+                    startTime = parser.getTimestamp();
+                    startPosition = reader.getPositionOfLastLine();
                     break;
                 }
             }
 
-            for(long checkPos = newFile.length() - 10;checkPos>0;checkPos--) {
-                newFile.seek(checkPos);
+            /* Read the tail of the file and look for the last frame */
+            for(long tail = 4096;;tail *= 2) {
+                long tailStart = Math.max(startPosition, reader.getSize() - tail);
+                boolean found = false;
+
+                if(tailStart > 0) {
+                    /* skip the (partial) line that ends at tailStart */
+                    reader.seek(tailStart - 1);
+                    reader.nextLine();
+                } else {
+                    reader.seek(0);
+                }
+
+                while(reader.nextLine()) {
+                    if(parser.parse(reader.getBuffer(), reader.getLineOffset(), reader.getLineLength())) {
+                        stopTime = parser.getTimestamp();
+                        found = true;
+                    }
+                }
+
+                if(found)
+                    break;
 
-                String line = newFile.readLine();
+                if(tailStart <= startPosition)
+                    break;
+            }
+        } catch(IOException ex) {
+            logger.log(Level.INFO, "Exception while finding positions.", ex);
+        } finally {
+            try {
+                if(reader != null)
+                    reader.close();
+            } catch (IOException ex) {
+                logger.log(Level.WARNING, "Could not close reader.", ex);
+            }
+        }
+    }
 
-                if(line != null) {
-                    Frame.FrameBusNamePair pair = Frame.fromLogFileNotation(line);
+    /*
+     * Files that were compressed as a whole can only be read from the
+     * beginning. All frames are read to find the last one.
+     */
+    private void findPositionsSequential() {
+        BufferedReader reader = null;
+        LogLineParser parser = new LogLineParser();
+        boolean first = true;
+        try {
+            reader = new BufferedReader(new InputStreamReader(new GZIPInputStream(new FileInputStream(file))));
 
-                    if(pair != null) {
-                        newFile.seek(checkPos);
-                        stopTime = pair.getFrame().getTimestamp();
-                        break;
+            String line;
+            while((line = reader.readLine()) != null) {
+                if(!parser.parse(line))
+                    continue;
+
+                if(first) {
+                    startTime = parser.getTimestamp();
+                    first = false;
+                }
+                stopTime = parser.getTimestamp();
+            }
+        } catch(IOException ex) {
+            logger.log(Level.INFO, "Exception while finding positions.", ex);
+        } finally {
+            try {
+                if(reader != null)
+                    reader.close();
+            } catch (IOException ex) {
+                logger.log(Level.WARNING, "Could not close reader.", ex);
+            }
+        }
+    }
+
+    private void findPositionsBlockCompressed() {
+        BlockGzipLogFrameSource source = null;
+        try {
+            source = new BlockGzipLogFrameSource(file, 0);
+
+            if(!source.nextFrame())
+                return;
+
+            startTime = source.getTimestamp();
+            startPosition = source.getResumePosition();
+
+            /* Decompress the blocks at the end of the file and look for the last frame */
+            long size = file.length();
+            for(long tail = 2 * BlockGzipOutputStream.MAX_BLOCK_SIZE;;tail *= 2) {
+                long tailStart = Math.max(0, size - tail);
+                boolean found = false;
+
+                if(source.seekToBlockAfter(tailStart)) {
+                    while(source.nextFrame()) {
+                        stopTime = source.getTimestamp();
+                        found = true;
                     }
                 }
+
+                if(found || tailStart == 0)
+                    break;
             }
         } catch(IOException ex) {
             logger.log(Level.INFO, "Exception while finding positions.", ex);
         } finally {
             try {
-                newFile.close();
-            } catch (Exception ex) {
-                Logger.getLogger(SeekableLogFileReplay.class.getName()).log(Level.SEVERE, null, ex);
+                if(source != null)
+                    source.close();
+            } catch (IOException ex) {
+                logger.log(Level.WARNING, "Could not close reader.", ex);
             }
         }
     }
@@ -0,0 +1,216 @@
+/**
+ * 	This file is part of Kayak.
+ *
+ *	Kayak is free software: you can redistribute it and/or modify
+ *	it under the terms of the GNU Lesser General Public License as published by
+ *	the Free Software Foundation, either version 3 of the License, or
+ *	(at your option) any later version.
+ *
+ *	Kayak is distributed in the hope that it will be useful,
+ *	but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *	GNU General Public License for more details.
+ *
+ *	You should have received a copy of the GNU Lesser General Public License
+ *	along with Kayak.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.kayak.core;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Converts log files between the text format and the binary format of
+ * {@link BinaryLogWriter}. Header information, frames and events are
+ * preserved.
+ * @author Jan-Niklas Meier <dschanoeh@googlemail.com>
+ */
+public class LogFileConverter {
+
+    private LogFileConverter() {
+    }
+
+    /**
+     * The file name of the converted log file in the same directory.
+     */
+    public static File getConvertedFile(LogFile logFile) {
+        String name = logFile.getFile().getName();
+
+        if(logFile.isBinary()) {
+            name = name.substring(0, name.length() - BinaryLogWriter.EXTENSION.length()) + ".log";
+        } else if(name.endsWith(".log.gz")) {
+            name = name.substring(0, name.length() - 7) + BinaryLogWriter.EXTENSION;
+        } else if(name.endsWith(".log")) {
+            name = name.substring(0, name.length() - 4) + BinaryLogWriter.EXTENSION;
+        } else {
+            name = name + BinaryLogWriter.EXTENSION;
+        }
+
+        return new File(logFile.getFile().getParentFile(), name);
+    }
+
+    /**
+     * Convert a text log file to a binary log file.
+     */
+    public static void toBinary(LogFile source, File destination) throws IOException {
+        if(source.isBinary())
+            throw new IllegalArgumentException("Log file is already binary");
+
+        LogLineParser parser = new LogLineParser();
+
+        /* the header of a binary log file needs all bus names */
+        Map<String, String> aliases = new LinkedHashMap<String, String>();
+        for(String bus : source.getBusses()) {
+            aliases.put(bus, source.getAlias(bus));
+        }
+
+        BufferedReader reader = openText(source);
+        try {
+            String line;
+            while((line = reader.readLine()) != null) {
+                String bus = null;
+                if(parser.parse(line)) {
+                    bus = parser.getBusName();
+                } else if(line.startsWith("EVENT ")) {
+                    TextEvent event = TextEvent.parse(line);
+                    if(event != null)
+                        bus = event.busName;
+                }
+
+                if(bus != null && !aliases.containsKey(bus))
+                    aliases.put(bus, bus);
+            }
+        } finally {
+            reader.close();
+        }
+
+        BinaryLogWriter writer = new BinaryLogWriter(new FileOutputStream(destination),
+                source.getPlatform(), source.getDescription(), aliases);
+        reader = openText(source);
+        try {
+            String line;
+            while((line = reader.readLine()) != null) {
+                if(parser.parse(line)) {
+                    writer.write(parser.getFrame(), parser.getBusName());
+                } else if(line.startsWith("EVENT ")) {
+                    TextEvent event = TextEvent.parse(line);
+                    if(event != null)
+                        writer.writeEvent(event.timestamp, event.busName, event.message);
+                }
+            }
+        } finally {
+            reader.close();
+            writer.close();
+        }
+    }
+
+    /**
+     * Convert a binary log file to an uncompressed text log file.
+     */
+    public static void toText(LogFile source, File destination) throws IOException {
+        if(!source.isBinary())
+            throw new IllegalArgumentException("Log file is not binary");
+
+        BinaryLogReader reader = new BinaryLogReader(source.getFile());
+        Writer out = null;
+        try {
+            out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(destination), "UTF-8"));
+            out.write("PLATFORM " + reader.getPlatform() + "\n");
+            out.write("DESCRIPTION \"" + reader.getDescription() + "\"\n");
+            for(Map.Entry<String, String> entry : reader.getDeviceAliases().entrySet()) {
+                out.write("DEVICE_ALIAS " + entry.getValue() + " " + entry.getKey() + "\n");
+            }
+
+            reader.seek(reader.getDataPosition());
+            while(reader.next()) {
+                if(reader.isEvent()) {
+                    long timestamp = reader.getTimestamp();
+                    StringBuilder sb = new StringBuilder();
+                    sb.append("EVENT (");
+                    sb.append(timestamp / 1000000);
+                    sb.append('.');
+                    String micros = Long.toString(timestamp % 1000000);
+                    for(int i=micros.length();i<6;i++)
+                        sb.append('0');
+                    sb.append(micros);
+                    sb.append(") ");
+                    if(reader.getBusName() != null) {
+                        sb.append(reader.getBusName());
+                        sb.append(' ');
+                    }
+                    sb.append('"');
+                    sb.append(reader.getMessage());
+                    sb.append("\"\n");
+                    out.write(sb.toString());
+                } else {
+                    out.write(reader.getFrame().toLogFileNotation(reader.getBusName()));
+                }
+            }
+        } finally {
+            reader.close();
+            if(out != null)
+                out.close();
+        }
+    }
+
+    private static BufferedReader openText(LogFile logFile) throws IOException {
+        InputStream in = new FileInputStream(logFile.getFile());
+        if(logFile.getCompressed())
+            in = new GZIPInputStream(in);
+
+        return new BufferedReader(new InputStreamReader(in, "UTF-8"));
+    }
+
+    /**
+     * An event line in the text format:
+     * <code>EVENT (sec.usec) [bus] "message"</code>
+     */
+    private static class TextEvent {
+
+        private long timestamp;
+        private String busName;
+        private String message;
+
+        public static TextEvent parse(String line) {
+            int open = line.indexOf('(');
+            int dot = line.indexOf('.', open);
+            int close = line.indexOf(')', open);
+            int quote = line.indexOf('"');
+            int lastQuote = line.lastIndexOf('"');
+
+            if(open == -1 || dot == -1 || close == -1 || dot > close
+                    || quote < close || lastQuote <= quote)
+                return null;
+
+            TextEvent event = new TextEvent();
+            try {
+                String fraction = line.substring(dot + 1, close);
+                long micros = fraction.length() > 0 ? Long.parseLong(fraction) : 0;
+                for(int i=fraction.length();i<6;i++)
+                    micros *= 10;
+                for(int i=fraction.length();i>6;i--)
+                    micros /= 10;
+                event.timestamp = Long.parseLong(line.substring(open + 1, dot)) * 1000000 + micros;
+            } catch(NumberFormatException ex) {
+                return null;
+            }
+
+            String bus = line.substring(close + 1, quote).trim();
+            event.busName = bus.length() > 0 ? bus : null;
+            event.message = line.substring(quote + 1, lastQuote);
+            return event;
+        }
+    }
+}
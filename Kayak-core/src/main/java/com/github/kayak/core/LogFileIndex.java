@@ -0,0 +1,242 @@
+/**
+ * 	This file is part of Kayak.
+ *
+ *	Kayak is free software: you can redistribute it and/or modify
+ *	it under the terms of the GNU Lesser General Public License as published by
+ *	the Free Software Foundation, either version 3 of the License, or
+ *	(at your option) any later version.
+ *
+ *	Kayak is distributed in the hope that it will be useful,
+ *	but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *	GNU General Public License for more details.
+ *
+ *	You should have received a copy of the GNU Lesser General Public License
+ *	along with Kayak.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.kayak.core;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Maps time slots of a log file to positions from which the replay can
+ * be started. Slot i covers the time from i * granularity after the start
+ * of the log file. The index is filled while the log file is read and can
+ * already be used for the slots that were reached.
+ * <p>
+ * The index can be stored in a sidecar file next to the log file. A stored
+ * index is only used if the size and the modification time of the log file
+ * and the granularity did not change.
+ * @author Jan-Niklas Meier <dschanoeh@googlemail.com>
+ */
+public class LogFileIndex {
+
+    private static final Logger logger = Logger.getLogger(LogFileIndex.class.getCanonicalName());
+
+    public static final String EXTENSION = ".idx";
+
+    /** Default granularity in microseconds */
+    public static final long DEFAULT_GRANULARITY = 10000;
+
+    /* Larger log files get a coarser granularity */
+    private static final int MAX_SLOTS = 1 << 20;
+
+    private static final int MAGIC = 0x4B494458; /* KIDX */
+    private static final int VERSION = 1;
+
+    private final long granularity;
+    private final long startTime;
+    private final long startPosition;
+    private final long[] positions;
+    private volatile int filled;
+
+    private LogFileIndex(LogFile logFile, long granularity) {
+        this.startTime = logFile.getStartTime();
+        this.startPosition = logFile.getStartPosition();
+        this.granularity = Math.max(granularity, logFile.getLength() / MAX_SLOTS + 1);
+        this.positions = new long[(int) (logFile.getLength() / this.granularity) + 1];
+    }
+
+    /**
+     * Create an empty index for a log file. It has to be filled with
+     * {@link #build(LogFile)}.
+     * @param granularity Requested granularity in microseconds
+     */
+    public static LogFileIndex create(LogFile logFile, long granularity) {
+        if(granularity <= 0)
+            throw new IllegalArgumentException("Granularity must be positive");
+
+        return new LogFileIndex(logFile, granularity);
+    }
+
+    /**
+     * The sidecar file in which the index of a log file is stored.
+     */
+    public static File getIndexFile(LogFile logFile) {
+        return new File(logFile.getFile().getPath() + EXTENSION);
+    }
+
+    /**
+     * Load the stored index of a log file.
+     * @return the index or null if there is no valid index
+     */
+    public static LogFileIndex load(LogFile logFile, long granularity) {
+        File indexFile = getIndexFile(logFile);
+        if(!indexFile.exists())
+            return null;
+
+        LogFileIndex index = create(logFile, granularity);
+        File file = logFile.getFile();
+
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)));
+
+            if(in.readInt() != MAGIC || in.readInt() != VERSION)
+                return null;
+
+            if(in.readLong() != file.length() || in.readLong() != file.lastModified())
+                return null;
+
+            if(in.readLong() != index.granularity || in.readLong() != index.startTime
+                    || in.readLong() != index.startPosition)
+                return null;
+
+            if(in.readInt() != index.positions.length)
+                return null;
+
+            for(int i=0;i<index.positions.length;i++) {
+                index.positions[i] = in.readLong();
+            }
+            index.filled = index.positions.length;
+            return index;
+        } catch(IOException ex) {
+            logger.log(Level.INFO, "Could not load log file index " + indexFile.getPath(), ex);
+            return null;
+        } finally {
+            try {
+                if(in != null)
+                    in.close();
+            } catch(IOException ex) {
+                logger.log(Level.WARNING, "Could not close log file index", ex);
+            }
+        }
+    }
+
+    /**
+     * Store a complete index in the sidecar file of the log file.
+     */
+    public void store(LogFile logFile) throws IOException {
+        if(!isComplete())
+            throw new IllegalStateException("Index is not complete");
+
+        File file = logFile.getFile();
+        File indexFile = getIndexFile(logFile);
+        File tempFile = new File(indexFile.getPath() + ".tmp");
+
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(file.length());
+            out.writeLong(file.lastModified());
+            out.writeLong(granularity);
+            out.writeLong(startTime);
+            out.writeLong(startPosition);
+            out.writeInt(positions.length);
+            for(int i=0;i<positions.length;i++) {
+                out.writeLong(positions[i]);
+            }
+        } finally {
+            out.close();
+        }
+
+        if(indexFile.exists() && !indexFile.delete()) {
+            tempFile.delete();
+            throw new IOException("Could not replace " + indexFile.getPath());
+        }
+
+        if(!tempFile.renameTo(indexFile)) {
+            tempFile.delete();
+            throw new IOException("Could not rename " + tempFile.getPath());
+        }
+    }
+
+    /**
+     * Fill the index by reading all frames of the log file.
+     */
+    public void build(LogFile logFile) throws IOException {
+        LogFrameSource source = logFile.openFrameSource();
+
+        try {
+            int slot = 0;
+            long slotTime = startTime;
+
+            while(slot < positions.length && source.nextFrame()) {
+                long timestamp = source.getTimestamp();
+
+                /* a frame may be the first one of several slots */
+                while(slot < positions.length && timestamp >= slotTime) {
+                    positions[slot] = source.getResumePosition();
+                    slot++;
+                    slotTime += granularity;
+                    filled = slot;
+                }
+            }
+
+            /* slots after the last frame start at the end */
+            while(slot < positions.length) {
+                positions[slot] = slot > 0 ? positions[slot - 1] : startPosition;
+                slot++;
+            }
+            filled = positions.length;
+        } finally {
+            source.close();
+        }
+    }
+
+    /**
+     * True if all slots were filled.
+     */
+    public boolean isComplete() {
+        return filled == positions.length;
+    }
+
+    /**
+     * Granularity of the index in microseconds.
+     */
+    public long getGranularity() {
+        return granularity;
+    }
+
+    /**
+     * A position from which the frames at a time can be replayed. If the
+     * slot of the time was not reached yet the last known position is
+     * returned.
+     * @param time Time in microseconds relative to the first frame
+     */
+    public long getPosition(long time) {
+        if(time <= 0)
+            return startPosition;
+
+        int slot = (int) Math.min(time / granularity, positions.length - 1);
+        int available = filled;
+        if(slot >= available) {
+            if(available == 0)
+                return startPosition;
+            slot = available - 1;
+        }
+
+        return positions[slot];
+    }
+}
@@ -0,0 +1,55 @@
+/**
+ * 	This file is part of Kayak.
+ *
+ *	Kayak is free software: you can redistribute it and/or modify
+ *	it under the terms of the GNU Lesser General Public License as published by
+ *	the Free Software Foundation, either version 3 of the License, or
+ *	(at your option) any later version.
+ *
+ *	Kayak is distributed in the hope that it will be useful,
+ *	but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *	GNU General Public License for more details.
+ *
+ *	You should have received a copy of the GNU Lesser General Public License
+ *	along with Kayak.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.kayak.core;
+
+import java.io.IOException;
+
+/**
+ * A source of frames from a log file that can be repositioned. Text and
+ * binary log files provide their own implementation.
+ * @author Jan-Niklas Meier <dschanoeh@googlemail.com>
+ */
+interface LogFrameSource {
+
+    /**
+     * Continue reading at a position that was returned by
+     * {@link #getResumePosition()} or at the start position of the log file.
+     */
+    void seek(long position) throws IOException;
+
+    /**
+     * Advance to the next frame.
+     * @return false if the end of the log file was reached
+     */
+    boolean nextFrame() throws IOException;
+
+    /**
+     * A position from which the current frame will be read again after a
+     * {@link #seek(long)}. Frames before the current frame may be read, too.
+     */
+    long getResumePosition();
+
+    /**
+     * Timestamp of the current frame in microseconds.
+     */
+    long getTimestamp();
+
+    Frame.FrameBusNamePair getFrameBusNamePair();
+
+    void close() throws IOException;
+}
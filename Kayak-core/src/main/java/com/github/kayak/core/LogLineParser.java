@@ -0,0 +1,338 @@
+/**
+ * 	This file is part of Kayak.
+ *
+ *	Kayak is free software: you can redistribute it and/or modify
+ *	it under the terms of the GNU Lesser General Public License as published by
+ *	the Free Software Foundation, either version 3 of the License, or
+ *	(at your option) any later version.
+ *
+ *	Kayak is distributed in the hope that it will be useful,
+ *	but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *	GNU General Public License for more details.
+ *
+ *	You should have received a copy of the GNU Lesser General Public License
+ *	along with Kayak.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.kayak.core;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Parses frames in log file notation, e.g.
+ * <code>(1244101432.788973) can1 040#4B0B000000000000</code>. A line is
+ * validated and parsed in a single pass directly from a byte array, a
+ * {@link ByteBuffer} or a String without creating substrings. Bus names are
+ * interned so that all frames of a bus share the same String instance.
+ * <p>
+ * The parser keeps the result of the last successful parse and must not be
+ * shared between threads.
+ * @author Jan-Niklas Meier <dschanoeh@googlemail.com>
+ */
+public class LogLineParser {
+
+    private static final int MAX_BUS_NAME_LENGTH = 16;
+    private static final int MAX_INTERNED_NAMES = 1024;
+
+    /* source of the line that is currently parsed */
+    private byte[] array;
+    private ByteBuffer buffer;
+    private CharSequence chars;
+
+    private long timestamp;
+    private String busName;
+    private int identifier;
+    private boolean extended;
+    private byte[] data;
+
+    /* open addressing table of interned bus names */
+    private byte[][] nameKeys = new byte[16][];
+    private String[] names = new String[16];
+    private int nameCount;
+
+    /**
+     * Parse a line that is stored in a byte array.
+     * @return true if the line is a valid frame
+     */
+    public boolean parse(byte[] line, int offset, int length) {
+        array = line;
+        try {
+            return parse(offset, offset + length);
+        } finally {
+            array = null;
+        }
+    }
+
+    /**
+     * Parse a line that is stored in a buffer. The position of the buffer
+     * is not changed.
+     * @return true if the line is a valid frame
+     */
+    public boolean parse(ByteBuffer line, int offset, int length) {
+        buffer = line;
+        try {
+            return parse(offset, offset + length);
+        } finally {
+            buffer = null;
+        }
+    }
+
+    /**
+     * Parse a line that is available as String.
+     * @return true if the line is a valid frame
+     */
+    public boolean parse(CharSequence line) {
+        chars = line;
+        try {
+            return parse(0, line.length());
+        } finally {
+            chars = null;
+        }
+    }
+
+    /**
+     * Timestamp of the last parsed frame in microseconds.
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public String getBusName() {
+        return busName;
+    }
+
+    public int getIdentifier() {
+        return identifier;
+    }
+
+    public boolean isExtended() {
+        return extended;
+    }
+
+    public byte[] getData() {
+        return data;
+    }
+
+    /**
+     * Creates a new {@link Frame} from the last parsed line.
+     */
+    public Frame getFrame() {
+        return new Frame(identifier, extended, data, timestamp);
+    }
+
+    public Frame.FrameBusNamePair getFrameBusNamePair() {
+        return new Frame.FrameBusNamePair(getFrame(), busName);
+    }
+
+    private int get(int i) {
+        if(array != null)
+            return array[i];
+        else if(buffer != null)
+            return buffer.get(i);
+        else
+            return chars.charAt(i);
+    }
+
+    private static boolean isDigit(int c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isWhitespace(int c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == 0x0B || c == '\f' || c == '\r';
+    }
+
+    private static boolean isAlphanumeric(int c) {
+        return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static int hexValue(int c) {
+        if(c >= '0' && c <= '9')
+            return c - '0';
+        else if(c >= 'a' && c <= 'f')
+            return c - 'a' + 10;
+        else if(c >= 'A' && c <= 'F')
+            return c - 'A' + 10;
+        else
+            return -1;
+    }
+
+    private int skipWhitespace(int i, int end) {
+        while(i < end && isWhitespace(get(i)))
+            i++;
+        return i;
+    }
+
+    private boolean parse(int start, int end) {
+        int i = start;
+
+        /* timestamp */
+        if(i >= end || get(i) != '(')
+            return false;
+        i++;
+
+        long seconds = 0;
+        int digitsStart = i;
+        while(i < end && isDigit(get(i))) {
+            seconds = seconds * 10 + (get(i) - '0');
+            i++;
+        }
+
+        if(i == digitsStart || i >= end || get(i) != '.')
+            return false;
+        i++;
+
+        long micros = 0;
+        for(int k=0;k<6;k++,i++) {
+            if(i >= end || !isDigit(get(i)))
+                return false;
+            micros = micros * 10 + (get(i) - '0');
+        }
+
+        if(i >= end || get(i) != ')')
+            return false;
+        i++;
+
+        /* bus name */
+        int next = skipWhitespace(i, end);
+        if(next == i)
+            return false;
+        i = next;
+
+        int nameStart = i;
+        while(i < end && isAlphanumeric(get(i)))
+            i++;
+
+        int nameLength = i - nameStart;
+        if(nameLength < 1 || nameLength > MAX_BUS_NAME_LENGTH)
+            return false;
+
+        next = skipWhitespace(i, end);
+        if(next == i)
+            return false;
+        i = next;
+
+        /* identifier */
+        int idStart = i;
+        int id = 0;
+        while(i < end) {
+            int value = hexValue(get(i));
+            if(value < 0)
+                break;
+            id = (id << 4) | value;
+            i++;
+        }
+
+        int idLength = i - idStart;
+        if(idLength < 3 || idLength > 8)
+            return false;
+
+        if(i >= end || get(i) != '#')
+            return false;
+        i++;
+
+        /* payload */
+        int payloadLength = end - i;
+        if(payloadLength == 0)
+            return false;
+
+        for(int k=i;k<end;k++) {
+            int c = get(k);
+            if(hexValue(c) < 0 && c != 'r' && c != 'R')
+                return false;
+        }
+
+        /* an odd number of digits is padded with a leading zero */
+        byte[] payload = new byte[(payloadLength + 1) / 2];
+        int nibble = payloadLength & 1;
+        for(;i<end;i++,nibble++) {
+            int value = hexValue(get(i));
+            if(value < 0)
+                value = 0;
+
+            if((nibble & 1) == 0)
+                payload[nibble >> 1] = (byte) (value << 4);
+            else
+                payload[nibble >> 1] |= value;
+        }
+
+        timestamp = seconds * 1000000 + micros;
+        busName = intern(nameStart, nameLength);
+        extended = idLength > 3;
+        identifier = extended ? id & 0x1FFFFFFF : id & 0x7FF;
+        data = payload;
+        return true;
+    }
+
+    private boolean matches(byte[] key, int start, int length) {
+        if(key.length != length)
+            return false;
+
+        for(int k=0;k<length;k++) {
+            if(key[k] != get(start + k))
+                return false;
+        }
+        return true;
+    }
+
+    private String intern(int start, int length) {
+        int hash = 0;
+        for(int k=0;k<length;k++)
+            hash = 31 * hash + get(start + k);
+        hash ^= hash >>> 16;
+
+        int mask = names.length - 1;
+        int slot = hash & mask;
+        while(names[slot] != null) {
+            if(matches(nameKeys[slot], start, length))
+                return names[slot];
+            slot = (slot + 1) & mask;
+        }
+
+        byte[] key = new byte[length];
+        char[] c = new char[length];
+        for(int k=0;k<length;k++) {
+            key[k] = (byte) get(start + k);
+            c[k] = (char) key[k];
+        }
+        String name = new String(c);
+
+        /* do not let a broken file fill the table with garbage */
+        if(nameCount >= MAX_INTERNED_NAMES)
+            return name;
+
+        nameKeys[slot] = key;
+        names[slot] = name;
+        nameCount++;
+
+        if(nameCount * 2 > names.length)
+            grow();
+
+        return name;
+    }
+
+    private void grow() {
+        byte[][] oldKeys = nameKeys;
+        String[] oldNames = names;
+        nameKeys = new byte[oldKeys.length * 2][];
+        names = new String[oldNames.length * 2];
+        int mask = names.length - 1;
+
+        for(int k=0;k<oldNames.length;k++) {
+            if(oldNames[k] == null)
+                continue;
+
+            byte[] key = oldKeys[k];
+            int hash = 0;
+            for(int j=0;j<key.length;j++)
+                hash = 31 * hash + key[j];
+            hash ^= hash >>> 16;
+
+            int slot = hash & mask;
+            while(names[slot] != null)
+                slot = (slot + 1) & mask;
+            nameKeys[slot] = key;
+            names[slot] = oldNames[k];
+        }
+    }
+}
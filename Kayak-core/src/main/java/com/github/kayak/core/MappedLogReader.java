@@ -0,0 +1,236 @@
+/**
+ * 	This file is part of Kayak.
+ *
+ *	Kayak is free software: you can redistribute it and/or modify
+ *	it under the terms of the GNU Lesser General Public License as published by
+ *	the Free Software Foundation, either version 3 of the License, or
+ *	(at your option) any later version.
+ *
+ *	Kayak is distributed in the hope that it will be useful,
+ *	but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *	GNU General Public License for more details.
+ *
+ *	You should have received a copy of the GNU Lesser General Public License
+ *	along with Kayak.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.kayak.core;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Reads the lines of an uncompressed log file through a memory mapping.
+ * Lines are not copied: after {@link #nextLine()} the current line is
+ * described by its offset and length in the mapped buffer and by its
+ * position in the file. The file is mapped in windows so that files larger
+ * than 2 GB can be read. A window is moved whenever a line crosses its end.
+ * <p>
+ * Java can not release a mapping explicitly. It is released when its
+ * buffer is garbage collected, even after the reader was closed. On Windows
+ * a mapped file can not be deleted or replaced until then. Files that may
+ * have been read should therefore be deleted with {@link #delete(File)}.
+ * @author Jan-Niklas Meier <dschanoeh@googlemail.com>
+ */
+public class MappedLogReader {
+
+    private static final int WINDOW_SIZE = 64*1024*1024;
+
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final long size;
+    private final int windowSize;
+
+    private MappedByteBuffer buffer;
+    private long windowBase; /* Position of the mapped window in the file */
+    private int windowLength; /* Number of mapped bytes */
+    private long position; /* Position of the next line in the file */
+
+    private long lineStart = -1;
+    private int lineOffset;
+    private int lineLength;
+
+    public MappedLogReader(File file, long pos) throws FileNotFoundException, IOException {
+        this(file, pos, WINDOW_SIZE);
+    }
+
+    MappedLogReader(File file, long pos, int windowSize) throws FileNotFoundException, IOException {
+        this.file = new RandomAccessFile(file, "r");
+        this.channel = this.file.getChannel();
+        this.size = channel.size();
+        this.windowSize = windowSize;
+        this.position = pos;
+    }
+
+    /**
+     * Closes the file and drops the reference to the mapped buffer. The
+     * mapping itself is released when the buffer is garbage collected.
+     * The buffer must not be used any more.
+     */
+    public void close() throws IOException {
+        buffer = null;
+        lineStart = -1;
+        channel.close();
+        file.close();
+    }
+
+    /**
+     * Deletes a file that may have been read through a mapping. If the file
+     * can not be deleted the garbage collector is asked to release the
+     * mappings of closed readers and the deletion is tried once more.
+     * @return true if the file was deleted
+     */
+    public static boolean delete(File file) {
+        if(file.delete())
+            return true;
+
+        if(!file.exists())
+            return false;
+
+        System.gc();
+        System.runFinalization();
+        return file.delete();
+    }
+
+    /**
+     * Size of the file in bytes.
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Set the position of the next line that will be read. The position
+     * should point to the start of a line.
+     */
+    public void seek(long pos) {
+        position = pos;
+        lineStart = -1;
+    }
+
+    private void map(long pos) throws IOException {
+        long length = Math.min(windowSize, size - pos);
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, pos, length);
+        windowBase = pos;
+        windowLength = (int) length;
+    }
+
+    private int findNewline(int from) {
+        for(int i=from;i<windowLength;i++) {
+            if(buffer.get(i) == (byte) '\n')
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Advance to the next line.
+     * @return false if the end of the file was reached
+     * @throws IOException if a line does not fit into a single window
+     */
+    public boolean nextLine() throws IOException {
+        if(position >= size) {
+            lineStart = -1;
+            return false;
+        }
+
+        if(buffer == null || position < windowBase || position >= windowBase + windowLength)
+            map(position);
+
+        int offset = (int) (position - windowBase);
+        int stop = findNewline(offset);
+
+        /* The line crosses the end of the window. Map a new one at its start */
+        if(stop == -1 && windowBase + windowLength < size) {
+            if(offset > 0) {
+                map(position);
+                offset = 0;
+                stop = findNewline(offset);
+            }
+
+            if(stop == -1 && windowBase + windowLength < size)
+                throw new IOException("Line at position " + position + " is longer than " + windowSize + " bytes");
+        }
+
+        int next;
+        if(stop == -1) { /* last line without a newline */
+            stop = windowLength;
+            next = stop;
+        } else {
+            next = stop + 1;
+        }
+
+        if(stop > offset && buffer.get(stop-1) == (byte) '\r')
+            stop--;
+
+        lineStart = position;
+        lineOffset = offset;
+        lineLength = stop - offset;
+        position = windowBase + next;
+        return true;
+    }
+
+    /**
+     * The buffer that contains the current line. It is only valid until the
+     * next call to {@link #nextLine()}.
+     */
+    public MappedByteBuffer getBuffer() {
+        return buffer;
+    }
+
+    /**
+     * Offset of the current line in the buffer.
+     */
+    public int getLineOffset() {
+        return lineOffset;
+    }
+
+    /**
+     * Length of the current line without the line terminator.
+     */
+    public int getLineLength() {
+        return lineLength;
+    }
+
+    /**
+     * Position of the current line in the file or -1 if there is none.
+     */
+    public long getPositionOfLastLine() {
+        return lineStart;
+    }
+
+    /**
+     * Returns a byte of the current line.
+     */
+    public byte byteAt(int i) {
+        return buffer.get(lineOffset + i);
+    }
+
+    /**
+     * Creates a String from the current line. Only the line itself is
+     * copied.
+     */
+    public String getLine() {
+        char[] chars = new char[lineLength];
+        for(int i=0;i<lineLength;i++) {
+            chars[i] = (char) (buffer.get(lineOffset + i) & 0xFF);
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Reads the next line as String.
+     * @return the line or null at the end of the file
+     */
+    public String readLine() throws IOException {
+        if(!nextLine())
+            return null;
+
+        return getLine();
+    }
+}
@@ -0,0 +1,128 @@
+/**
+ * 	This file is part of Kayak.
+ *
+ *	Kayak is free software: you can redistribute it and/or modify
+ *	it under the terms of the GNU Lesser General Public License as published by
+ *	the Free Software Foundation, either version 3 of the License, or
+ *	(at your option) any later version.
+ *
+ *	Kayak is distributed in the hope that it will be useful,
+ *	but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *	GNU General Public License for more details.
+ *
+ *	You should have received a copy of the GNU Lesser General Public License
+ *	along with Kayak.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.kayak.core;
+
+/**
+ * Packs a classic CAN frame (up to 8 data bytes) into primitive longs so
+ * large numbers of frames can be kept in parallel long arrays without an
+ * object per frame (see {@link PackedFrameBuffer}). A packed frame consists
+ * of three values:
+ * <ul>
+ * <li>header: identifier in bits 0-31, extended flag in bit 32 and the
+ * data length in bits 40-47</li>
+ * <li>payload: data byte n in bits 8*n to 8*n+7</li>
+ * <li>timestamp: unchanged</li>
+ * </ul>
+ * All accessors work directly on the packed values.
+ * @author Jan-Niklas Meier <dschanoeh@googlemail.com>
+ */
+public class PackedFrame {
+
+    public static final int MAX_LENGTH = 8;
+
+    private static final long EXTENDED_FLAG = 1L << 32;
+    private static final int LENGTH_SHIFT = 40;
+
+    private PackedFrame() {
+    }
+
+    /**
+     * Checks if the frame can be packed without losing data.
+     */
+    public static boolean isPackable(Frame frame) {
+        byte[] data = frame.getData();
+        return data != null && data.length <= MAX_LENGTH;
+    }
+
+    public static long header(int identifier, boolean extended, int length) {
+        if(length < 0 || length > MAX_LENGTH)
+            throw new IllegalArgumentException("Invalid length: " + length);
+
+        long header = identifier & 0xFFFFFFFFL;
+        if(extended)
+            header |= EXTENDED_FLAG;
+        return header | ((long) length << LENGTH_SHIFT);
+    }
+
+    public static long header(Frame frame) {
+        byte[] data = frame.getData();
+        return header(frame.getIdentifier(), frame.isExtended(), data == null ? 0 : data.length);
+    }
+
+    public static long payload(byte[] data, int offset, int length) {
+        if(length > MAX_LENGTH)
+            throw new IllegalArgumentException("Invalid length: " + length);
+
+        long payload = 0;
+        for(int i=length-1;i>=0;i--) {
+            payload = (payload << 8) | (data[offset+i] & 0xFF);
+        }
+        return payload;
+    }
+
+    public static long payload(byte[] data) {
+        return payload(data, 0, data.length);
+    }
+
+    public static long payload(Frame frame) {
+        byte[] data = frame.getData();
+        return data == null ? 0 : payload(data, 0, data.length);
+    }
+
+    public static int getIdentifier(long header) {
+        return (int) header;
+    }
+
+    public static boolean isExtended(long header) {
+        return (header & EXTENDED_FLAG) != 0;
+    }
+
+    public static int getLength(long header) {
+        return (int) (header >>> LENGTH_SHIFT) & 0xFF;
+    }
+
+    /**
+     * Returns a single data byte of the payload.
+     */
+    public static byte getByte(long payload, int index) {
+        return (byte) (payload >>> (index << 3));
+    }
+
+    /**
+     * Copies the data bytes into an existing array.
+     * @return the number of copied bytes
+     */
+    public static int copyData(long header, long payload, byte[] dest, int offset) {
+        int length = getLength(header);
+        for(int i=0;i<length;i++) {
+            dest[offset+i] = (byte) payload;
+            payload >>>= 8;
+        }
+        return length;
+    }
+
+    public static byte[] getData(long header, long payload) {
+        byte[] data = new byte[getLength(header)];
+        copyData(header, payload, data, 0);
+        return data;
+    }
+
+    public static Frame toFrame(long header, long payload, long timestamp) {
+        return new Frame(getIdentifier(header), isExtended(header), getData(header, payload), timestamp);
+    }
+}
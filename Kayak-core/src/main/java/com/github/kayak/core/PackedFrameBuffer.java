@@ -0,0 +1,168 @@
+/**
+ * 	This file is part of Kayak.
+ *
+ *	Kayak is free software: you can redistribute it and/or modify
+ *	it under the terms of the GNU Lesser General Public License as published by
+ *	the Free Software Foundation, either version 3 of the License, or
+ *	(at your option) any later version.
+ *
+ *	Kayak is distributed in the hope that it will be useful,
+ *	but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *	GNU General Public License for more details.
+ *
+ *	You should have received a copy of the GNU Lesser General Public License
+ *	along with Kayak.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.kayak.core;
+
+import java.util.Arrays;
+
+/**
+ * A growable list of {@link PackedFrame}s that is backed by three parallel
+ * long arrays. A buffer with a million frames needs 24 MB and three
+ * objects instead of two objects per frame.
+ * @author Jan-Niklas Meier <dschanoeh@googlemail.com>
+ */
+public class PackedFrameBuffer {
+
+    private static final int DEFAULT_CAPACITY = 64;
+
+    private long[] headers;
+    private long[] payloads;
+    private long[] timestamps;
+    private int size = 0;
+
+    public PackedFrameBuffer() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public PackedFrameBuffer(int capacity) {
+        capacity = Math.max(1, capacity);
+        headers = new long[capacity];
+        payloads = new long[capacity];
+        timestamps = new long[capacity];
+    }
+
+    /**
+     * Creates a copy of another buffer that holds the same frames.
+     */
+    public PackedFrameBuffer(PackedFrameBuffer other) {
+        this(other.size);
+        System.arraycopy(other.headers, 0, headers, 0, other.size);
+        System.arraycopy(other.payloads, 0, payloads, 0, other.size);
+        System.arraycopy(other.timestamps, 0, timestamps, 0, other.size);
+        size = other.size;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if(capacity <= headers.length)
+            return;
+
+        int newCapacity = Math.max(capacity, headers.length + (headers.length >> 1));
+        headers = Arrays.copyOf(headers, newCapacity);
+        payloads = Arrays.copyOf(payloads, newCapacity);
+        timestamps = Arrays.copyOf(timestamps, newCapacity);
+    }
+
+    /**
+     * Appends a packed frame.
+     * @return the index of the frame
+     */
+    public int add(long header, long payload, long timestamp) {
+        ensureCapacity(size + 1);
+        headers[size] = header;
+        payloads[size] = payload;
+        timestamps[size] = timestamp;
+        return size++;
+    }
+
+    /**
+     * Packs and appends a frame.
+     * @return the index of the frame
+     * @throws IllegalArgumentException if the frame has more than 8 data bytes
+     */
+    public int add(Frame frame) {
+        if(!PackedFrame.isPackable(frame))
+            throw new IllegalArgumentException("Frame can not be packed");
+
+        return add(PackedFrame.header(frame), PackedFrame.payload(frame), frame.getTimestamp());
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int capacity() {
+        return headers.length;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    private void checkIndex(int index) {
+        if(index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+
+    public long getHeader(int index) {
+        checkIndex(index);
+        return headers[index];
+    }
+
+    public long getPayload(int index) {
+        checkIndex(index);
+        return payloads[index];
+    }
+
+    public long getTimestamp(int index) {
+        checkIndex(index);
+        return timestamps[index];
+    }
+
+    public int getIdentifier(int index) {
+        return PackedFrame.getIdentifier(getHeader(index));
+    }
+
+    public boolean isExtended(int index) {
+        return PackedFrame.isExtended(getHeader(index));
+    }
+
+    public int getLength(int index) {
+        return PackedFrame.getLength(getHeader(index));
+    }
+
+    public byte getByte(int index, int byteIndex) {
+        return PackedFrame.getByte(getPayload(index), byteIndex);
+    }
+
+    /**
+     * Creates a new {@link Frame} from the packed frame at the index.
+     */
+    public Frame getFrame(int index) {
+        checkIndex(index);
+        return PackedFrame.toFrame(headers[index], payloads[index], timestamps[index]);
+    }
+
+    /**
+     * Removes the first frames of the buffer and moves the remaining frames
+     * to the front.
+     * @param count number of frames to remove
+     */
+    public void removeFirst(int count) {
+        if(count < 0 || count > size)
+            throw new IndexOutOfBoundsException("Count: " + count + ", Size: " + size);
+
+        int remaining = size - count;
+        System.arraycopy(headers, count, headers, 0, remaining);
+        System.arraycopy(payloads, count, payloads, 0, remaining);
+        System.arraycopy(timestamps, count, timestamps, 0, remaining);
+        size = remaining;
+    }
+}
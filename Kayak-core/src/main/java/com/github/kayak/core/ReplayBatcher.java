@@ -0,0 +1,77 @@
+/**
+ * 	This file is part of Kayak.
+ *
+ *	Kayak is free software: you can redistribute it and/or modify
+ *	it under the terms of the GNU Lesser General Public License as published by
+ *	the Free Software Foundation, either version 3 of the License, or
+ *	(at your option) any later version.
+ *
+ *	Kayak is distributed in the hope that it will be useful,
+ *	but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *	GNU General Public License for more details.
+ *
+ *	You should have received a copy of the GNU Lesser General Public License
+ *	along with Kayak.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.kayak.core;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects the frames of a log file replay that are due at the same time
+ * and sends them to their {@link Bus} with a single call to
+ * {@link Bus#sendFrames(java.util.Collection)}. The replay has to call
+ * {@link #flush()} before it sleeps, sends an event or stops.
+ * @author Jan-Niklas Meier <dschanoeh@googlemail.com>
+ */
+class ReplayBatcher {
+
+    private static final int MAX_BATCH = 256;
+
+    private final Map<Bus, List<Frame>> pending = new LinkedHashMap<Bus, List<Frame>>();
+    private int size = 0;
+
+    public void add(Bus bus, Frame frame) {
+        List<Frame> frames = pending.get(bus);
+        if(frames == null) {
+            frames = new ArrayList<Frame>();
+            pending.put(bus, frames);
+        }
+
+        frames.add(frame);
+        size++;
+
+        if(size >= MAX_BATCH)
+            flush();
+    }
+
+    public void flush() {
+        if(size == 0)
+            return;
+
+        for(Map.Entry<Bus, List<Frame>> entry : pending.entrySet()) {
+            List<Frame> frames = entry.getValue();
+            if(!frames.isEmpty()) {
+                entry.getKey().sendFrames(frames);
+                frames.clear();
+            }
+        }
+
+        size = 0;
+    }
+
+    /**
+     * Discards all frames that were not sent yet.
+     */
+    public void clear() {
+        for(List<Frame> frames : pending.values()) {
+            frames.clear();
+        }
+        size = 0;
+    }
+}
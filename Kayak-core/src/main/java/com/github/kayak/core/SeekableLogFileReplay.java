@@ -30,7 +30,8 @@ import java.util.logging.Logger;
 
 /**
  * A log file replay that can seek to any position in the log file. This works
- * only with log files that are not compressed.
+ * only with seekable log files (see {@link LogFile#isSeekable()}): text log
+ * files that are not compressed or block compressed and binary log files.
  * @author Jan-Niklas Meier <dschanoeh@googlemail.com>
  */
 public class SeekableLogFileReplay {
@@ -43,14 +44,15 @@ public class SeekableLogFileReplay {
     private long currentTimestamp; /* time of the current frame in the log file */
     private Map<String, Bus> busses = new HashMap<String, Bus>();
     private boolean infiniteReplay;
-    private BufferedLineReader reader;
+    private LogFrameSource source;
 
     private long replayStartTime; /* Timesource time when the replay was started */
     private long in;
     private long out;
-    private long[] index;
-    private boolean indexCreated;
+    private LogFileIndex index;
+    private volatile boolean indexCreated;
     private Thread indexCreationThread;
+    private long seekTarget = -1; /* frames before this time are skipped after a seek */
 
     private List<Command> commands = Collections.synchronizedList(new ArrayList<Command>());
 
@@ -87,40 +89,24 @@ public class SeekableLogFileReplay {
     private Runnable indexCreationRunnable = new Runnable() {
         @Override
         public void run() {
-
-            BufferedLineReader reader = null;
             try {
-                reader = new BufferedLineReader(logFile.getFile(), logFile.getStartPosition());
-
-
-                for(long currentTime=logFile.getStartTime();currentTime<logFile.getStopTime();) {
-                    String line = reader.readLine();
-                    if(line == null)
-                        break;
-
-                    Frame f = Frame.fromLogFileNotation(line).getFrame();
-                    if(f.getTimestamp() >= currentTime) {
-                        int i=(int) ((currentTime-logFile.getStartTime())/1000000);
-                        index[i] = reader.getPositionOfLastLine();
-                        currentTime += 1000000;
-                    }
-                }
+                index.build(logFile);
+                logger.log(Level.INFO, "Index was created (granularity {0} us)", index.getGranularity());
             } catch (FileNotFoundException ex) {
                 logger.log(Level.SEVERE, "File not found!", ex);
             } catch (IOException ex) {
                 logger.log(Level.SEVERE, "IOException while creating index", ex);
-            } finally {
-                try {
-                    reader.close();
-                } catch (IOException ex) {
-                    logger.log(Level.SEVERE, null, ex);
-                }
             }
 
             indexCreated = true;
 
-            logger.log(Level.INFO, "Index was created (size {3}) ({0} {1} {2} ... {4})",
-                    new Object[] {index[0], index[1], index[2], index.length, index[index.length-1]});
+            if(index.isComplete()) {
+                try {
+                    index.store(logFile);
+                } catch (IOException ex) {
+                    logger.log(Level.WARNING, "Could not store log file index", ex);
+                }
+            }
         }
     };
 
@@ -197,18 +183,35 @@ public class SeekableLogFileReplay {
      * @param logFile
      */
     public SeekableLogFileReplay(LogFile logFile) throws FileNotFoundException {
+        this(logFile, LogFileIndex.DEFAULT_GRANULARITY);
+    }
+
+    /**
+     * Create a new {@link LogFileReplay} with a specific {@link LogFile}.
+     * A stored index of the log file is used if it is still valid.
+     * Otherwise the index is created in the background and stored.
+     * @param logFile
+     * @param indexGranularity Granularity of the seek index in microseconds
+     */
+    public SeekableLogFileReplay(LogFile logFile, long indexGranularity) throws FileNotFoundException {
         this.logFile = logFile;
 
         try {
-            reader = new BufferedLineReader(logFile.getFile(), logFile.getStartPosition());
+            source = logFile.openFrameSource();
         } catch (IOException ex) {
             logger.log(Level.SEVERE, null, ex);
         }
-        index = new long[(int) (logFile.getLength()/1000000)+1];
-        indexCreationThread = new Thread(indexCreationRunnable);
-        indexCreationThread.setName("LogFile index creation");
-        indexCreationThread.setPriority(Thread.MIN_PRIORITY);
-        indexCreationThread.start();
+        index = LogFileIndex.load(logFile, indexGranularity);
+        if(index != null) {
+            indexCreated = true;
+            logger.log(Level.INFO, "Loaded stored index");
+        } else {
+            index = LogFileIndex.create(logFile, indexGranularity);
+            indexCreationThread = new Thread(indexCreationRunnable);
+            indexCreationThread.setName("LogFile index creation");
+            indexCreationThread.setPriority(Thread.MIN_PRIORITY);
+            indexCreationThread.start();
+        }
 
         in = logFile.getStartTime();
         out = logFile.getStopTime();
@@ -231,11 +234,8 @@ public class SeekableLogFileReplay {
             return logFile.getStartPosition();
         }
 
-        if(!indexCreated) {
-            return logFile.getStartPosition();
-        }
-
-        long i = index[(int) (time/1000000)];
+        /* the slots that were already indexed can be used before the index is complete */
+        long i = index.getPosition(time);
         logger.log(Level.INFO, "Seek time {0} translates to position {1}",
                 new Object[] { time, i});
         return i;
@@ -255,11 +255,16 @@ public class SeekableLogFileReplay {
 
     private Frame.FrameBusNamePair readNextFrame() {
         try {
-            String line = reader.readLine();
-            if(line != null)
-                return Frame.fromLogFileNotation(line);
-            else
-                return null;
+            while(source.nextFrame()) {
+                /* the index position may be slightly before the seek target */
+                if(seekTarget != -1) {
+                    if(source.getTimestamp() < seekTarget)
+                        continue;
+                    seekTarget = -1;
+                }
+                return source.getFrameBusNamePair();
+            }
+            return null;
         } catch(IOException ex) {
             return null;
         }
@@ -279,16 +284,20 @@ public class SeekableLogFileReplay {
 
         private void seekTo(long time) {
             long pos = findSeekPosition(time);
-            if(pos > 0) {
+            if(pos >= 0) {
                 try {
-                    reader.seek(pos);
+                    source.seek(pos);
+                    seekTarget = logFile.getStartTime() + time;
                 } catch (IOException ex) {
-                    logger.log(Level.SEVERE, "Exception while seeking to beginning", ex);
+                    logger.log(Level.SEVERE, "Exception while seeking", ex);
                 }
                 replayStartTime = timeSource.getTime() - (time/1000);
             }
         }
 
+        /* frames that are due are sent together */
+        private final ReplayBatcher batcher = new ReplayBatcher();
+
         private static final int MODE_PLAY = 0;
         private static final int MODE_PAUSE = 1;
         private static final int MODE_STOP = 2;
@@ -307,14 +316,17 @@ public class SeekableLogFileReplay {
                             if(c != null) {
                                 if(c.getType() == Command.TYPE.STOP) {
                                     logger.log(Level.INFO, "Play->Stop");
+                                    batcher.clear();
                                     mode = MODE_STOP;
                                     break;
                                 } else if(c.getType() == Command.TYPE.PAUSE) {
                                     logger.log(Level.INFO, "Play->Pause");
+                                    batcher.flush();
                                     mode = MODE_PAUSE;
                                     break;
                                 }else if(c.getType() == Command.TYPE.SEEK) {
                                     logger.log(Level.INFO, "Play->Seek");
+                                    batcher.clear();
                                     seekTo(c.getTime());
                                 }
                             }
@@ -325,6 +337,7 @@ public class SeekableLogFileReplay {
                                 Frame f = pair.getFrame();
                                 long timestamp = f.getTimestamp();
                                 if(timestamp > out) { /* End position was reached */
+                                    batcher.flush();
                                     if(infiniteReplay) {
                                         logger.log(Level.INFO, "Reached the end of the log file. Seeking to beginning.");
                                         seekTo(getIn());
@@ -345,15 +358,18 @@ public class SeekableLogFileReplay {
                                     long timeToWait = (timestamp-logFile.getStartTime()) - (timeSource.getTime()-replayStartTime)*1000;
 
                                     try {
-                                        if(timeToWait > 10000)
+                                        if(timeToWait > 10000) {
+                                            batcher.flush();
                                             Thread.sleep(timeToWait / 1000);
+                                        }
                                         currentTimestamp = timestamp;
-                                        bus.sendFrame(f);
+                                        batcher.add(bus, f);
                                     } catch (InterruptedException ex) {
                                         /* Command will be checked in next loop */
                                     }
                                 }
                             } else {
+                                batcher.flush();
                                 if(infiniteReplay) {
                                     logger.log(Level.INFO, "Reached the end of the log file. Seeking to beginning.");
                                     seekTo(getIn());
@@ -17,26 +17,25 @@
  */
 package com.github.kayak.core;
 
-import java.util.concurrent.locks.LockSupport;
-
 /**
  * A send job sends a single CAN frame at a given interval time. If the bus
  * is connected to a remote socketcand the send job is fowarded to SocketCAN
  * for higher timestamp precision.
- * If there is no connection the sending is done locally.
+ * If there is no connection the sending is done locally by a
+ * {@link SendJobScheduler} that serves many send jobs with one thread.
  * Each property change does immediately update the send job.
  * @author Jan-Niklas Meier < dschanoeh@googlemail.com >
  */
 public class SendJob {
 
-    private int id;
-    private byte[] data;
-    private long interval;
-    private Thread thread;
+    private volatile int id;
+    private volatile byte[] data;
+    private volatile long interval;
+    private final SendJobScheduler scheduler;
     private Bus bus;
     private boolean local = false;
     private boolean sending = false;
-    private boolean extended = false;
+    private volatile boolean extended = false;
 
     public byte[] getData() {
         return data;
@@ -106,26 +105,24 @@ public class SendJob {
         }
     }
 
-    private Runnable runnable = new Runnable() {
-
-        @Override
-        public void run() {
-            while(true) {
-                Frame f = new Frame(id, extended, data);
-
-                bus.sendFrame(f);
-                if(Thread.interrupted())
-                    return;
-                LockSupport.parkNanos(interval*1000);
-            }
-        }
-    };
-
     public SendJob(int id, boolean extended, byte[] data, long usec) {
+        this(id, extended, data, usec, SendJobScheduler.getDefault());
+    }
+
+    /**
+     * Creates a send job that uses the given scheduler if the frames
+     * have to be sent locally.
+     */
+    public SendJob(int id, boolean extended, byte[] data, long usec, SendJobScheduler scheduler) {
         this.id = id;
         this.data = data;
         this.interval = usec;
         this.extended = extended;
+        this.scheduler = scheduler;
+    }
+
+    public SendJobScheduler getScheduler() {
+        return scheduler;
     }
 
     public void startSending(Bus bus) {
@@ -151,15 +148,11 @@ public class SendJob {
     }
 
     private void startLocalSending() {
-        thread = new Thread(runnable);
-        thread.start();
+        scheduler.schedule(this, bus);
     }
 
     private void stopLocalSending() throws InterruptedException {
-        if(thread != null && thread.isAlive()) {
-            thread.interrupt();
-            thread.join();
-        }
+        scheduler.cancel(this);
     }
 
     private void startRemoteSending() {
@@ -0,0 +1,247 @@
+/**
+ * 	This file is part of Kayak.
+ *
+ *	Kayak is free software: you can redistribute it and/or modify
+ *	it under the terms of the GNU Lesser General Public License as published by
+ *	the Free Software Foundation, either version 3 of the License, or
+ *	(at your option) any later version.
+ *
+ *	Kayak is distributed in the hope that it will be useful,
+ *	but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *	GNU General Public License for more details.
+ *
+ *	You should have received a copy of the GNU Lesser General Public License
+ *	along with Kayak.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.kayak.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Sends the frames of all local {@link SendJob}s from a single thread. The
+ * jobs are kept in a queue that is ordered by their next deadline. Deadlines
+ * are absolute so the time that is needed to send a frame does not add to
+ * the interval. If the scheduler falls behind, missed periods are skipped
+ * instead of being sent in a burst. Frames of jobs that are due at the same
+ * time are sent to their {@link Bus} with a single call.
+ * @author Jan-Niklas Meier <dschanoeh@googlemail.com>
+ */
+public class SendJobScheduler implements Runnable {
+
+    private static final Logger logger = Logger.getLogger(SendJobScheduler.class.getCanonicalName());
+
+    /* Shortest interval that is scheduled (in nanoseconds) */
+    private static final long MIN_INTERVAL = 100000;
+
+    private static SendJobScheduler defaultScheduler;
+
+    private final PriorityQueue<Entry> queue = new PriorityQueue<Entry>();
+    private final Map<SendJob, Entry> entries = new IdentityHashMap<SendJob, Entry>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final Condition dispatched = lock.newCondition();
+    private boolean dispatching = false;
+    private long sequence = 0;
+    private Thread thread;
+
+    private static class Entry implements Comparable<Entry> {
+
+        private final SendJob job;
+        private final Bus bus;
+        private final long sequence;
+        private long deadline;
+
+        public Entry(SendJob job, Bus bus, long sequence, long deadline) {
+            this.job = job;
+            this.bus = bus;
+            this.sequence = sequence;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public int compareTo(Entry o) {
+            long diff = deadline - o.deadline;
+            if(diff != 0)
+                return diff < 0 ? -1 : 1;
+
+            return sequence < o.sequence ? -1 : (sequence == o.sequence ? 0 : 1);
+        }
+    }
+
+    /**
+     * Returns the scheduler that is shared by all send jobs that were
+     * created without an own scheduler.
+     */
+    public static synchronized SendJobScheduler getDefault() {
+        if(defaultScheduler == null)
+            defaultScheduler = new SendJobScheduler();
+
+        return defaultScheduler;
+    }
+
+    private void ensureRunning() {
+        if(thread == null || !thread.isAlive()) {
+            thread = new Thread(this);
+            thread.setName("Send job scheduler");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    private static long intervalNanos(SendJob job) {
+        return Math.max(TimeUnit.MICROSECONDS.toNanos(job.getInterval()), MIN_INTERVAL);
+    }
+
+    /**
+     * Start sending the frame of a job on a bus. The first frame is sent
+     * immediately. If the job was already scheduled it is rescheduled.
+     */
+    void schedule(SendJob job, Bus bus) {
+        lock.lock();
+        try {
+            Entry old = entries.remove(job);
+            if(old != null)
+                queue.remove(old);
+
+            Entry entry = new Entry(job, bus, sequence++, System.nanoTime());
+            entries.put(job, entry);
+            queue.add(entry);
+
+            ensureRunning();
+            changed.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stop sending the frame of a job. When this method returns no further
+     * frame of the job will be sent unless it is called by the scheduler
+     * thread itself.
+     */
+    void cancel(SendJob job) {
+        lock.lock();
+        try {
+            Entry entry = entries.remove(job);
+            if(entry != null)
+                queue.remove(entry);
+
+            while(dispatching && Thread.currentThread() != thread) {
+                dispatched.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of jobs that are currently scheduled.
+     */
+    public int getJobCount() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void run() {
+        List<Entry> due = new ArrayList<Entry>();
+
+        lock.lock();
+        try {
+            while(true) {
+                Entry first = queue.peek();
+                if(first == null) {
+                    changed.awaitUninterruptibly();
+                    continue;
+                }
+
+                long now = System.nanoTime();
+                long wait = first.deadline - now;
+                if(wait > 0) {
+                    try {
+                        changed.awaitNanos(wait);
+                    } catch (InterruptedException ex) {
+                        /* check the queue again */
+                    }
+                    continue;
+                }
+
+                /* Collect all due jobs and move them to their next deadline */
+                while(!queue.isEmpty() && queue.peek().deadline - now <= 0) {
+                    Entry entry = queue.poll();
+                    due.add(entry);
+
+                    long interval = intervalNanos(entry.job);
+                    long next = entry.deadline + interval;
+                    if(next - now <= 0)
+                        next += ((now - next) / interval + 1) * interval;
+                    entry.deadline = next;
+                    queue.add(entry);
+                }
+
+                dispatching = true;
+                lock.unlock();
+                try {
+                    send(due);
+                } finally {
+                    due.clear();
+                    lock.lock();
+                    dispatching = false;
+                    dispatched.signalAll();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void send(List<Entry> due) {
+        if(due.size() == 1) {
+            Entry entry = due.get(0);
+            send(entry.bus, Collections.singletonList(createFrame(entry.job)));
+            return;
+        }
+
+        Map<Bus, List<Frame>> frames = new IdentityHashMap<Bus, List<Frame>>();
+        for(Entry entry : due) {
+            List<Frame> list = frames.get(entry.bus);
+            if(list == null) {
+                list = new ArrayList<Frame>();
+                frames.put(entry.bus, list);
+            }
+            list.add(createFrame(entry.job));
+        }
+
+        for(Map.Entry<Bus, List<Frame>> entry : frames.entrySet()) {
+            send(entry.getKey(), entry.getValue());
+        }
+    }
+
+    private static Frame createFrame(SendJob job) {
+        return new Frame(job.getId(), job.isExtended(), job.getData());
+    }
+
+    private static void send(Bus bus, List<Frame> frames) {
+        try {
+            bus.sendFrames(frames);
+        } catch (Exception ex) {
+            logger.log(Level.WARNING, "Exception while sending frames of send jobs", ex);
+        }
+    }
+}
@@ -0,0 +1,377 @@
+/**
+ * 	This file is part of Kayak.
+ *
+ *	Kayak is free software: you can redistribute it and/or modify
+ *	it under the terms of the GNU Lesser General Public License as published by
+ *	the Free Software Foundation, either version 3 of the License, or
+ *	(at your option) any later version.
+ *
+ *	Kayak is distributed in the hope that it will be useful,
+ *	but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *	GNU General Public License for more details.
+ *
+ *	You should have received a copy of the GNU Lesser General Public License
+ *	along with Kayak.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.kayak.core;
+
+import com.github.kayak.core.description.ChangeDetector;
+import com.github.kayak.core.description.DecodePlan;
+import com.github.kayak.core.description.DescriptionException;
+import com.github.kayak.core.description.MessageDescription;
+import com.github.kayak.core.description.SignalDescription;
+import com.github.kayak.core.description.SignalSink;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Decodes the signals of all {@link SignalSubscription}s of a {@link Bus}.
+ * The dispatcher subscribes the identifiers of all messages with
+ * subscribed signals and builds a {@link DecodePlan} per message that
+ * contains each subscribed signal once. A frame is decoded once and the
+ * values are handed to all listeners of the signal. Frames are decoded by
+ * the asynchronous delivery thread of the dispatcher's {@link Subscription}.
+ * If any subscription only wants changes the plan remembers the last
+ * payload of its message and only decodes the signals that changed or are
+ * needed by a subscription that wants every frame. The remembered payload
+ * is kept when the plans are rebuilt as long as the signals of the
+ * message stay the same.
+ * @author Jan-Niklas Meier <dschanoeh@googlemail.com>
+ */
+class SignalDispatcher implements FrameBatchListener {
+
+    private static final Logger logger = Logger.getLogger(SignalDispatcher.class.getCanonicalName());
+
+    private static final int DELIVERY_QUEUE_SIZE = 16384;
+
+    private final Bus bus;
+    /* All subscribed signals and their subscriptions. Guarded by this. */
+    private final Map<MessageDescription, Map<SignalDescription, List<SignalSubscription>>> registrations =
+            new LinkedHashMap<MessageDescription, Map<SignalDescription, List<SignalSubscription>>>();
+    private Subscription frames;
+    /* The plans of the last rebuild by message. Guarded by this. */
+    private Map<MessageDescription, Plan> plans = new HashMap<MessageDescription, Plan>();
+    /* Lookup of the plans by identifier. Replaced on every change. */
+    private volatile Tables tables = new Tables();
+
+    private static class Tables {
+        private final IntObjectHashMap<Plan[]> standard = new IntObjectHashMap<Plan[]>();
+        private final IntObjectHashMap<Plan[]> extended = new IntObjectHashMap<Plan[]>();
+
+        public Plan[] get(int id, boolean ext) {
+            return ext ? extended.get(id) : standard.get(id);
+        }
+
+        public void add(Plan plan) {
+            MessageDescription message = plan.plan.getMessageDescription();
+            IntObjectHashMap<Plan[]> map = message.isExtended() ? extended : standard;
+            Plan[] plans = map.get(message.getId());
+
+            if(plans == null) {
+                plans = new Plan[] { plan };
+            } else {
+                Plan[] newPlans = new Plan[plans.length + 1];
+                System.arraycopy(plans, 0, newPlans, 0, plans.length);
+                newPlans[plans.length] = plan;
+                plans = newPlans;
+            }
+
+            map.put(message.getId(), plans);
+        }
+    }
+
+    /**
+     * The decode plan of a message and the subscriptions of each signal in
+     * the plan. Only used by the delivery thread.
+     */
+    private static class Plan implements SignalSink {
+
+        private final DecodePlan plan;
+        private final SignalSubscription[][] subscriptions;
+        /* null if all subscriptions want every frame */
+        private final ChangeDetector changes;
+        /* true if the signal has a subscription that wants every frame */
+        private final boolean[] everyFrame;
+        private final boolean anyEveryFrame;
+        private final boolean[] selected;
+        /* changes only subscriptions that did not receive the current
+         * values yet because they were added to an existing detector */
+        private final boolean[][] pending;
+        private boolean anyPending = false;
+        private Frame frame;
+        private boolean warned = false;
+
+        /**
+         * @param previous the plan of the message before the rebuild or
+         * null. Its change detector is reused if it has the same decode plan.
+         */
+        public Plan(DecodePlan plan, SignalSubscription[][] subscriptions, Plan previous) {
+            this.plan = plan;
+            this.subscriptions = subscriptions;
+
+            everyFrame = new boolean[subscriptions.length];
+            selected = new boolean[subscriptions.length];
+            boolean any = false;
+            boolean changesOnly = false;
+            for(int i=0;i<subscriptions.length;i++) {
+                for(SignalSubscription s : subscriptions[i]) {
+                    if(s.isChangesOnly())
+                        changesOnly = true;
+                    else
+                        everyFrame[i] = true;
+                }
+                any |= everyFrame[i];
+            }
+
+            anyEveryFrame = any;
+
+            if(!changesOnly) {
+                changes = null;
+                pending = null;
+            } else if(previous != null && previous.changes != null && previous.plan == plan) {
+                changes = previous.changes;
+                pending = new boolean[subscriptions.length][];
+                for(int i=0;i<subscriptions.length;i++) {
+                    pending[i] = new boolean[subscriptions[i].length];
+                    for(int j=0;j<subscriptions[i].length;j++) {
+                        if(subscriptions[i][j].isChangesOnly() && previous.isPending(i, subscriptions[i][j])) {
+                            pending[i][j] = true;
+                            anyPending = true;
+                        }
+                    }
+                }
+            } else {
+                changes = new ChangeDetector(plan);
+                pending = null;
+            }
+        }
+
+        /**
+         * True if the subscription did not receive the current value of
+         * the signal from this plan.
+         */
+        private boolean isPending(int index, SignalSubscription subscription) {
+            SignalSubscription[] s = subscriptions[index];
+            for(int i=0;i<s.length;i++) {
+                if(s[i] == subscription)
+                    return pending != null && pending[index][i];
+            }
+            return true;
+        }
+
+        private boolean isPending(int index) {
+            for(boolean p : pending[index]) {
+                if(p)
+                    return true;
+            }
+            return false;
+        }
+
+        public void decode(Frame frame) {
+            this.frame = frame;
+            try {
+                if(changes == null) {
+                    plan.decode(frame.getData(), this);
+                } else {
+                    if(!changes.update(frame.getData()) && !anyEveryFrame && !anyPending)
+                        return;
+
+                    for(int i=0;i<selected.length;i++) {
+                        selected[i] = everyFrame[i] || changes.isChanged(i) || (anyPending && isPending(i));
+                    }
+                    plan.decode(frame.getData(), this, selected);
+                    anyPending = false;
+                }
+            } catch (DescriptionException ex) {
+                /* do not flood the log if a message does not match its description */
+                if(!warned) {
+                    warned = true;
+                    logger.log(Level.WARNING, "Could not decode message " + plan.getMessageDescription().getName(), ex);
+                }
+            } finally {
+                this.frame = null;
+            }
+        }
+
+        @Override
+        public void signalDecoded(int index, long rawValue, double value) {
+            SignalDescription description = plan.getSignalDescription(index);
+            SignalSubscription[] s = subscriptions[index];
+            boolean changed = changes == null || changes.isChanged(index);
+
+            for(int i=0;i<s.length;i++) {
+                if(!changed && s[i].isChangesOnly() && !(anyPending && pending[index][i]))
+                    continue;
+
+                if(anyPending)
+                    pending[index][i] = false;
+
+                try {
+                    s[i].getListener().signalReceived(description, rawValue, value, frame);
+                } catch (Exception ex) {
+                    logger.log(Level.WARNING, "Exception while delivering signal", ex);
+                }
+            }
+        }
+    }
+
+    public SignalDispatcher(Bus bus) {
+        this.bus = bus;
+    }
+
+    public synchronized void add(SignalDescription signal, SignalSubscription subscription) {
+        MessageDescription message = signal.getMessageDescription();
+        Map<SignalDescription, List<SignalSubscription>> signals = registrations.get(message);
+
+        if(signals == null) {
+            signals = new LinkedHashMap<SignalDescription, List<SignalSubscription>>();
+            registrations.put(message, signals);
+
+            if(frames == null) {
+                frames = new Subscription(this, bus);
+                frames.setAsynchronous(DELIVERY_QUEUE_SIZE, Subscription.OverflowPolicy.DROP_OLDEST);
+            }
+            frames.subscribe(message.getId(), message.isExtended());
+        }
+
+        List<SignalSubscription> subscriptions = signals.get(signal);
+        if(subscriptions == null) {
+            subscriptions = new ArrayList<SignalSubscription>();
+            signals.put(signal, subscriptions);
+        }
+
+        if(!subscriptions.contains(subscription))
+            subscriptions.add(subscription);
+
+        rebuild();
+    }
+
+    public void remove(SignalDescription signal, SignalSubscription subscription) {
+        Subscription terminated = null;
+
+        synchronized(this) {
+            MessageDescription message = signal.getMessageDescription();
+            Map<SignalDescription, List<SignalSubscription>> signals = registrations.get(message);
+
+            if(signals == null)
+                return;
+
+            List<SignalSubscription> subscriptions = signals.get(signal);
+            if(subscriptions == null)
+                return;
+
+            subscriptions.remove(subscription);
+            if(subscriptions.isEmpty())
+                signals.remove(signal);
+
+            if(signals.isEmpty()) {
+                registrations.remove(message);
+
+                /* another description may use the same identifier */
+                if(!isIdentifierUsed(message.getId(), message.isExtended()))
+                    frames.unsubscribe(message.getId(), message.isExtended());
+            }
+
+            rebuild();
+
+            if(registrations.isEmpty()) {
+                terminated = frames;
+                frames = null;
+            }
+        }
+
+        /* Terminating waits for the delivery thread. A listener on that
+         * thread may need the lock so it must not be held here. */
+        if(terminated != null)
+            terminated.Terminate();
+    }
+
+    private boolean isIdentifierUsed(int id, boolean extended) {
+        for(MessageDescription m : registrations.keySet()) {
+            if(m.getId() == id && m.isExtended() == extended)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Creates new plans for all messages. Must be called while holding
+     * the lock.
+     */
+    private void rebuild() {
+        Tables newTables = new Tables();
+        Map<MessageDescription, Plan> newPlans = new HashMap<MessageDescription, Plan>();
+
+        for(Map.Entry<MessageDescription, Map<SignalDescription, List<SignalSubscription>>> entry : registrations.entrySet()) {
+            Map<SignalDescription, List<SignalSubscription>> signals = entry.getValue();
+            Plan previous = plans.get(entry.getKey());
+            DecodePlan plan;
+
+            /* keeping the decode plan keeps the payload of the change detector */
+            if(previous != null && hasSignals(previous.plan, signals.keySet()))
+                plan = previous.plan;
+            else
+                plan = new DecodePlan(entry.getKey(), signals.keySet());
+
+            SignalSubscription[][] subscriptions = new SignalSubscription[plan.size()][];
+            for(int i=0;i<plan.size();i++) {
+                List<SignalSubscription> list = signals.get(plan.getSignalDescription(i));
+                subscriptions[i] = list.toArray(new SignalSubscription[list.size()]);
+            }
+
+            Plan newPlan = new Plan(plan, subscriptions, previous);
+            newTables.add(newPlan);
+            newPlans.put(entry.getKey(), newPlan);
+        }
+
+        plans = newPlans;
+        tables = newTables;
+    }
+
+    private static boolean hasSignals(DecodePlan plan, Set<SignalDescription> signals) {
+        if(plan.size() != signals.size())
+            return false;
+
+        for(int i=0;i<plan.size();i++) {
+            if(!signals.contains(plan.getSignalDescription(i)))
+                return false;
+        }
+        return true;
+    }
+
+    @Override
+    public void newFrame(Frame frame) {
+        Plan[] plans = tables.get(frame.getIdentifier(), frame.isExtended());
+
+        if(plans == null)
+            return;
+
+        for(int i=0;i<plans.length;i++) {
+            plans[i].decode(frame);
+        }
+    }
+
+    @Override
+    public void newFrames(FrameBatch batch) {
+        Tables t = tables;
+
+        for(int i=0;i<batch.size();i++) {
+            Frame frame = batch.get(i);
+            Plan[] plans = t.get(frame.getIdentifier(), frame.isExtended());
+
+            if(plans != null) {
+                for(int j=0;j<plans.length;j++) {
+                    plans[j].decode(frame);
+                }
+            }
+        }
+    }
+}
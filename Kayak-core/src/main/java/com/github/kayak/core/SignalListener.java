@@ -0,0 +1,39 @@
+/**
+ * 	This file is part of Kayak.
+ *
+ *	Kayak is free software: you can redistribute it and/or modify
+ *	it under the terms of the GNU Lesser General Public License as published by
+ *	the Free Software Foundation, either version 3 of the License, or
+ *	(at your option) any later version.
+ *
+ *	Kayak is distributed in the hope that it will be useful,
+ *	but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *	GNU General Public License for more details.
+ *
+ *	You should have received a copy of the GNU Lesser General Public License
+ *	along with Kayak.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.kayak.core;
+
+import com.github.kayak.core.description.SignalDescription;
+import java.util.EventListener;
+
+/**
+ * A SignalListener receives decoded signal values through a
+ * {@link SignalSubscription}. Each frame is decoded once for all listeners
+ * of a bus.
+ * @author Jan-Niklas Meier <dschanoeh@googlemail.com>
+ */
+public interface SignalListener extends EventListener {
+
+    /**
+     * Called for every subscribed signal that was decoded from a frame.
+     * @param description the decoded signal
+     * @param rawValue the extracted raw value
+     * @param value the value after applying slope and intercept
+     * @param frame the frame the signal was decoded from
+     */
+    public void signalReceived(SignalDescription description, long rawValue, double value, Frame frame);
+}
@@ -0,0 +1,106 @@
+/**
+ * 	This file is part of Kayak.
+ *
+ *	Kayak is free software: you can redistribute it and/or modify
+ *	it under the terms of the GNU Lesser General Public License as published by
+ *	the Free Software Foundation, either version 3 of the License, or
+ *	(at your option) any later version.
+ *
+ *	Kayak is distributed in the hope that it will be useful,
+ *	but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *	GNU General Public License for more details.
+ *
+ *	You should have received a copy of the GNU Lesser General Public License
+ *	along with Kayak.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.kayak.core;
+
+import com.github.kayak.core.description.SignalDescription;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * A SignalSubscription connects a {@link SignalListener} to the signals of
+ * a {@link Bus}. The bus decodes each frame once and only the signals that
+ * are subscribed by any subscription. The values are handed to all
+ * listeners that subscribed the signal. Decoding and delivery happen in a
+ * thread of the bus and not in the thread that received the frame.
+ * A subscription may ask to be notified only if a signal changed. The bus
+ * then compares each frame with the previous frame of the message and
+ * skips signals whose bits are unchanged.
+ * @author Jan-Niklas Meier <dschanoeh@googlemail.com>
+ */
+public class SignalSubscription {
+
+    private final SignalListener listener;
+    private final Bus bus;
+    private final boolean changesOnly;
+    private final Set<SignalDescription> signals = new HashSet<SignalDescription>();
+
+    public SignalSubscription(SignalListener listener, Bus bus) {
+        this(listener, bus, false);
+    }
+
+    /**
+     * @param changesOnly if true the listener is only notified if the bits
+     * of a signal differ from the previous frame of its message
+     */
+    public SignalSubscription(SignalListener listener, Bus bus, boolean changesOnly) {
+        this.listener = listener;
+        this.bus = bus;
+        this.changesOnly = changesOnly;
+    }
+
+    public boolean isChangesOnly() {
+        return changesOnly;
+    }
+
+    public SignalListener getListener() {
+        return listener;
+    }
+
+    public Bus getBus() {
+        return bus;
+    }
+
+    /**
+     * Subscribe a signal. The signal must belong to a
+     * {@link com.github.kayak.core.description.MessageDescription}.
+     */
+    public void subscribe(SignalDescription signal) {
+        if(signal.getMessageDescription() == null)
+            throw new IllegalArgumentException("Signal does not belong to a message");
+
+        synchronized(signals) {
+            if(signals.add(signal))
+                bus.getSignalDispatcher().add(signal, this);
+        }
+    }
+
+    public void unsubscribe(SignalDescription signal) {
+        synchronized(signals) {
+            if(signals.remove(signal))
+                bus.getSignalDispatcher().remove(signal, this);
+        }
+    }
+
+    public Set<SignalDescription> getSignals() {
+        synchronized(signals) {
+            return new HashSet<SignalDescription>(signals);
+        }
+    }
+
+    /**
+     * Unsubscribes all signals.
+     */
+    public void Terminate() {
+        synchronized(signals) {
+            for(SignalDescription signal : signals) {
+                bus.getSignalDispatcher().remove(signal, this);
+            }
+            signals.clear();
+        }
+    }
+}
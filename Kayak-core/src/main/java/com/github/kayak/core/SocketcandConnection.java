@@ -17,10 +17,15 @@
  */
 package com.github.kayak.core;
 
-import java.io.BufferedReader;
+import java.io.EOFException;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.net.InetSocketAddress;
 import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.Charset;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -28,6 +33,10 @@ import java.util.logging.Logger;
  * This abstract class provides some common methods that are necessary for
  * socketcand connections. Both {@link BCMConnection} and {@link RAWConnection}
  * extend this class.
+ * The connection uses a non-blocking {@link SocketChannel}. The handshake is
+ * done in the thread that opens the connection. Afterwards the channel is
+ * handed to the {@link SocketcandReactor} that reads incoming elements and
+ * writes queued output as soon as the channel is ready.
  * @author Jan-Niklas Meier <dschanoeh@googlemail.com>
  *
  */
@@ -35,6 +44,9 @@ public abstract class SocketcandConnection {
 
     private static final int BUFFER_SIZE = 4096;
     private static final int ELEMENT_SIZE = 512;
+    private static final int HANDSHAKE_TIMEOUT = 1000;
+
+    protected static final Charset ASCII = Charset.forName("US-ASCII");
 
     private static final Logger logger = Logger.getLogger(SocketcandConnection.class.getCanonicalName());
 
@@ -42,8 +54,18 @@ public abstract class SocketcandConnection {
     protected int port;
     protected String host;
     private FrameListener receiver;
-    private BufferedReader reader;
-    private final char[] elementBuffer = new char[ELEMENT_SIZE];
+    private volatile ConnectionListener connectionListener;
+    private SocketChannel channel;
+    private SelectionKey selectionKey;
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final CommandBuffer commands = new CommandBuffer(BUFFER_SIZE);
+    private ByteBuffer outgoing = ByteBuffer.allocate(BUFFER_SIZE);
+    private boolean flushScheduled = false;
+    private volatile boolean connected = false;
+    private int elementStart;
+    private int elementLength;
+    /* Frames of the current read. Only used by the reactor thread. */
+    private final FrameBatch batch = new FrameBatch();
 
     public FrameListener getListener() {
         return receiver;
@@ -53,6 +75,17 @@ public abstract class SocketcandConnection {
         this.receiver = receiver;
     }
 
+    public ConnectionListener getConnectionListener() {
+        return connectionListener;
+    }
+
+    /**
+     * Sets the listener that is informed if the connection is lost.
+     */
+    public void setConnectionListener(ConnectionListener connectionListener) {
+        this.connectionListener = connectionListener;
+    }
+
     public String getBusName() {
         return busName;
     }
@@ -65,53 +98,376 @@ public abstract class SocketcandConnection {
         return port;
     }
 
-    protected void setInput(InputStreamReader stream) {
-        reader = new BufferedReader(stream, BUFFER_SIZE);
+    public Boolean isConnected() {
+        return connected;
+    }
+
+    SelectionKey getSelectionKey() {
+        return selectionKey;
+    }
+
+    void setSelectionKey(SelectionKey key) {
+        this.selectionKey = key;
+    }
+
+    boolean hasPendingOutput() {
+        synchronized(commands) {
+            return !commands.isEmpty() || outgoing.hasRemaining();
+        }
     }
 
     /**
-     * This method reads data from an {@link InputStreamReader} and tries to
-     * extract elements that are enclosed by '<' and '>'. The Reader must be set
-     * via setInput() before calling getElement().
-     * A buffer is used to
-     * construct elements that need multiple reads. Whitespace between the
-     * elements is ignored.
-     * The method blocks until an element can be returned.
-     * @param in the InputStreamReader from which should be read
-     * @return the first element read
-     * @throws IOException
+     * Opens the connection, performs the handshake and registers the
+     * channel with the {@link SocketcandReactor}.
      */
-    protected String getElement() throws IOException, InterruptedException, SocketTimeoutException {
-        int pos = 0;
-        boolean inElement = false;
+    public void open() {
+        try {
+            channel = SocketChannel.open();
+            channel.connect(new InetSocketAddress(host, port));
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            readBuffer.clear();
+            synchronized(commands) {
+                commands.clear();
+                outgoing.clear();
+                outgoing.flip();
+                flushScheduled = false;
+            }
 
-        while (true) {
-            char c = (char) reader.read();
+            if(!handshake()) {
+                channel.close();
+                return;
+            }
+        } catch (Exception e) {
+            logger.log(Level.SEVERE, "IOException while creating the socket.", e);
+            try {
+                if(channel != null)
+                    channel.close();
+            } catch(IOException ex) {
+            }
+            return;
+        }
 
-            /* Find opening < */
-            if (!inElement) {
-                if (c == '<') {
-                    inElement = true;
-                    elementBuffer[pos] = c;
-                    pos++;
+        SocketcandReactor reactor = SocketcandReactor.getDefault();
+        if(reactor == null) {
+            logger.log(Level.SEVERE, "No reactor available for connection.");
+            return;
+        }
+
+        connected = true;
+        reactor.register(this, channel);
+    }
+
+    public void close() {
+        connected = false;
+
+        SelectionKey key = selectionKey;
+        if(key != null)
+            key.cancel();
+        selectionKey = null;
+
+        try {
+            if(channel != null)
+                channel.close();
+        } catch (IOException e) {
+        }
+
+        synchronized(commands) {
+            commands.clear();
+            flushScheduled = false;
+        }
+    }
+
+    /**
+     * Called by the reactor if the host closed the connection or an error
+     * occurred. Closes the connection and informs the listener.
+     */
+    void connectionLost() {
+        close();
+
+        ConnectionListener listener = connectionListener;
+        if(listener != null) {
+            try {
+                listener.connectionLost(this);
+            } catch (Exception ex) {
+                logger.log(Level.WARNING, "Exception while handling lost connection", ex);
+            }
+        }
+    }
+
+    /**
+     * Brings the socketcand into the mode of the connection. Called in the
+     * thread that opens the connection. Use {@link #handshakeElement()} and
+     * {@link #handshakeWrite(java.lang.String)} to communicate.
+     * @return true if the handshake was successful
+     */
+    protected abstract boolean handshake() throws IOException;
+
+    /**
+     * Opens the bus of this connection. The first part of every handshake.
+     */
+    protected boolean openBus() throws IOException {
+        String ret = handshakeElement();
+        if (!ret.equals("< hi >")) {
+            logger.log(Level.SEVERE, "Did not receive greeting from host.");
+            return false;
+        }
+
+        handshakeWrite("< open " + busName + " >");
+
+        ret = handshakeElement();
+        if (!ret.equals("< ok >")) {
+            logger.log(Level.SEVERE, "Could not open bus");
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Reads the next element during the handshake. Waits at most one second
+     * for the element to arrive.
+     */
+    protected String handshakeElement() throws IOException {
+        String element = nextElement();
+        if(element != null)
+            return element;
+
+        Selector selector = Selector.open();
+        try {
+            channel.register(selector, SelectionKey.OP_READ);
+            long deadline = System.currentTimeMillis() + HANDSHAKE_TIMEOUT;
+
+            while(true) {
+                long remaining = deadline - System.currentTimeMillis();
+                if(remaining <= 0 || selector.select(remaining) == 0)
+                    throw new SocketTimeoutException("Timeout during handshake");
+                selector.selectedKeys().clear();
+
+                if(channel.read(readBuffer) == -1)
+                    throw new EOFException("Connection closed by host");
+
+                element = nextElement();
+                if(element != null)
+                    return element;
+            }
+        } finally {
+            selector.close();
+        }
+    }
+
+    /**
+     * Writes a string during the handshake.
+     */
+    protected void handshakeWrite(String s) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(s.getBytes(ASCII));
+        while(buffer.hasRemaining()) {
+            if(channel.write(buffer) == 0)
+                Thread.yield();
+        }
+    }
+
+    /**
+     * Returns the buffer in which commands are collected. Callers must
+     * synchronize on the buffer while appending and call {@link #flush()}
+     * afterwards.
+     */
+    protected CommandBuffer getCommandBuffer() {
+        return commands;
+    }
+
+    /**
+     * Schedules all collected commands to be written by the reactor thread.
+     * Commands that are added before the reactor writes are coalesced
+     * into the same write.
+     */
+    protected void flush() {
+        synchronized(commands) {
+            if(!connected) {
+                if(!commands.isEmpty())
+                    logger.log(Level.WARNING, "Tried to send data while connection was not opened.");
+                commands.clear();
+                return;
+            }
+
+            if(flushScheduled || commands.isEmpty())
+                return;
+
+            flushScheduled = true;
+        }
+
+        SocketcandReactor.getDefault().requestWrite(this);
+    }
+
+    /**
+     * Queues a single command and flushes.
+     */
+    protected void send(String s) {
+        synchronized(commands) {
+            commands.append(s);
+        }
+        flush();
+    }
+
+    /**
+     * Called by the reactor if the channel is readable. Reads all available
+     * data and hands every complete element to
+     * {@link #elementReceived(byte[], int, int)} without copying it. The
+     * frames of one read are delivered to the listener as a single
+     * {@link FrameBatch}.
+     */
+    void readReady() throws IOException {
+        int read = channel.read(readBuffer);
+
+        if(read == -1)
+            throw new EOFException("Connection closed by host");
+
+        readBuffer.flip();
+        try {
+            byte[] data = readBuffer.array();
+            int offset = readBuffer.arrayOffset();
+            while(findElement()) {
+                elementReceived(data, offset + elementStart, elementLength);
+            }
+        } finally {
+            readBuffer.compact();
+        }
+
+        deliverBatch();
+    }
+
+    private void deliverBatch() {
+        if(batch.isEmpty())
+            return;
+
+        try {
+            FrameListener listener = getListener();
+            if (listener != null) {
+                batch.deliverTo(listener);
+            }
+        } catch (Exception ex) {
+            logger.log(Level.WARNING, "Could not properly deliver CAN frames", ex);
+        } finally {
+            batch.clear();
+        }
+    }
+
+    /**
+     * Called by the reactor if the channel is writable. Everything that was
+     * collected since the last write is written at once.
+     * @return true if all pending output was written
+     */
+    boolean writeReady() throws IOException {
+        while(true) {
+            if(!outgoing.hasRemaining()) {
+                synchronized(commands) {
+                    if(commands.isEmpty()) {
+                        flushScheduled = false;
+                        return true;
+                    }
+                    outgoing = commands.drainTo(outgoing);
                 }
-            } else {
-                if(pos >= ELEMENT_SIZE-1) { /* Handle large elements */
-                    logger.log(Level.WARNING, "Found frame that is too large. Ignoring...");
-                    pos = 0;
-                    inElement = false;
-
-                } else if (c == '>') { /* Find closing > */
-                    elementBuffer[pos] = c;
-                    pos++;
-                    break;
-                } else { /* Element content */
-                    elementBuffer[pos] = c;
-                    pos++;
+            }
+
+            channel.write(outgoing);
+            if(outgoing.hasRemaining())
+                return false;
+        }
+    }
+
+    /**
+     * Reads the next complete element from the buffer during the handshake.
+     * @return the element or null if no complete element was received yet
+     */
+    private String nextElement() {
+        readBuffer.flip();
+
+        try {
+            if(!findElement())
+                return null;
+
+            return new String(readBuffer.array(), readBuffer.arrayOffset() + elementStart, elementLength, ASCII);
+        } finally {
+            readBuffer.compact();
+        }
+    }
+
+    /**
+     * This method tries to find an element that is enclosed by '<' and '>'
+     * in the flipped read buffer. If an element is found its position is
+     * stored in elementStart and elementLength and the buffer is positioned
+     * behind it. Incomplete elements are kept in the buffer until more data
+     * arrives. Whitespace between the elements is ignored and elements that
+     * are too large are dropped.
+     * @return true if a complete element was found
+     */
+    private boolean findElement() {
+        while(true) {
+            int limit = readBuffer.limit();
+            int start = readBuffer.position();
+
+            /* Find opening < */
+            while(start < limit && readBuffer.get(start) != '<')
+                start++;
+            readBuffer.position(start);
+
+            if(start == limit)
+                return false;
+
+            /* Find closing > */
+            int end = start + 1;
+            while(end < limit && end - start < ELEMENT_SIZE && readBuffer.get(end) != '>')
+                end++;
+
+            if(end - start >= ELEMENT_SIZE) { /* Handle large elements */
+                logger.log(Level.WARNING, "Found frame that is too large. Ignoring...");
+                readBuffer.position(end);
+                continue;
+            }
+
+            if(end == limit)
+                return false;
+
+            elementStart = start;
+            elementLength = end - start + 1;
+            readBuffer.position(end + 1);
+            return true;
+        }
+    }
+
+    /**
+     * Called for every element that is received after the handshake. Frame
+     * elements are decoded by the {@link SocketcandParser} and collected for
+     * delivery to the listener. All other elements are converted to a String
+     * and passed to {@link #elementReceived(java.lang.String)}.
+     * @param data buffer that contains the element
+     * @param offset index of the opening '<'
+     * @param length length of the element including '<' and '>'
+     */
+    protected void elementReceived(byte[] data, int offset, int length) {
+        if(SocketcandParser.isFrame(data, offset, length)) {
+            try {
+                Frame f = SocketcandParser.parseFrame(data, offset, length);
+                if (f != null) {
+                    batch.add(f);
                 }
+            } catch (Exception ex) {
+                logger.log(Level.WARNING, "Could not properly parse CAN frame", ex);
             }
+        } else {
+            elementReceived(new String(data, offset, length, ASCII));
         }
+    }
 
-        return String.valueOf(elementBuffer, 0, pos);
+    /**
+     * Called for every element that is not a frame. The default
+     * implementation logs errors.
+     */
+    protected void elementReceived(String element) {
+        String[] fields = element.split("\\s");
+
+        if (fields.length > 1 && fields[1].equals("error")) {
+            logger.log(Level.WARNING, "Received error from socketcand: {0}", element);
+        }
     }
 }
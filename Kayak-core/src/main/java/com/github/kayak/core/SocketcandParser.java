@@ -0,0 +1,159 @@
+/**
+ * 	This file is part of Kayak.
+ *
+ *	Kayak is free software: you can redistribute it and/or modify
+ *	it under the terms of the GNU Lesser General Public License as published by
+ *	the Free Software Foundation, either version 3 of the License, or
+ *	(at your option) any later version.
+ *
+ *	Kayak is distributed in the hope that it will be useful,
+ *	but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *	GNU General Public License for more details.
+ *
+ *	You should have received a copy of the GNU Lesser General Public License
+ *	along with Kayak.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.kayak.core;
+
+/**
+ * Parses socketcand frame elements directly from the received bytes. An
+ * element has the form {@code < frame id sec.usec b0 b1 ... >}. Identifier,
+ * timestamp and payload are decoded in a single pass without intermediate
+ * Strings. The only allocations are the {@link Frame} and its data array.
+ * The parser is shared by {@link RAWConnection} and {@link BCMConnection}.
+ * @author Jan-Niklas Meier <dschanoeh@googlemail.com>
+ */
+public class SocketcandParser {
+
+    private static final byte[] FRAME = new byte[] { 'f', 'r', 'a', 'm', 'e' };
+
+    private SocketcandParser() {
+    }
+
+    /**
+     * Checks if the element in the given range is a frame element.
+     * @param data the received bytes
+     * @param offset index of the opening '<'
+     * @param length length of the element including '<' and '>'
+     */
+    public static boolean isFrame(byte[] data, int offset, int length) {
+        int end = offset + length;
+        int pos = skipWhitespace(data, offset + 1, end);
+
+        if(end - pos < FRAME.length + 1)
+            return false;
+
+        for(int i=0;i<FRAME.length;i++) {
+            if(data[pos+i] != FRAME[i])
+                return false;
+        }
+
+        return isWhitespace(data[pos + FRAME.length]);
+    }
+
+    /**
+     * Parses a frame element. Identifiers with more than three digits are
+     * treated as extended identifiers.
+     * @param data the received bytes
+     * @param offset index of the opening '<'
+     * @param length length of the element including '<' and '>'
+     * @return the frame or null if the element is not a frame element
+     * @throws IllegalArgumentException if the element is malformed
+     */
+    public static Frame parseFrame(byte[] data, int offset, int length) {
+        if(!isFrame(data, offset, length))
+            return null;
+
+        int end = offset + length;
+        if(data[end-1] != '>')
+            throw new IllegalArgumentException("Element is not terminated");
+        end--;
+
+        int pos = skipWhitespace(data, offset + 1, end) + FRAME.length;
+
+        /* Identifier */
+        pos = skipWhitespace(data, pos, end);
+        int identifier = 0;
+        int identifierDigits = 0;
+        for(;pos<end && !isWhitespace(data[pos]);pos++) {
+            identifier = (identifier << 4) | hexValue(data[pos]);
+            identifierDigits++;
+        }
+        if(identifierDigits == 0)
+            throw new IllegalArgumentException("Missing identifier");
+
+        /* Timestamp */
+        pos = skipWhitespace(data, pos, end);
+        long seconds = 0;
+        long micros = 0;
+        int digits = 0;
+        for(;pos<end && data[pos] != '.';pos++) {
+            seconds = seconds * 10 + decimalValue(data[pos]);
+            digits++;
+        }
+        if(digits == 0 || pos == end)
+            throw new IllegalArgumentException("Malformed timestamp");
+        pos++;
+        digits = 0;
+        for(;pos<end && !isWhitespace(data[pos]);pos++) {
+            micros = micros * 10 + decimalValue(data[pos]);
+            digits++;
+        }
+        if(digits == 0)
+            throw new IllegalArgumentException("Malformed timestamp");
+
+        /* Count the payload nibbles so the array can be sized exactly */
+        int nibbles = 0;
+        for(int i=pos;i<end;i++) {
+            if(!isWhitespace(data[i]))
+                nibbles++;
+        }
+
+        /* An odd number of nibbles is padded with a leading zero */
+        byte[] payload = new byte[(nibbles + 1) / 2];
+        int nibble = (nibbles & 1);
+        for(;pos<end;pos++) {
+            byte c = data[pos];
+            if(isWhitespace(c))
+                continue;
+
+            int value = hexValue(c);
+            if((nibble & 1) == 0) {
+                payload[nibble >> 1] = (byte) (value << 4);
+            } else {
+                payload[nibble >> 1] |= (byte) value;
+            }
+            nibble++;
+        }
+
+        return new Frame(identifier, identifierDigits > 3, payload, 1000000 * seconds + micros);
+    }
+
+    private static int skipWhitespace(byte[] data, int pos, int end) {
+        while(pos < end && isWhitespace(data[pos]))
+            pos++;
+        return pos;
+    }
+
+    private static boolean isWhitespace(byte c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r';
+    }
+
+    private static int hexValue(byte c) {
+        if(c >= '0' && c <= '9')
+            return c - '0';
+        if(c >= 'a' && c <= 'f')
+            return c - 'a' + 10;
+        if(c >= 'A' && c <= 'F')
+            return c - 'A' + 10;
+        throw new IllegalArgumentException("Invalid hex digit: " + (char) c);
+    }
+
+    private static int decimalValue(byte c) {
+        if(c >= '0' && c <= '9')
+            return c - '0';
+        throw new IllegalArgumentException("Invalid digit: " + (char) c);
+    }
+}
@@ -0,0 +1,178 @@
+/**
+ * 	This file is part of Kayak.
+ *
+ *	Kayak is free software: you can redistribute it and/or modify
+ *	it under the terms of the GNU Lesser General Public License as published by
+ *	the Free Software Foundation, either version 3 of the License, or
+ *	(at your option) any later version.
+ *
+ *	Kayak is distributed in the hope that it will be useful,
+ *	but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *	GNU General Public License for more details.
+ *
+ *	You should have received a copy of the GNU Lesser General Public License
+ *	along with Kayak.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.kayak.core;
+
+import java.io.IOException;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The SocketcandReactor drives the I/O of all {@link SocketcandConnection}s
+ * with a single {@link Selector}. Connections register their non-blocking
+ * channel after the handshake and are called back as soon as data arrives
+ * or pending output can be written. One reactor thread serves the
+ * connections of all {@link Bus}ses.
+ * @author Jan-Niklas Meier <dschanoeh@googlemail.com>
+ */
+public class SocketcandReactor implements Runnable {
+
+    private static final Logger logger = Logger.getLogger(SocketcandReactor.class.getCanonicalName());
+
+    private static SocketcandReactor defaultReactor;
+
+    private final Selector selector;
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<Runnable>();
+    private Thread thread;
+
+    /**
+     * Returns the reactor that is shared by all connections. The reactor
+     * thread is started on first use.
+     */
+    public static synchronized SocketcandReactor getDefault() {
+        if(defaultReactor == null) {
+            try {
+                defaultReactor = new SocketcandReactor();
+            } catch (IOException ex) {
+                logger.log(Level.SEVERE, "Could not open selector", ex);
+                return null;
+            }
+        }
+
+        return defaultReactor;
+    }
+
+    public SocketcandReactor() throws IOException {
+        selector = Selector.open();
+    }
+
+    private synchronized void ensureRunning() {
+        if(thread == null || !thread.isAlive()) {
+            thread = new Thread(this);
+            thread.setName("Socketcand reactor");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /**
+     * Queue a task that will be executed by the reactor thread before
+     * the next select.
+     */
+    private void execute(Runnable task) {
+        tasks.add(task);
+        ensureRunning();
+        selector.wakeup();
+    }
+
+    /**
+     * Register a connected, non-blocking channel. From now on the
+     * connection is informed about readable data.
+     */
+    void register(final SocketcandConnection connection, final SocketChannel channel) {
+        execute(new Runnable() {
+
+            @Override
+            public void run() {
+                if(!channel.isOpen())
+                    return;
+
+                try {
+                    SelectionKey key = channel.register(selector, SelectionKey.OP_READ, connection);
+                    connection.setSelectionKey(key);
+                    /* Output may have been queued before registration */
+                    if(connection.hasPendingOutput())
+                        key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+                } catch (ClosedChannelException ex) {
+                    logger.log(Level.WARNING, "Tried to register a closed channel", ex);
+                }
+            }
+        });
+    }
+
+    /**
+     * Inform the reactor that the connection has output that should be
+     * written as soon as the channel is writable.
+     */
+    void requestWrite(final SocketcandConnection connection) {
+        execute(new Runnable() {
+
+            @Override
+            public void run() {
+                SelectionKey key = connection.getSelectionKey();
+                if(key != null && key.isValid())
+                    key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+            }
+        });
+    }
+
+    @Override
+    public void run() {
+        while(true) {
+            try {
+                selector.select();
+            } catch (IOException ex) {
+                logger.log(Level.SEVERE, "IOException in select. Stopping reactor.", ex);
+                return;
+            }
+
+            Runnable task;
+            while((task = tasks.poll()) != null) {
+                try {
+                    task.run();
+                } catch (Exception ex) {
+                    logger.log(Level.WARNING, "Exception in reactor task", ex);
+                }
+            }
+
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while(keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+
+                SocketcandConnection connection = (SocketcandConnection) key.attachment();
+
+                try {
+                    if(key.isReadable())
+                        connection.readReady();
+
+                    if(key.isValid() && key.isWritable()) {
+                        if(connection.writeReady())
+                            key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+                    }
+                } catch (CancelledKeyException ex) {
+                    /* connection was closed by another thread */
+                } catch (IOException ex) {
+                    if(connection.isConnected()) {
+                        logger.log(Level.WARNING, "IOException on socketcand connection. Closing.", ex);
+                        connection.connectionLost();
+                    }
+                } catch (Exception ex) {
+                    logger.log(Level.WARNING, "Exception while handling socketcand connection", ex);
+                }
+            }
+        }
+    }
+}
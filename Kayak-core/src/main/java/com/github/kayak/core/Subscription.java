@@ -1,190 +1,280 @@
-/**
- * 	This file is part of Kayak.
- *
- *	Kayak is free software: you can redistribute it and/or modify
- *	it under the terms of the GNU Lesser General Public License as published by
- *	the Free Software Foundation, either version 3 of the License, or
- *	(at your option) any later version.
- *
- *	Kayak is distributed in the hope that it will be useful,
- *	but WITHOUT ANY WARRANTY; without even the implied warranty of
- *	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
- *	GNU General Public License for more details.
- *
- *	You should have received a copy of the GNU Lesser General Public License
- *	along with Kayak.  If not, see <http://www.gnu.org/licenses/>.
- *
- */
-package com.github.kayak.core;
-
-import java.util.Collections;
-import java.util.HashSet;
-import java.util.Set;
-import java.util.logging.Level;
-import java.util.logging.Logger;
-
-/**
- * A Subscription describes the relation between a class that acts as a frame
- * source and a class that wants to receive frames. The receiver can subscribe
- * or unsubscribe IDs and the source can check if a frame should be delivered
- * to the receiver.
- * @author Jan-Niklas Meier <dschanoeh@googlemail.com>
- *
- */
-public class Subscription {
-
-    private static final Logger logger = Logger.getLogger(Subscription.class.getName());
-
-    private final Set<Integer> ids = Collections.synchronizedSet(new HashSet<Integer>());
-    private final Set<Integer> extendedIds = Collections.synchronizedSet(new HashSet<Integer>());
-    private Boolean muted;
-    private Boolean subscribeAll;
-    private FrameListener receiver;
-    private SubscriptionChangeListener changeReceiver;
-
-    /**
-     * Creates a new Subscription. The new Subscription is automatically
-     * registered at the {@link SubscriptionChangeReceiver}.
-     * @param receiver
-     * @param changeReceiver
-     */
-    public Subscription(FrameListener receiver, SubscriptionChangeListener changeReceiver) {
-        muted = false;
-        subscribeAll = false;
-        this.receiver = receiver;
-        this.changeReceiver = changeReceiver;
-
-        changeReceiver.addSubscription(this);
-    }
-
-    /**
-     * Subscribe for a single identifier
-     * @param id identifier
-     */
-    public void subscribe(int id, boolean extended) {
-        if(!extended) {
-            synchronized(ids) {
-                if (!ids.contains(id)) {
-                    ids.add(id);
-                }
-                changeReceiver.subscribed(id, false, this);
-            }
-        } else {
-            synchronized(extendedIds) {
-                if (!extendedIds.contains(id)) {
-                    extendedIds.add(id);
-                }
-                changeReceiver.subscribed(id, true, this);
-            }
-        }
-    }
-
-    /**
-     * Remove all identifiers from the subscription.
-     */
-    public void clear() {
-        Integer[] identifiers = null;
-        synchronized(ids) {
-            identifiers = ids.toArray(new Integer[ids.size()]);
-            ids.clear();
-        }
-
-        for (int i=0;i<identifiers.length;i++) {
-            changeReceiver.unsubscribed(identifiers[i], false, this);
-        }
-
-        synchronized(extendedIds) {
-            identifiers = extendedIds.toArray(new Integer[extendedIds.size()]);
-            extendedIds.clear();
-        }
-
-        for (int i=0;i<identifiers.length;i++) {
-            changeReceiver.unsubscribed(identifiers[i], true, this);
-        }
-    }
-
-    /**
-     * Remove a single identifier from the subscription.
-     * @param id
-     */
-    public void unsubscribe(int id, boolean extended) {
-        if(!extended) {
-            synchronized(ids) {
-                if(ids.contains(id)) {
-                    ids.remove(id);
-                }
-            }
-            changeReceiver.unsubscribed(id, false, this);
-        } else {
-            synchronized(extendedIds) {
-                if(extendedIds.contains(id)) {
-                    extendedIds.remove(id);
-                }
-            }
-            changeReceiver.unsubscribed(id, true, this);
-        }
-    }
-
-    public Boolean isMuted() {
-        return muted;
-    }
-
-    public void setMuted(Boolean muted) {
-        this.muted = muted;
-    }
-
-    public boolean includes(int id, boolean extended) {
-        if (subscribeAll) {
-            return Boolean.TRUE;
-        } else {
-            if(extended)
-                return extendedIds.contains(id);
-            else
-                return ids.contains(id);
-        }
-    }
-
-    public void deliverFrame(Frame frame, Bus bus) {
-        if (subscribeAll) {
-            receiver.newFrame(frame);
-        } else {
-            if(frame.isExtended()) {
-                if (extendedIds.contains(frame.getIdentifier())) {
-                    receiver.newFrame(frame);
-                }
-            } else {
-                if (ids.contains(frame.getIdentifier())) {
-                    receiver.newFrame(frame);
-                }
-            }
-        }
-    }
-
-    public void setSubscribeAll(Boolean subscribeAll) {
-        this.subscribeAll = subscribeAll;
-        changeReceiver.subscriptionAllChanged(subscribeAll, this);
-    }
-
-    /**
-     * Returns true if all IDs are subscribed by this Subscription
-     */
-    public Boolean getSubscribeAll() {
-        return subscribeAll;
-    }
-
-    public Set<Integer> getAllIdentifiers(boolean extended) {
-        if(extended)
-            return Collections.unmodifiableSet(extendedIds);
-        else
-            return Collections.unmodifiableSet(ids);
-    }
-
-    /**
-     * Informs the {@link SubscriptionChangeReceiver} that the Subscription
-     * will not be used anymore and no more Frames shall be received.
-     */
-    public void Terminate() {
-        if(changeReceiver != null)
-            changeReceiver.subscriptionTerminated(this);
-    }
-}
+/**
+ * 	This file is part of Kayak.
+ *
+ *	Kayak is free software: you can redistribute it and/or modify
+ *	it under the terms of the GNU Lesser General Public License as published by
+ *	the Free Software Foundation, either version 3 of the License, or
+ *	(at your option) any later version.
+ *
+ *	Kayak is distributed in the hope that it will be useful,
+ *	but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *	GNU General Public License for more details.
+ *
+ *	You should have received a copy of the GNU Lesser General Public License
+ *	along with Kayak.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.kayak.core;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A Subscription describes the relation between a class that acts as a frame
+ * source and a class that wants to receive frames. The receiver can subscribe
+ * or unsubscribe IDs and the source can check if a frame should be delivered
+ * to the receiver.
+ * @author Jan-Niklas Meier <dschanoeh@googlemail.com>
+ *
+ */
+public class Subscription {
+
+    /**
+     * Decides what happens if frames arrive faster than an asynchronous
+     * subscription can deliver them.
+     */
+    public static enum OverflowPolicy {
+        /** The thread that delivers the frame waits for free space */
+        BLOCK,
+        /** The oldest queued frame is discarded */
+        DROP_OLDEST,
+        /** The new frame is discarded */
+        DROP_NEWEST,
+        /** Only the latest frame of each identifier is kept */
+        LATEST_PER_ID
+    };
+
+    private static final Logger logger = Logger.getLogger(Subscription.class.getName());
+
+    private final IdentifierSet identifiers = new IdentifierSet();
+    private Boolean muted;
+    private Boolean subscribeAll;
+    private FrameListener receiver;
+    private SubscriptionChangeListener changeReceiver;
+    private volatile AsynchronousDelivery asynchronous;
+    private long previouslyDropped = 0;
+
+    /**
+     * Creates a new Subscription. The new Subscription is automatically
+     * registered at the {@link SubscriptionChangeReceiver}.
+     * @param receiver
+     * @param changeReceiver
+     */
+    public Subscription(FrameListener receiver, SubscriptionChangeListener changeReceiver) {
+        muted = false;
+        subscribeAll = false;
+        this.receiver = receiver;
+        this.changeReceiver = changeReceiver;
+
+        changeReceiver.addSubscription(this);
+    }
+
+    /**
+     * Subscribe for a single identifier. The {@link SubscriptionChangeListener}
+     * is only informed if the identifier was not subscribed before.
+     * @param id identifier
+     */
+    public void subscribe(int id, boolean extended) {
+        synchronized(identifiers) {
+            if(identifiers.add(id, extended))
+                changeReceiver.subscribed(id, extended, this);
+        }
+    }
+
+    /**
+     * Remove all identifiers from the subscription.
+     */
+    public void clear() {
+        int[] standard;
+        int[] extended;
+
+        synchronized(identifiers) {
+            standard = identifiers.toArray(false);
+            extended = identifiers.toArray(true);
+            identifiers.clear();
+        }
+
+        for (int i=0;i<standard.length;i++) {
+            changeReceiver.unsubscribed(standard[i], false, this);
+        }
+
+        for (int i=0;i<extended.length;i++) {
+            changeReceiver.unsubscribed(extended[i], true, this);
+        }
+    }
+
+    /**
+     * Remove a single identifier from the subscription. The
+     * {@link SubscriptionChangeListener} is only informed if the identifier
+     * was subscribed.
+     * @param id
+     */
+    public void unsubscribe(int id, boolean extended) {
+        synchronized(identifiers) {
+            if(identifiers.remove(id, extended))
+                changeReceiver.unsubscribed(id, extended, this);
+        }
+    }
+
+    public Boolean isMuted() {
+        return muted;
+    }
+
+    public void setMuted(Boolean muted) {
+        this.muted = muted;
+    }
+
+    public boolean includes(int id, boolean extended) {
+        if (subscribeAll) {
+            return Boolean.TRUE;
+        } else {
+            return identifiers.contains(id, extended);
+        }
+    }
+
+    public void deliverFrame(Frame frame, Bus bus) {
+        if (subscribeAll || identifiers.contains(frame.getIdentifier(), frame.isExtended())) {
+            deliver(frame);
+        }
+    }
+
+    /**
+     * Hands the frame to the receiver without checking the identifier. Used
+     * by the {@link Bus} that already looked up the receivers of the frame.
+     * In asynchronous mode the frame is queued.
+     */
+    void deliver(Frame frame) {
+        AsynchronousDelivery a = asynchronous;
+        if(a != null)
+            a.offer(frame);
+        else
+            receiver.newFrame(frame);
+    }
+
+    /**
+     * Hands a number of frames to the receiver without checking the
+     * identifiers. A {@link FrameBatchListener} receives the whole batch
+     * with a single call. In asynchronous mode the frames are queued.
+     */
+    void deliver(FrameBatch batch) {
+        AsynchronousDelivery a = asynchronous;
+        if(a != null) {
+            for(int i=0;i<batch.size();i++) {
+                a.offer(batch.get(i));
+            }
+        } else {
+            batch.deliverTo(receiver);
+        }
+    }
+
+    /**
+     * Switches the subscription to asynchronous delivery. Frames are queued
+     * in a bounded buffer and the receiver is called by an own thread so a
+     * slow receiver does not stall the source of the frames.
+     * @param capacity maximum number of queued frames
+     * @param policy what to do if the buffer is full
+     */
+    public synchronized void setAsynchronous(int capacity, OverflowPolicy policy) {
+        AsynchronousDelivery old = asynchronous;
+        asynchronous = new AsynchronousDelivery(receiver, capacity, policy);
+
+        if(old != null) {
+            old.shutdown();
+            previouslyDropped += old.getDroppedFrames();
+        }
+    }
+
+    /**
+     * Switches the subscription back to synchronous delivery. Frames that
+     * were queued but not delivered yet are discarded.
+     */
+    public void setSynchronous() {
+        setSynchronous(false);
+    }
+
+    /**
+     * Switches the subscription back to synchronous delivery.
+     * @param drain if true frames that were queued are delivered before
+     * the method returns. Otherwise they are discarded.
+     */
+    public synchronized void setSynchronous(boolean drain) {
+        AsynchronousDelivery old = asynchronous;
+        asynchronous = null;
+
+        if(old != null) {
+            if(drain)
+                old.drain();
+            else
+                old.shutdown();
+            previouslyDropped += old.getDroppedFrames();
+        }
+    }
+
+    public boolean isAsynchronous() {
+        return asynchronous != null;
+    }
+
+    /**
+     * Returns the number of frames that were dropped or replaced because
+     * the asynchronous delivery buffer was full.
+     */
+    public synchronized long getDroppedFrames() {
+        AsynchronousDelivery a = asynchronous;
+        return previouslyDropped + (a == null ? 0 : a.getDroppedFrames());
+    }
+
+    public void setSubscribeAll(Boolean subscribeAll) {
+        this.subscribeAll = subscribeAll;
+        changeReceiver.subscriptionAllChanged(subscribeAll, this);
+    }
+
+    /**
+     * Returns true if all IDs are subscribed by this Subscription
+     */
+    public Boolean getSubscribeAll() {
+        return subscribeAll;
+    }
+
+    /**
+     * Returns a snapshot of all subscribed identifiers.
+     */
+    public Set<Integer> getAllIdentifiers(boolean extended) {
+        int[] array = identifiers.toArray(extended);
+        Set<Integer> set = new HashSet<Integer>(array.length * 2);
+        for(int id : array)
+            set.add(id);
+        return Collections.unmodifiableSet(set);
+    }
+
+    /**
+     * Returns a snapshot of all subscribed identifiers.
+     */
+    public int[] getIdentifierArray(boolean extended) {
+        return identifiers.toArray(extended);
+    }
+
+    /**
+     * Informs the {@link SubscriptionChangeReceiver} that the Subscription
+     * will not be used anymore and no more Frames shall be received.
+     */
+    public void Terminate() {
+        Terminate(false);
+    }
+
+    /**
+     * Informs the {@link SubscriptionChangeReceiver} that the Subscription
+     * will not be used anymore and no more Frames shall be received.
+     * @param drain if true frames that were queued for asynchronous delivery
+     * are delivered before the method returns. Otherwise they are discarded.
+     */
+    public void Terminate(boolean drain) {
+        if(changeReceiver != null)
+            changeReceiver.subscriptionTerminated(this);
+
+        setSynchronous(drain);
+    }
+}
@@ -0,0 +1,70 @@
+/**
+ * 	This file is part of Kayak.
+ *
+ *	Kayak is free software: you can redistribute it and/or modify
+ *	it under the terms of the GNU Lesser General Public License as published by
+ *	the Free Software Foundation, either version 3 of the License, or
+ *	(at your option) any later version.
+ *
+ *	Kayak is distributed in the hope that it will be useful,
+ *	but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *	GNU General Public License for more details.
+ *
+ *	You should have received a copy of the GNU Lesser General Public License
+ *	along with Kayak.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.kayak.core;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Reads the frames of an uncompressed text log file through a
+ * {@link MappedLogReader}. Lines that are not frames are skipped.
+ * @author Jan-Niklas Meier <dschanoeh@googlemail.com>
+ */
+class TextLogFrameSource implements LogFrameSource {
+
+    private final MappedLogReader reader;
+    private final LogLineParser parser = new LogLineParser();
+
+    public TextLogFrameSource(File file, long position) throws IOException {
+        reader = new MappedLogReader(file, position);
+    }
+
+    @Override
+    public void seek(long position) {
+        reader.seek(position);
+    }
+
+    @Override
+    public boolean nextFrame() throws IOException {
+        while(reader.nextLine()) {
+            if(parser.parse(reader.getBuffer(), reader.getLineOffset(), reader.getLineLength()))
+                return true;
+        }
+        return false;
+    }
+
+    @Override
+    public long getResumePosition() {
+        return reader.getPositionOfLastLine();
+    }
+
+    @Override
+    public long getTimestamp() {
+        return parser.getTimestamp();
+    }
+
+    @Override
+    public Frame.FrameBusNamePair getFrameBusNamePair() {
+        return parser.getFrameBusNamePair();
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
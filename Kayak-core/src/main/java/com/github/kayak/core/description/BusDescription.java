@@ -15,13 +15,15 @@
  *	along with Kayak.  If not, see <http://www.gnu.org/licenses/>.
  *
  */
-
 package com.github.kayak.core.description;
 
 import com.github.kayak.core.Frame;
+import com.github.kayak.core.IntObjectHashMap;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 /**
@@ -30,11 +32,58 @@ import java.util.Map;
  */
 public class BusDescription {
 
+    private static final int STANDARD_ID_COUNT = 0x800;
+
     private String name;
     private int baudrate;
     private Map<Integer,MessageDescription> messages;
+    private Map<Long,MessageDescription> descriptions;
+    private volatile Lookup lookup;
     private Document document;
 
+    /**
+     * Immutable lookup structure that maps (id, extended) to a message
+     * description without boxing. Standard identifiers are resolved through
+     * a dense array, extended identifiers through an open addressing map.
+     */
+    private static final class Lookup {
+
+        private final MessageDescription[] standard = new MessageDescription[STANDARD_ID_COUNT];
+        private final IntObjectHashMap<MessageDescription> extended;
+
+        private Lookup(Collection<MessageDescription> descriptions) {
+            int extendedCount = 0;
+            for(MessageDescription d : descriptions) {
+                if(d.isExtended())
+                    extendedCount++;
+            }
+
+            extended = new IntObjectHashMap<MessageDescription>(extendedCount);
+
+            for(MessageDescription d : descriptions) {
+                int id = d.getId();
+                if(!d.isExtended() && id >= 0 && id < STANDARD_ID_COUNT)
+                    standard[id] = d;
+                else if(d.isExtended())
+                    extended.put(id, d);
+            }
+        }
+
+        private MessageDescription get(int id, boolean isExtended) {
+            if(isExtended)
+                return extended.get(id);
+
+            if(id >= 0 && id < STANDARD_ID_COUNT)
+                return standard[id];
+
+            return null;
+        }
+    }
+
+    private static long key(int id, boolean extended) {
+        return ((long) id << 1) | (extended ? 1 : 0);
+    }
+
     public int getBaudrate() {
         return baudrate;
     }
@@ -43,12 +92,57 @@ public class BusDescription {
         this.baudrate = baudrate;
     }
 
+    /**
+     * Returns the messages of this bus keyed by their identifier. Because
+     * the key does not contain the extended flag a standard and an extended
+     * message with the same identifier can not both be part of this map.
+     * Use {@link #getMessageDescriptions()} or
+     * {@link #getMessageDescription(int, boolean)} instead.
+     */
     public Map<Integer,MessageDescription> getMessages() {
         return Collections.unmodifiableMap(messages);
     }
 
-    public void addMessageDescription(MessageDescription d) {
+    /**
+     * Returns all message descriptions of this bus in the order they were
+     * added.
+     */
+    public synchronized Collection<MessageDescription> getMessageDescriptions() {
+        return Collections.unmodifiableList(new ArrayList<MessageDescription>(descriptions.values()));
+    }
+
+    public synchronized void addMessageDescription(MessageDescription d) {
         messages.put(d.getId(), d);
+        descriptions.put(key(d.getId(), d.isExtended()), d);
+        lookup = null;
+    }
+
+    /**
+     * Builds the lookup structure that is used to find the message
+     * description of a frame. Should be called when loading of the
+     * description is finished. If more messages are added afterwards the
+     * lookup is rebuilt on the next access.
+     */
+    public synchronized void compile() {
+        lookup = new Lookup(descriptions.values());
+    }
+
+    /**
+     * Returns the description of the message with the given identifier
+     * or null if the bus has no such message.
+     */
+    public MessageDescription getMessageDescription(int id, boolean extended) {
+        Lookup l = lookup;
+
+        if(l == null) {
+            synchronized(this) {
+                if(lookup == null)
+                    lookup = new Lookup(descriptions.values());
+                l = lookup;
+            }
+        }
+
+        return l.get(id, extended);
     }
 
     public String getName() {
@@ -64,10 +158,11 @@ public class BusDescription {
         name = "";
         baudrate = 500000;
         messages = new HashMap<Integer,MessageDescription>();
+        descriptions = new LinkedHashMap<Long,MessageDescription>();
     }
 
     public Message decodeFrame(Frame frame) throws DescriptionException {
-        MessageDescription message = messages.get(frame.getIdentifier());
+        MessageDescription message = getMessageDescription(frame.getIdentifier(), frame.isExtended());
 
         if(message != null) {
             return message.decodeFrame(frame);
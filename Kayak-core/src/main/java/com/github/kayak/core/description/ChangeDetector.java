@@ -0,0 +1,133 @@
+/**
+ * 	This file is part of Kayak.
+ *
+ *	Kayak is free software: you can redistribute it and/or modify
+ *	it under the terms of the GNU Lesser General Public License as published by
+ *	the Free Software Foundation, either version 3 of the License, or
+ *	(at your option) any later version.
+ *
+ *	Kayak is distributed in the hope that it will be useful,
+ *	but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *	GNU General Public License for more details.
+ *
+ *	You should have received a copy of the GNU Lesser General Public License
+ *	along with Kayak.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.kayak.core.description;
+
+import java.util.Arrays;
+
+/**
+ * A ChangeDetector remembers the last payload that was decoded with a
+ * {@link DecodePlan} and finds the signals whose bits changed since then.
+ * The bits of each signal (and of its multiplexor) are compiled into a
+ * mask over the first 8 payload bytes so the comparison only needs a few
+ * word operations. Signals that are not within the first 8 bytes are
+ * compared byte by byte. A change of the payload length marks all signals
+ * as changed. The detector is not thread safe.
+ * @author Jan-Niklas Meier <dschanoeh@googlemail.com>
+ */
+public class ChangeDetector {
+
+    private final DecodePlan plan;
+    private final long[] littleEndianMasks;
+    private final long[] bigEndianMasks;
+    /* true if the signal can not be checked with the masks */
+    private final boolean[] compareBytes;
+    private final boolean[] changed;
+    private byte[] last;
+    private long lastLittleEndian;
+    private long lastBigEndian;
+
+    public ChangeDetector(DecodePlan plan) {
+        this.plan = plan;
+        littleEndianMasks = new long[plan.size()];
+        bigEndianMasks = new long[plan.size()];
+        compareBytes = new boolean[plan.size()];
+        changed = new boolean[plan.size()];
+
+        for(int i=0;i<plan.size();i++) {
+            SignalDescription s = plan.getSignalDescription(i);
+            addMask(i, s.getExtractor());
+
+            if(s.isMultiplexed())
+                addMask(i, s.getMultiplexDescription().getExtractor());
+        }
+    }
+
+    private void addMask(int position, SignalExtractor extractor) {
+        if(!extractor.isWordAligned()) {
+            compareBytes[position] = true;
+        } else if(extractor.isBigEndian()) {
+            bigEndianMasks[position] |= extractor.getWordMask();
+        } else {
+            littleEndianMasks[position] |= extractor.getWordMask();
+        }
+    }
+
+    public DecodePlan getDecodePlan() {
+        return plan;
+    }
+
+    /**
+     * Compares the payload with the previous one and remembers it for the
+     * next call. Afterwards {@link #isChanged(int)} tells which signals
+     * changed. The first payload changes all signals.
+     * @return true if any signal of the plan changed
+     */
+    public boolean update(byte[] data) {
+        long littleEndian = SignalExtractor.loadLittleEndian(data);
+        long bigEndian = SignalExtractor.loadBigEndian(data);
+        boolean any = false;
+
+        if(last == null || last.length != data.length) {
+            Arrays.fill(changed, true);
+            any = changed.length > 0;
+            last = new byte[data.length];
+        } else {
+            long littleEndianDiff = littleEndian ^ lastLittleEndian;
+            long bigEndianDiff = bigEndian ^ lastBigEndian;
+            boolean bytesChanged = false;
+            boolean bytesCompared = false;
+
+            for(int i=0;i<changed.length;i++) {
+                boolean c = (littleEndianDiff & littleEndianMasks[i]) != 0
+                        || (bigEndianDiff & bigEndianMasks[i]) != 0;
+
+                if(!c && compareBytes[i]) {
+                    if(!bytesCompared) {
+                        bytesChanged = !Arrays.equals(data, last);
+                        bytesCompared = true;
+                    }
+                    c = bytesChanged;
+                }
+
+                changed[i] = c;
+                any |= c;
+            }
+        }
+
+        System.arraycopy(data, 0, last, 0, data.length);
+        lastLittleEndian = littleEndian;
+        lastBigEndian = bigEndian;
+
+        return any;
+    }
+
+    /**
+     * Returns true if the signal at the given position of the plan changed
+     * with the last call of {@link #update(byte[])}.
+     */
+    public boolean isChanged(int position) {
+        return changed[position];
+    }
+
+    /**
+     * Forgets the last payload so the next one changes all signals.
+     */
+    public void reset() {
+        last = null;
+    }
+}
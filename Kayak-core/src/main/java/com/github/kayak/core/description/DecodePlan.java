@@ -0,0 +1,93 @@
+/**
+ * 	This file is part of Kayak.
+ *
+ *	Kayak is free software: you can redistribute it and/or modify
+ *	it under the terms of the GNU Lesser General Public License as published by
+ *	the Free Software Foundation, either version 3 of the License, or
+ *	(at your option) any later version.
+ *
+ *	Kayak is distributed in the hope that it will be useful,
+ *	but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *	GNU General Public License for more details.
+ *
+ *	You should have received a copy of the GNU Lesser General Public License
+ *	along with Kayak.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.kayak.core.description;
+
+import java.util.Collection;
+
+/**
+ * A DecodePlan decodes a selected set of signals of one message. The payload
+ * is loaded once per frame and only the selected signals are extracted.
+ * Multiplexed signals are only decoded if the multiplex value matches.
+ * The plan is immutable and may be shared between threads.
+ * @author Jan-Niklas Meier <dschanoeh@googlemail.com>
+ */
+public class DecodePlan {
+
+    private final MessageDescription message;
+    private final SignalDescription[] signals;
+
+    public DecodePlan(MessageDescription message, Collection<SignalDescription> signals) {
+        this.message = message;
+        this.signals = signals.toArray(new SignalDescription[signals.size()]);
+    }
+
+    public MessageDescription getMessageDescription() {
+        return message;
+    }
+
+    /**
+     * Returns the number of signals in the plan.
+     */
+    public int size() {
+        return signals.length;
+    }
+
+    public SignalDescription getSignalDescription(int position) {
+        return signals[position];
+    }
+
+    /**
+     * Decodes all signals of the plan. The index that is handed to the sink
+     * is the position of the signal in the plan.
+     */
+    public void decode(byte[] data, SignalSink sink) throws DescriptionException {
+        decode(data, sink, null);
+    }
+
+    /**
+     * Decodes the signals of the plan whose position is set in selected.
+     * If selected is null all signals are decoded.
+     */
+    public void decode(byte[] data, SignalSink sink, boolean[] selected) throws DescriptionException {
+        long littleEndian = SignalExtractor.loadLittleEndian(data);
+        long bigEndian = SignalExtractor.loadBigEndian(data);
+
+        /* signals of the same multiplexor share the extracted value */
+        MultiplexDescription multiplexDescription = null;
+        long multiplex = 0;
+
+        for(int i=0;i<signals.length;i++) {
+            if(selected != null && !selected[i])
+                continue;
+
+            SignalDescription s = signals[i];
+
+            if(s.isMultiplexed()) {
+                if(s.getMultiplexDescription() != multiplexDescription) {
+                    multiplexDescription = s.getMultiplexDescription();
+                    multiplex = multiplexDescription.getExtractor().extract(data, littleEndian, bigEndian);
+                }
+                if(!s.matchesMultiplex(multiplex))
+                    continue;
+            }
+
+            long rawValue = s.getExtractor().extract(data, littleEndian, bigEndian);
+            sink.signalDecoded(i, rawValue, s.calculateValue(rawValue));
+        }
+    }
+}
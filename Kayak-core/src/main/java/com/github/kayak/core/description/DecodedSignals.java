@@ -0,0 +1,111 @@
+/**
+ * 	This file is part of Kayak.
+ *
+ *	Kayak is free software: you can redistribute it and/or modify
+ *	it under the terms of the GNU Lesser General Public License as published by
+ *	the Free Software Foundation, either version 3 of the License, or
+ *	(at your option) any later version.
+ *
+ *	Kayak is distributed in the hope that it will be useful,
+ *	but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *	GNU General Public License for more details.
+ *
+ *	You should have received a copy of the GNU Lesser General Public License
+ *	along with Kayak.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.kayak.core.description;
+
+import com.github.kayak.core.Frame;
+import java.util.Arrays;
+
+/**
+ * Reusable storage for the decoded signals of one message. The values are
+ * kept in primitive arrays that are indexed by the signal index of the
+ * {@link MessageDescription}, so decoding a frame into an existing
+ * DecodedSignals does not create any objects.
+ * @author Jan-Niklas Meier <dschanoeh@googlemail.com>
+ */
+public class DecodedSignals implements SignalSink {
+
+    private final MessageDescription description;
+    private long[] rawValues;
+    private double[] values;
+    private boolean[] present;
+
+    public DecodedSignals(MessageDescription description) {
+        this.description = description;
+        int count = description.getSignalCount();
+        rawValues = new long[count];
+        values = new double[count];
+        present = new boolean[count];
+    }
+
+    public MessageDescription getDescription() {
+        return description;
+    }
+
+    /**
+     * Clears the slots and decodes the frame.
+     * @return false if the frame does not belong to the message
+     */
+    public boolean decode(Frame frame) throws DescriptionException {
+        clear();
+        return description.decodeFrame(frame, this);
+    }
+
+    /**
+     * Clears the slots and decodes the payload without checking the
+     * identifier.
+     */
+    public void decode(byte[] data) throws DescriptionException {
+        clear();
+        description.decodeData(data, this);
+    }
+
+    /**
+     * Marks all signals as not present.
+     */
+    public void clear() {
+        Arrays.fill(present, false);
+    }
+
+    /**
+     * Returns the number of slots.
+     */
+    public int size() {
+        return present.length;
+    }
+
+    /**
+     * Returns true if the signal was present in the last decoded frame.
+     * Multiplexed signals are only present if the multiplex value matched.
+     */
+    public boolean isPresent(int index) {
+        return index < present.length && present[index];
+    }
+
+    public long getRawValue(int index) {
+        return rawValues[index];
+    }
+
+    public double getValue(int index) {
+        return values[index];
+    }
+
+    @Override
+    public void signalDecoded(int index, long rawValue, double value) {
+        /* signals were added to the description after creation */
+        if(index >= present.length) {
+            int count = Math.max(index + 1, description.getSignalCount());
+            rawValues = Arrays.copyOf(rawValues, count);
+            values = Arrays.copyOf(values, count);
+            present = Arrays.copyOf(present, count);
+        }
+
+        rawValues[index] = rawValue;
+        values[index] = value;
+        present[index] = true;
+    }
+}
@@ -0,0 +1,503 @@
+/**
+ * 	This file is part of Kayak.
+ *
+ *	Kayak is free software: you can redistribute it and/or modify
+ *	it under the terms of the GNU Lesser General Public License as published by
+ *	the Free Software Foundation, either version 3 of the License, or
+ *	(at your option) any later version.
+ *
+ *	Kayak is distributed in the hope that it will be useful,
+ *	but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *	GNU General Public License for more details.
+ *
+ *	You should have received a copy of the GNU Lesser General Public License
+ *	along with Kayak.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.kayak.core.description;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * The DescriptionCache stores loaded {@link Document}s in a compact binary
+ * format so a description file only has to be parsed again if it changed.
+ * Each cache entry is keyed by the absolute path of the description file
+ * and is only used if size, modification time and the CRC32 of the file
+ * content still match. Entries that can not be read are ignored and
+ * replaced on the next store.
+ * @author Jan-Niklas Meier <dschanoeh@googlemail.com>
+ */
+public class DescriptionCache {
+
+    private static final Logger logger = Logger.getLogger(DescriptionCache.class.getCanonicalName());
+
+    private static final int MAGIC = 0x4B444331;
+    private static final int VERSION = 1;
+    private static final String SUFFIX = ".kdc";
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private static final int ORDER_NONE = 0;
+    private static final int ORDER_LITTLE = 1;
+    private static final int ORDER_BIG = 2;
+
+    /* sanity limit for strings in corrupt entries */
+    private static final int MAX_STRING_LENGTH = 16 * 1024 * 1024;
+
+    private final File directory;
+
+    /**
+     * Size, modification time and checksum of a description file.
+     */
+    private static class Key {
+        private final long size;
+        private final long modified;
+        private final long checksum;
+
+        public Key(File file) throws IOException {
+            size = file.length();
+            modified = file.lastModified();
+            checksum = checksum(file);
+        }
+
+        public Key(long size, long modified, long checksum) {
+            this.size = size;
+            this.modified = modified;
+            this.checksum = checksum;
+        }
+
+        public boolean matches(Key other) {
+            return size == other.size && modified == other.modified && checksum == other.checksum;
+        }
+    }
+
+    /**
+     * @param directory directory for the cache files. It is created when
+     * the first entry is stored.
+     */
+    public DescriptionCache(File directory) {
+        this.directory = directory;
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Returns the document for the description file from the cache. If
+     * there is no valid entry the loader parses the file and the result is
+     * stored in the cache.
+     * @return the document or null if the loader could not parse the file
+     */
+    public Document parseFile(File file, DescriptionLoader loader) {
+        Key key;
+        try {
+            key = new Key(file);
+        } catch (IOException ex) {
+            logger.log(Level.INFO, "Could not read " + file.getAbsolutePath(), ex);
+            return loader.parseFile(file);
+        }
+
+        Document document = load(file, key);
+        if(document != null)
+            return document;
+
+        /* the key was taken before parsing so a change during parsing
+         * invalidates the entry */
+        document = loader.parseFile(file);
+        if(document != null)
+            store(file, key, document);
+
+        return document;
+    }
+
+    /**
+     * Returns the cached document for the description file or null if
+     * there is no valid entry.
+     */
+    public Document load(File file) {
+        if(!file.isFile() || !getCacheFile(file).isFile())
+            return null;
+
+        try {
+            return load(file, new Key(file));
+        } catch (IOException ex) {
+            logger.log(Level.INFO, "Could not read " + file.getAbsolutePath(), ex);
+            return null;
+        }
+    }
+
+    private Document load(File file, Key key) {
+        File cacheFile = getCacheFile(file);
+        if(!cacheFile.isFile())
+            return null;
+
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(cacheFile)));
+
+            if(in.readInt() != MAGIC || in.readInt() != VERSION)
+                return null;
+
+            String path = readString(in);
+            Key cached = new Key(in.readLong(), in.readLong(), in.readLong());
+
+            if(!file.getAbsolutePath().equals(path) || !key.matches(cached))
+                return null;
+
+            Document document = readDocument(in);
+            document.setFileName(file.getAbsolutePath());
+            return document;
+        } catch (IOException ex) {
+            logger.log(Level.INFO, "Could not read cache entry " + cacheFile.getAbsolutePath(), ex);
+            return null;
+        } catch (RuntimeException ex) {
+            logger.log(Level.INFO, "Invalid cache entry " + cacheFile.getAbsolutePath(), ex);
+            return null;
+        } finally {
+            if(in != null) {
+                try {
+                    in.close();
+                } catch (IOException ex) {
+                }
+            }
+        }
+    }
+
+    /**
+     * Stores the document that was parsed from the description file. The
+     * entry is written to a temporary file first so concurrent readers
+     * never see a partial entry.
+     */
+    public void store(File file, Document document) {
+        try {
+            store(file, new Key(file), document);
+        } catch (IOException ex) {
+            logger.log(Level.WARNING, "Could not read " + file.getAbsolutePath(), ex);
+        }
+    }
+
+    private void store(File file, Key key, Document document) {
+        if(!directory.isDirectory() && !directory.mkdirs()) {
+            logger.log(Level.WARNING, "Could not create cache directory {0}", directory.getAbsolutePath());
+            return;
+        }
+
+        File cacheFile = getCacheFile(file);
+        File tempFile = null;
+        DataOutputStream out = null;
+        try {
+            tempFile = File.createTempFile("description", ".tmp", directory);
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            writeString(out, file.getAbsolutePath());
+            out.writeLong(key.size);
+            out.writeLong(key.modified);
+            out.writeLong(key.checksum);
+            writeDocument(out, document);
+            out.close();
+            out = null;
+
+            if(cacheFile.exists() && !cacheFile.delete())
+                throw new IOException("Could not replace " + cacheFile.getAbsolutePath());
+            if(!tempFile.renameTo(cacheFile))
+                throw new IOException("Could not rename " + tempFile.getAbsolutePath());
+            tempFile = null;
+        } catch (IOException ex) {
+            logger.log(Level.WARNING, "Could not write cache entry for " + file.getAbsolutePath(), ex);
+        } finally {
+            if(out != null) {
+                try {
+                    out.close();
+                } catch (IOException ex) {
+                }
+            }
+            if(tempFile != null)
+                tempFile.delete();
+        }
+    }
+
+    /**
+     * Removes the cache entry of the description file.
+     */
+    public void invalidate(File file) {
+        File cacheFile = getCacheFile(file);
+        if(cacheFile.exists() && !cacheFile.delete())
+            logger.log(Level.WARNING, "Could not delete cache entry {0}", cacheFile.getAbsolutePath());
+    }
+
+    private File getCacheFile(File file) {
+        CRC32 crc = new CRC32();
+        crc.update(file.getAbsolutePath().getBytes(UTF8));
+        String name = file.getName().replaceAll("[^A-Za-z0-9._-]", "_");
+        return new File(directory, name + "-" + Long.toHexString(crc.getValue()) + SUFFIX);
+    }
+
+    private static long checksum(File file) throws IOException {
+        CRC32 crc = new CRC32();
+        InputStream in = new FileInputStream(file);
+        try {
+            byte[] buffer = new byte[65536];
+            int read;
+            while((read = in.read(buffer)) != -1) {
+                crc.update(buffer, 0, read);
+            }
+        } finally {
+            in.close();
+        }
+        return crc.getValue();
+    }
+
+    private static void writeDocument(DataOutputStream out, Document document) throws IOException {
+        writeString(out, document.getName());
+        writeString(out, document.getVersion());
+        writeString(out, document.getAuthor());
+        writeString(out, document.getCompany());
+        writeString(out, document.getDate());
+
+        out.writeInt(document.getNodes().size());
+        for(Node n : document.getNodes()) {
+            writeString(out, n.getId());
+            writeString(out, n.getName());
+        }
+
+        out.writeInt(document.getBusDescriptions().size());
+        for(BusDescription bus : document.getBusDescriptions()) {
+            writeString(out, bus.getName());
+            out.writeInt(bus.getBaudrate());
+
+            out.writeInt(bus.getMessageDescriptions().size());
+            for(MessageDescription message : bus.getMessageDescriptions()) {
+                writeMessage(out, message);
+            }
+        }
+    }
+
+    private static void writeMessage(DataOutputStream out, MessageDescription message) throws IOException {
+        out.writeInt(message.getId());
+        out.writeBoolean(message.isExtended());
+        writeString(out, message.getName());
+        out.writeInt(message.getInterval());
+        writeString(out, message.getProducer() != null ? message.getProducer().getId() : null);
+
+        /* multiplexes are referenced by their position */
+        Map<MultiplexDescription, Integer> multiplexes = new IdentityHashMap<MultiplexDescription, Integer>();
+        out.writeInt(message.getMultiplexes().size());
+        for(MultiplexDescription m : message.getMultiplexes()) {
+            multiplexes.put(m, multiplexes.size());
+            writeString(out, m.getName());
+            out.writeInt(m.getOffset());
+            out.writeInt(m.getLength());
+            writeByteOrder(out, m.getByteOrder());
+            writeString(out, m.getType() != null ? m.getType().name() : null);
+        }
+
+        /* signals are written in index order so the indices are kept */
+        out.writeInt(message.getSignalCount());
+        for(int i=0;i<message.getSignalCount();i++) {
+            SignalDescription s = message.getSignalDescription(i);
+
+            if(s.isMultiplexed()) {
+                Integer multiplex = multiplexes.get(s.getMultiplexDescription());
+                if(multiplex == null)
+                    throw new IOException("Signal " + s.getName() + " has an unknown multiplex");
+                out.writeInt(multiplex);
+                out.writeLong(s.getMultiplexCount());
+            } else {
+                out.writeInt(-1);
+            }
+
+            writeSignal(out, s);
+        }
+    }
+
+    private static void writeSignal(DataOutputStream out, SignalDescription s) throws IOException {
+        writeString(out, s.getName());
+        writeString(out, s.getNotes());
+        writeString(out, s.getUnit());
+        out.writeInt(s.getOffset());
+        out.writeInt(s.getLength());
+        writeByteOrder(out, s.getByteOrder());
+        writeString(out, s.getType() != null ? s.getType().name() : null);
+        out.writeDouble(s.getSlope());
+        out.writeDouble(s.getIntercept());
+
+        out.writeInt(s.getAllLabels().size());
+        for(Label l : s.getAllLabels()) {
+            out.writeLong(l.getStart());
+            out.writeLong(l.getStop());
+            writeString(out, l.getLabel());
+        }
+
+        out.writeInt(s.getConsumers().size());
+        for(Node n : s.getConsumers()) {
+            writeString(out, n.getId());
+        }
+    }
+
+    private static Document readDocument(DataInputStream in) throws IOException {
+        Document document = new Document();
+        document.setName(readString(in));
+        document.setVersion(readString(in));
+        document.setAuthor(readString(in));
+        document.setCompany(readString(in));
+        document.setDate(readString(in));
+
+        Map<String, Node> nodes = new HashMap<String, Node>();
+        int nodeCount = in.readInt();
+        for(int i=0;i<nodeCount;i++) {
+            String id = readString(in);
+            Node n = document.createNode(id, readString(in));
+            nodes.put(id, n);
+        }
+
+        int busCount = in.readInt();
+        for(int i=0;i<busCount;i++) {
+            BusDescription bus = document.createBusDescription();
+            bus.setName(readString(in));
+            bus.setBaudrate(in.readInt());
+
+            int messageCount = in.readInt();
+            for(int j=0;j<messageCount;j++) {
+                bus.addMessageDescription(readMessage(in, nodes));
+            }
+
+            bus.compile();
+        }
+
+        return document;
+    }
+
+    private static MessageDescription readMessage(DataInputStream in, Map<String, Node> nodes) throws IOException {
+        int id = in.readInt();
+        boolean extended = in.readBoolean();
+        MessageDescription message = new MessageDescription(id, extended);
+        message.setName(readString(in));
+        message.setInterval(in.readInt());
+
+        String producer = readString(in);
+        if(producer != null)
+            message.setProducer(nodes.get(producer));
+
+        MultiplexDescription[] multiplexes = new MultiplexDescription[in.readInt()];
+        for(int i=0;i<multiplexes.length;i++) {
+            MultiplexDescription m = message.createMultiplexDescription();
+            m.setName(readString(in));
+            m.setOffset(in.readInt());
+            m.setLength(in.readInt());
+            m.setByteOrder(readByteOrder(in));
+            String type = readString(in);
+            if(type != null)
+                m.setType(SignalDescription.Type.valueOf(type));
+            multiplexes[i] = m;
+        }
+
+        int signalCount = in.readInt();
+        for(int i=0;i<signalCount;i++) {
+            int multiplex = in.readInt();
+            SignalDescription s;
+
+            if(multiplex >= 0)
+                s = multiplexes[multiplex].createMultiplexedSignal(in.readLong());
+            else
+                s = message.createSignalDescription();
+
+            readSignal(in, s, nodes);
+        }
+
+        return message;
+    }
+
+    private static void readSignal(DataInputStream in, SignalDescription s, Map<String, Node> nodes) throws IOException {
+        s.setName(readString(in));
+        s.setNotes(readString(in));
+        s.setUnit(readString(in));
+        s.setOffset(in.readInt());
+        s.setLength(in.readInt());
+        s.setByteOrder(readByteOrder(in));
+        String type = readString(in);
+        s.setType(type != null ? SignalDescription.Type.valueOf(type) : null);
+        s.setSlope(in.readDouble());
+        s.setIntercept(in.readDouble());
+
+        int labelCount = in.readInt();
+        for(int i=0;i<labelCount;i++) {
+            long start = in.readLong();
+            long stop = in.readLong();
+            s.addLabel(new Label(start, stop, readString(in)));
+        }
+
+        int consumerCount = in.readInt();
+        for(int i=0;i<consumerCount;i++) {
+            Node n = nodes.get(readString(in));
+            if(n != null)
+                s.addConsumer(n);
+        }
+    }
+
+    private static void writeByteOrder(DataOutputStream out, ByteOrder order) throws IOException {
+        if(order == null)
+            out.writeByte(ORDER_NONE);
+        else if(order == ByteOrder.BIG_ENDIAN)
+            out.writeByte(ORDER_BIG);
+        else
+            out.writeByte(ORDER_LITTLE);
+    }
+
+    private static ByteOrder readByteOrder(DataInputStream in) throws IOException {
+        switch(in.readByte()) {
+            case ORDER_NONE:
+                return null;
+            case ORDER_BIG:
+                return ByteOrder.BIG_ENDIAN;
+            case ORDER_LITTLE:
+                return ByteOrder.LITTLE_ENDIAN;
+            default:
+                throw new IOException("Invalid byte order");
+        }
+    }
+
+    /**
+     * Strings are written with their length in bytes so they are not
+     * limited like {@link DataOutputStream#writeUTF(java.lang.String)}.
+     * A length of -1 marks null.
+     */
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        if(s == null) {
+            out.writeInt(-1);
+        } else {
+            byte[] bytes = s.getBytes(UTF8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if(length < 0)
+            return null;
+        if(length > MAX_STRING_LENGTH)
+            throw new IOException("Invalid string length " + length);
+
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, UTF8);
+    }
+}
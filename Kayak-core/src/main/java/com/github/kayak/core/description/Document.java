@@ -19,7 +19,9 @@
 package com.github.kayak.core.description;
 
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -29,6 +31,7 @@ import java.util.Set;
 public class Document {
 
     private Set<Node> nodes;
+    private Map<String, Node> nodeIndex;
     private Set<BusDescription> busses;
     private String name;
     private String version;
@@ -44,15 +47,14 @@ public class Document {
     public Node createNode(String id, String name) {
         Node n = new Node(id, name);
         nodes.add(n);
+        /* keep the first node if an id is used twice */
+        if(!nodeIndex.containsKey(id))
+            nodeIndex.put(id, n);
         return n;
     }
 
     public Node getNodeWithID(String id) {
-        for(Node n : nodes) {
-            if(n.getId().equals(id))
-                return n;
-        }
-        return null;
+        return nodeIndex.get(id);
     }
 
     public String getAuthor() {
@@ -108,6 +110,7 @@ public class Document {
 
     public Document() {
         nodes = new HashSet<Node>();
+        nodeIndex = new HashMap<String, Node>();
         busses = new HashSet<BusDescription>();
     }
 
@@ -0,0 +1,134 @@
+/**
+ * 	This file is part of Kayak.
+ *
+ *	Kayak is free software: you can redistribute it and/or modify
+ *	it under the terms of the GNU Lesser General Public License as published by
+ *	the Free Software Foundation, either version 3 of the License, or
+ *	(at your option) any later version.
+ *
+ *	Kayak is distributed in the hope that it will be useful,
+ *	but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *	GNU General Public License for more details.
+ *
+ *	You should have received a copy of the GNU Lesser General Public License
+ *	along with Kayak.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.kayak.core.description;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * A LabelLookup is compiled once from the labels of a signal and resolves
+ * the labels that match a raw value without iterating over all labels.
+ * The value range is split into segments in which the same labels match.
+ * Small value ranges are resolved through a direct table, larger ones with
+ * a binary search over the segment starts. The returned sets are shared
+ * and immutable.
+ * @author Jan-Niklas Meier <dschanoeh@googlemail.com>
+ */
+final class LabelLookup {
+
+    /* value ranges up to this size are resolved through a direct table */
+    private static final int MAX_DIRECT_RANGE = 1024;
+
+    private final long[] starts;
+    private final Set<String>[] segments;
+    private final long directStart;
+    private final Set<String>[] direct;
+
+    public LabelLookup(Collection<Label> labels) {
+        TreeSet<Long> boundaries = new TreeSet<Long>();
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+
+        for(Label l : labels) {
+            if(l.getStart() > l.getStop())
+                continue;
+
+            boundaries.add(l.getStart());
+            if(l.getStop() != Long.MAX_VALUE)
+                boundaries.add(l.getStop() + 1);
+
+            min = Math.min(min, l.getStart());
+            max = Math.max(max, l.getStop());
+        }
+
+        starts = new long[boundaries.size()];
+        segments = newSetArray(boundaries.size());
+
+        /* segments with the same labels share one set */
+        Map<List<String>, Set<String>> shared = new HashMap<List<String>, Set<String>>();
+        int i = 0;
+        for(long start : boundaries) {
+            List<String> matching = new ArrayList<String>();
+            for(Label l : labels) {
+                if(l.isInRange(start) && !matching.contains(l.getLabel()))
+                    matching.add(l.getLabel());
+            }
+
+            Set<String> set = shared.get(matching);
+            if(set == null) {
+                set = matching.isEmpty() ? Collections.<String>emptySet()
+                        : Collections.unmodifiableSet(new LinkedHashSet<String>(matching));
+                shared.put(matching, set);
+            }
+
+            starts[i] = start;
+            segments[i] = set;
+            i++;
+        }
+
+        if(starts.length > 0 && max - min >= 0 && max - min < MAX_DIRECT_RANGE) {
+            directStart = min;
+            direct = newSetArray((int) (max - min + 1));
+            for(int j=0;j<direct.length;j++) {
+                direct[j] = search(min + j);
+            }
+        } else {
+            directStart = 0;
+            direct = null;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Set<String>[] newSetArray(int length) {
+        return (Set<String>[]) new Set<?>[length];
+    }
+
+    private Set<String> search(long rawValue) {
+        int i = Arrays.binarySearch(starts, rawValue);
+        if(i < 0)
+            i = -i - 2;
+
+        if(i < 0)
+            return Collections.<String>emptySet();
+
+        return segments[i];
+    }
+
+    /**
+     * Returns the labels that match the raw value. The set must not be
+     * modified.
+     */
+    public Set<String> get(long rawValue) {
+        if(direct != null) {
+            long i = rawValue - directStart;
+            if(i >= 0 && i < direct.length)
+                return direct[(int) i];
+            return Collections.<String>emptySet();
+        }
+
+        return search(rawValue);
+    }
+}
@@ -1,148 +1,219 @@
-/**
- * 	This file is part of Kayak.
- *
- *	Kayak is free software: you can redistribute it and/or modify
- *	it under the terms of the GNU Lesser General Public License as published by
- *	the Free Software Foundation, either version 3 of the License, or
- *	(at your option) any later version.
- *
- *	Kayak is distributed in the hope that it will be useful,
- *	but WITHOUT ANY WARRANTY; without even the implied warranty of
- *	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
- *	GNU General Public License for more details.
- *
- *	You should have received a copy of the GNU Lesser General Public License
- *	along with Kayak.  If not, see <http://www.gnu.org/licenses/>.
- *
- */
-
-package com.github.kayak.core.description;
-
-import com.github.kayak.core.Frame;
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.HashSet;
-import java.util.Set;
-
-/**
- *
- * @author Jan-Niklas Meier < dschanoeh@googlemail.com >
- */
-public class MessageDescription {
-
-    public static final Comparator<MessageDescription> nameComparator = new Comparator<MessageDescription>() {
-
-        @Override
-        public int compare(MessageDescription o1, MessageDescription o2) {
-            return o1.getName().compareTo(o2.getName());
-        }
-    };
-
-    private int id;
-    private boolean extended;
-    private int interval;
-    private String name;
-    private Node producer;
-    private final Set<SignalDescription> signals = Collections.synchronizedSet(new HashSet<SignalDescription>());
-    private final Set<MultiplexDescription> multiplexes = Collections.synchronizedSet(new HashSet<MultiplexDescription>());
-
-    public Node getProducer() {
-        return producer;
-    }
-
-    public void setProducer(Node producer) {
-        this.producer = producer;
-    }
-
-    public int getId() {
-        return id;
-    }
-
-    public boolean isExtended() {
-        return extended;
-    }
-
-    public int getInterval() {
-        return interval;
-    }
-
-    public void setInterval(int interval) {
-        this.interval = interval;
-    }
-
-    public String getName() {
-        return name;
-    }
-
-    public void setName(String name) {
-        this.name = name;
-    }
-
-    public Set<SignalDescription> getSignals() {
-        return Collections.unmodifiableSet(signals);
-    }
-
-    public Set<MultiplexDescription> getMultiplexes() {
-        return Collections.unmodifiableSet(multiplexes);
-    }
-
-    public void addMultiplex(MultiplexDescription m) {
-        synchronized(multiplexes) {
-            multiplexes.add(m);
-        }
-    }
-
-    public void addSignal(SignalDescription s) {
-        synchronized(signals) {
-            signals.add(s);
-        }
-    }
-
-    public MessageDescription(int id, boolean extended) {
-        this.id = id;
-        this.extended = extended;
-    }
-
-    public Message decodeFrame(Frame f) throws DescriptionException {
-
-        if(f.isExtended() != extended || f.getIdentifier() != id)
-            return null;
-
-        Message m = new Message();
-        m.setId(id);
-        m.setInterval(interval);
-        m.setName(name);
-        if(producer!=null)
-            m.setProducer(producer.getName());
-
-        byte[] data = f.getData();
-        HashSet<Signal> sig = new HashSet<Signal>();
-
-        for(SignalDescription s : signals) {
-            Signal signal = s.decodeData(data);
-            if(s != null)
-                sig.add(signal);
-        }
-
-        for(MultiplexDescription mul : multiplexes) {
-            sig.addAll(mul.decodeData(data));
-        }
-
-        m.setSignals(sig);
-
-        return m;
-    }
-
-    public SignalDescription createSignalDescription() {
-        SignalDescription s = new SignalDescription(this);
-        signals.add(s);
-        return s;
-    }
-
-    public MultiplexDescription createMultiplexDescription() {
-        MultiplexDescription m = new MultiplexDescription(this);
-        multiplexes.add(m);
-        return m;
-    }
-
-}
+/**
+ * 	This file is part of Kayak.
+ *
+ *	Kayak is free software: you can redistribute it and/or modify
+ *	it under the terms of the GNU Lesser General Public License as published by
+ *	the Free Software Foundation, either version 3 of the License, or
+ *	(at your option) any later version.
+ *
+ *	Kayak is distributed in the hope that it will be useful,
+ *	but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *	GNU General Public License for more details.
+ *
+ *	You should have received a copy of the GNU Lesser General Public License
+ *	along with Kayak.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.github.kayak.core.description;
+
+import com.github.kayak.core.Frame;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ *
+ * @author Jan-Niklas Meier < dschanoeh@googlemail.com >
+ */
+public class MessageDescription {
+
+    public static final Comparator<MessageDescription> nameComparator = new Comparator<MessageDescription>() {
+
+        @Override
+        public int compare(MessageDescription o1, MessageDescription o2) {
+            return o1.getName().compareTo(o2.getName());
+        }
+    };
+
+    private int id;
+    private boolean extended;
+    private int interval;
+    private String name;
+    private Node producer;
+    private final Set<SignalDescription> signals = Collections.synchronizedSet(new HashSet<SignalDescription>());
+    private final Set<MultiplexDescription> multiplexes = Collections.synchronizedSet(new HashSet<MultiplexDescription>());
+    /* All signals including multiplexed ones in the order of their index */
+    private volatile SignalDescription[] indexedSignals = new SignalDescription[0];
+    /* Arrays of signals and multiplexes for decoding without iterators */
+    private volatile SignalDescription[] signalArray = new SignalDescription[0];
+    private volatile MultiplexDescription[] multiplexArray = new MultiplexDescription[0];
+
+    public Node getProducer() {
+        return producer;
+    }
+
+    public void setProducer(Node producer) {
+        this.producer = producer;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public boolean isExtended() {
+        return extended;
+    }
+
+    public int getInterval() {
+        return interval;
+    }
+
+    public void setInterval(int interval) {
+        this.interval = interval;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public Set<SignalDescription> getSignals() {
+        return Collections.unmodifiableSet(signals);
+    }
+
+    public Set<MultiplexDescription> getMultiplexes() {
+        return Collections.unmodifiableSet(multiplexes);
+    }
+
+    public void addMultiplex(MultiplexDescription m) {
+        synchronized(multiplexes) {
+            multiplexes.add(m);
+            multiplexArray = multiplexes.toArray(new MultiplexDescription[multiplexes.size()]);
+        }
+    }
+
+    public void addSignal(SignalDescription s) {
+        synchronized(signals) {
+            signals.add(s);
+            signalArray = signals.toArray(new SignalDescription[signals.size()]);
+        }
+        registerSignal(s);
+    }
+
+    /**
+     * Assigns the next free index to a signal of this message. Multiplexed
+     * signals are registered by their {@link MultiplexDescription}.
+     */
+    synchronized void registerSignal(SignalDescription s) {
+        if(s.getIndex() >= 0)
+            return;
+
+        SignalDescription[] signals = Arrays.copyOf(indexedSignals, indexedSignals.length + 1);
+        signals[signals.length - 1] = s;
+        s.setIndex(signals.length - 1);
+        indexedSignals = signals;
+    }
+
+    /**
+     * Returns the number of signals including all multiplexed signals. The
+     * signal indices range from 0 to this number - 1.
+     */
+    public int getSignalCount() {
+        return indexedSignals.length;
+    }
+
+    /**
+     * Returns the signal with the given index.
+     * @see SignalDescription#getIndex()
+     */
+    public SignalDescription getSignalDescription(int index) {
+        return indexedSignals[index];
+    }
+
+    public MessageDescription(int id, boolean extended) {
+        this.id = id;
+        this.extended = extended;
+    }
+
+    public Message decodeFrame(Frame f) throws DescriptionException {
+
+        if(f.isExtended() != extended || f.getIdentifier() != id)
+            return null;
+
+        Message m = new Message();
+        m.setId(id);
+        m.setInterval(interval);
+        m.setName(name);
+        if(producer!=null)
+            m.setProducer(producer.getName());
+
+        final HashSet<Signal> sig = new HashSet<Signal>();
+
+        decodeData(f.getData(), new SignalSink() {
+
+            @Override
+            public void signalDecoded(int index, long rawValue, double value) {
+                SignalDescription description = getSignalDescription(index);
+                Signal signal = description.createSignal(rawValue, value);
+                signal.setMultiplexed(description.isMultiplexed());
+                sig.add(signal);
+            }
+        });
+
+        m.setSignals(sig);
+
+        return m;
+    }
+
+    /**
+     * Decodes a frame without creating objects for the signals. Every
+     * signal is handed to the sink.
+     * @return false if the frame does not belong to this message
+     */
+    public boolean decodeFrame(Frame f, SignalSink sink) throws DescriptionException {
+        if(f.isExtended() != extended || f.getIdentifier() != id)
+            return false;
+
+        decodeData(f.getData(), sink);
+        return true;
+    }
+
+    /**
+     * Decodes the payload of a frame without checking the identifier. The
+     * payload is loaded once and shared by all signals.
+     */
+    public void decodeData(byte[] data, SignalSink sink) throws DescriptionException {
+        long littleEndian = SignalExtractor.loadLittleEndian(data);
+        long bigEndian = SignalExtractor.loadBigEndian(data);
+
+        SignalDescription[] s = signalArray;
+        for(int i=0;i<s.length;i++) {
+            s[i].decodeData(data, littleEndian, bigEndian, sink);
+        }
+
+        MultiplexDescription[] m = multiplexArray;
+        for(int i=0;i<m.length;i++) {
+            m[i].decodeData(data, littleEndian, bigEndian, sink);
+        }
+    }
+
+    public SignalDescription createSignalDescription() {
+        SignalDescription s = new SignalDescription(this);
+        addSignal(s);
+        return s;
+    }
+
+    public MultiplexDescription createMultiplexDescription() {
+        MultiplexDescription m = new MultiplexDescription(this);
+        addMultiplex(m);
+        return m;
+    }
+
+}
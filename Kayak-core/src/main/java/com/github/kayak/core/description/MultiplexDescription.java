@@ -18,6 +18,7 @@
 package com.github.kayak.core.description;
 
 import java.nio.ByteOrder;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -31,6 +32,9 @@ import java.util.Set;
  */
 public class MultiplexDescription  {
 
+    /* multiplexors up to this length are resolved through a direct table */
+    private static final int MAX_DIRECT_LENGTH = 12;
+
     private final Map<Long, Set<SignalDescription>> signals = Collections.synchronizedMap(new HashMap<Long, Set<SignalDescription>>());
 
     private int length;
@@ -39,6 +43,47 @@ public class MultiplexDescription  {
     private String name;
     private MessageDescription description;
     private SignalDescription.Type type;
+    /* compiled from offset, length and byte order on first use */
+    private volatile SignalExtractor extractor;
+    /* compiled on first use, dropped whenever a signal is added or the
+     * length changes */
+    private volatile Lookup lookup;
+
+    /**
+     * Maps multiplex values to their signals without boxing the value.
+     * Short multiplexors index a table with one slot per possible value,
+     * longer ones use a binary search over the sorted values.
+     */
+    private static class Lookup {
+
+        private final SignalDescription[][] direct;
+        private final long[] values;
+        private final SignalDescription[][] signals;
+
+        public Lookup(long[] values, SignalDescription[][] signals, int length) {
+            if(length > 0 && length <= MAX_DIRECT_LENGTH) {
+                direct = new SignalDescription[1 << length][];
+                for(int i=0;i<values.length;i++) {
+                    if(values[i] >= 0 && values[i] < direct.length)
+                        direct[(int) values[i]] = signals[i];
+                }
+                this.values = null;
+                this.signals = null;
+            } else {
+                direct = null;
+                this.values = values;
+                this.signals = signals;
+            }
+        }
+
+        public SignalDescription[] get(long value) {
+            if(direct != null)
+                return value >= 0 && value < direct.length ? direct[(int) value] : null;
+
+            int i = Arrays.binarySearch(values, value);
+            return i < 0 ? null : signals[i];
+        }
+    }
 
     public String getName() {
         return name;
@@ -54,6 +99,7 @@ public class MultiplexDescription  {
 
     public void setByteOrder(ByteOrder byteOrder) {
         this.byteOrder = byteOrder;
+        extractor = null;
     }
 
     public int getLength() {
@@ -62,6 +108,8 @@ public class MultiplexDescription  {
 
     public void setLength(int length) {
         this.length = length;
+        extractor = null;
+        lookup = null;
     }
 
     public int getOffset() {
@@ -70,6 +118,7 @@ public class MultiplexDescription  {
 
     public void setOffset(int offset) {
         this.offset = offset;
+        extractor = null;
     }
     
      public SignalDescription.Type getType() {
@@ -98,6 +147,19 @@ public class MultiplexDescription  {
         }
     }
 
+    /**
+     * Returns the extractor for the current position of the multiplex
+     * field.
+     */
+    SignalExtractor getExtractor() {
+        SignalExtractor e = extractor;
+        if(e == null) {
+            e = new SignalExtractor(offset, length, byteOrder);
+            extractor = e;
+        }
+        return e;
+    }
+
     protected MultiplexDescription(MessageDescription description) {
         this.description = description;
     }
@@ -109,16 +171,22 @@ public class MultiplexDescription  {
      * @return
      */
     public Set<Signal> decodeData(byte[] data) throws DescriptionException {
-        long rawValue = SignalDescription.extractBits(data, getOffset(), getLength(), getByteOrder());
+        long rawValue = getExtractor().extract(data);
 
-        Set<SignalDescription> signalDescriptions = signals.get(rawValue);
+        SignalDescription[] selected = getLookup().get(rawValue);
 
-        if(signalDescriptions == null)
+        if(selected == null)
             return null;
 
+        boolean signed = type == SignalDescription.Type.SIGNED;
         Set<Signal> si = new HashSet<Signal>();
-        for(SignalDescription s : signalDescriptions) {
-            Signal signal = s.decodeData(data);
+        for(int i=0;i<selected.length;i++) {
+            SignalDescription s = selected[i];
+            if(signed && !s.matchesMultiplex(rawValue))
+                continue;
+
+            long value = s.getExtractor().extract(data);
+            Signal signal = s.createSignal(value, s.calculateValue(value));
             signal.setMultiplexed(true);
             si.add(signal);
         }
@@ -126,16 +194,85 @@ public class MultiplexDescription  {
         return si;
     }
 
+    /**
+     * Decode the signals that are selected by the multiplex value and hand
+     * them to the sink.
+     */
+    public void decodeData(byte[] data, SignalSink sink) throws DescriptionException {
+        decodeData(data, SignalExtractor.loadLittleEndian(data), SignalExtractor.loadBigEndian(data), sink);
+    }
+
+    void decodeData(byte[] data, long littleEndian, long bigEndian, SignalSink sink) throws DescriptionException {
+        long rawValue = getExtractor().extract(data, littleEndian, bigEndian);
+
+        SignalDescription[] selected = getLookup().get(rawValue);
+        if(selected == null)
+            return;
+
+        /* Every signal in the slot has the extracted value as multiplex
+         * count. Only signed multiplexors need the sign aware comparison */
+        if(type == SignalDescription.Type.SIGNED) {
+            for(int i=0;i<selected.length;i++) {
+                SignalDescription s = selected[i];
+                if(s.matchesMultiplex(rawValue))
+                    s.decodeData(data, littleEndian, bigEndian, sink);
+            }
+        } else {
+            for(int i=0;i<selected.length;i++) {
+                selected[i].decodeData(data, littleEndian, bigEndian, sink);
+            }
+        }
+    }
+
+    private Lookup getLookup() {
+        Lookup l = lookup;
+        if(l == null) {
+            synchronized(signals) {
+                if(lookup == null)
+                    lookup = buildLookup();
+                l = lookup;
+            }
+        }
+        return l;
+    }
+
+    /**
+     * Must be called while holding the lock of signals.
+     */
+    private Lookup buildLookup() {
+        long[] values = new long[signals.size()];
+        int i = 0;
+        for(long value : signals.keySet()) {
+            values[i++] = value;
+        }
+        Arrays.sort(values);
+
+        SignalDescription[][] selected = new SignalDescription[values.length][];
+        for(i=0;i<values.length;i++) {
+            selected[i] = signals.get(values[i]).toArray(new SignalDescription[0]);
+        }
+
+        return new Lookup(values, selected, length);
+    }
+
     public SignalDescription createMultiplexedSignal(long count) {
         SignalDescription s = new SignalDescription(this, description, count);
-        Set<SignalDescription> descriptions = signals.get(count);
 
-        if(descriptions == null) {
-            descriptions = new HashSet<SignalDescription>();
-            signals.put(count, descriptions);
+        synchronized(signals) {
+            Set<SignalDescription> descriptions = signals.get(count);
+
+            if(descriptions == null) {
+                descriptions = new HashSet<SignalDescription>();
+                signals.put(count, descriptions);
+            }
+
+            descriptions.add(s);
+            lookup = null;
         }
 
-        descriptions.add(s);
+        if(description != null)
+            description.registerSignal(s);
+
         return s;
     }
     
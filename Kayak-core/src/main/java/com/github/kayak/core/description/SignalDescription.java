@@ -21,6 +21,7 @@ import java.nio.ByteOrder;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Set;
 
 /**
@@ -50,7 +51,7 @@ public class SignalDescription {
     private String notes;
     private String name;
     private Type type;
-    private Set<Label> labels = new HashSet<Label>();
+    private Set<Label> labels = new LinkedHashSet<Label>();
     private Set<Node> consumers = new HashSet<Node>();
     private ByteOrder byteOrder;
     private Object parent;
@@ -58,9 +59,44 @@ public class SignalDescription {
     private MultiplexDescription multiplexDescription;
     private MessageDescription description;
     private long multiplexCount;
+    /* compiled from offset, length and byte order on first use */
+    private volatile SignalExtractor extractor;
+    /* compiled from the labels on first use */
+    private volatile LabelLookup labelLookup;
+    private int index = -1;
 
-    public void addLabel(Label l) {
+    public synchronized void addLabel(Label l) {
         labels.add(l);
+        labelLookup = null;
+    }
+
+    /**
+     * Returns the labels that match the raw value. The returned set is
+     * shared between all values with the same labels and can not be
+     * modified.
+     */
+    public Set<String> getLabels(long rawValue) {
+        LabelLookup l = labelLookup;
+        if(l == null) {
+            synchronized(this) {
+                if(labelLookup == null)
+                    labelLookup = new LabelLookup(labels);
+                l = labelLookup;
+            }
+        }
+        return l.get(rawValue);
+    }
+
+    /**
+     * Returns the index of the signal within its {@link MessageDescription}
+     * or -1 if the signal does not belong to a message.
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    void setIndex(int index) {
+        this.index = index;
     }
 
     public Set<Label> getAllLabels() {
@@ -105,6 +141,7 @@ public class SignalDescription {
 
     public void setByteOrder(ByteOrder byteOrder) {
         this.byteOrder = byteOrder;
+        extractor = null;
     }
 
     public int getLength() {
@@ -113,6 +150,7 @@ public class SignalDescription {
 
     public void setLength(int length) {
         this.length = length;
+        extractor = null;
     }
 
     public String getName() {
@@ -129,6 +167,7 @@ public class SignalDescription {
 
     public void setOffset(int offset) {
         this.offset = offset;
+        extractor = null;
     }
 
     public Type getType() {
@@ -198,6 +237,19 @@ public class SignalDescription {
         this.multiplexCount = multiplexCount;
     }
 
+    /**
+     * Returns the extractor for the current position of the signal. The
+     * extractor is compiled again after the position was changed.
+     */
+    SignalExtractor getExtractor() {
+        SignalExtractor e = extractor;
+        if(e == null) {
+            e = new SignalExtractor(offset, length, byteOrder);
+            extractor = e;
+        }
+        return e;
+    }
+
     /**
      * Decode the binary data according to the signal information in this
      * description. may return null if this is a multiplexed signal and the
@@ -208,57 +260,76 @@ public class SignalDescription {
     public Signal decodeData(byte[] data) throws DescriptionException {
 
         if(multiplexed) {
-            long rawValue = SignalDescription.extractBits(data, multiplexDescription.getOffset(), multiplexDescription.getLength(), multiplexDescription.getByteOrder());
+            long rawValue = multiplexDescription.getExtractor().extract(data);
 
-            if(multiplexDescription.getType() == Type.SIGNED) {
-                long signBit = (long) (1L << ((long) length - 1L));
-                rawValue = rawValue - ((rawValue & signBit) << 1);
-            }
-            
-            if(rawValue != multiplexCount)
+            if(!matchesMultiplex(rawValue))
                 return null;
         }
 
-        Signal signal = new Signal();
-        signal.setUnit(unit);
-        signal.setNotes(notes);
-        signal.setDescription(this);
-
         /* read raw value */
-        long rawValue = extractBits(data, offset, length, byteOrder);
+        long rawValue = getExtractor().extract(data);
 
-        signal.setRawValue(rawValue);
+        return createSignal(rawValue, calculateValue(rawValue));
+    }
+
+    /**
+     * Decode the signal from payload words that were loaded once for all
+     * signals of a frame and hand the result to the sink.
+     */
+    void decodeData(byte[] data, long littleEndian, long bigEndian, SignalSink sink) throws DescriptionException {
+        long rawValue = getExtractor().extract(data, littleEndian, bigEndian);
+        sink.signalDecoded(index, rawValue, calculateValue(rawValue));
+    }
+
+    /**
+     * Checks if the raw value of the multiplex field selects this signal.
+     */
+    boolean matchesMultiplex(long rawValue) {
+        if(multiplexDescription.getType() == Type.SIGNED) {
+            long signBit = (long) (1L << ((long) length - 1L));
+            rawValue = rawValue - ((rawValue & signBit) << 1);
+        }
 
+        return rawValue == multiplexCount;
+    }
+
+    /**
+     * Converts a raw value to the physical value according to type, slope
+     * and intercept.
+     */
+    double calculateValue(long rawValue) {
         switch(type) {
             case SIGNED:
                 long signBit = (long) (1L << ((long) length - 1L));
                 long signedRawValue = rawValue - ((rawValue & signBit) << 1);
-                double signedValue = (double) signedRawValue * slope + intercept;
-                signal.setValue(signedValue);
-                break;
+                return (double) signedRawValue * slope + intercept;
             case UNSIGNED:
-                double unsignedValue = (double) rawValue * slope +  intercept;
-                signal.setValue(unsignedValue);
-                break;
+                return (double) rawValue * slope +  intercept;
             case SINGLE:
                 float floatValue = (float) rawValue * (float) slope + (float) intercept;
-                signal.setValue((double) floatValue);
-                break;
+                return (double) floatValue;
             case DOUBLE:
-                double doubleValue = (double) rawValue * slope + intercept;
-                signal.setValue(doubleValue);
-                break;
+                return (double) rawValue * slope + intercept;
+            default:
+                return 0;
         }
+    }
+
+    /**
+     * Creates a {@link Signal} for a decoded value including all labels
+     * that match the raw value.
+     */
+    public Signal createSignal(long rawValue, double value) {
+        Signal signal = new Signal();
+        signal.setUnit(unit);
+        signal.setNotes(notes);
+        signal.setDescription(this);
+        signal.setRawValue(rawValue);
+        signal.setValue(value);
 
         /* find all labels that match for the current raw value */
-        if(!labels.isEmpty()) {
-            Set<String> matchingLabels = new HashSet<String>();
-            for(Label l : labels) {
-                if(l.isInRange(rawValue))
-                    matchingLabels.add(l.getLabel());
-            }
-            signal.setLabels(matchingLabels);
-        }
+        if(!labels.isEmpty())
+            signal.setLabels(getLabels(rawValue));
 
         return signal;
     }
@@ -269,7 +340,8 @@ public class SignalDescription {
      * There are two issues with this approach. First we can not handle values that are
      * wider than 2^63bit (because long is signed). This is possibly rarely used but
      * nevertheless should be somehow fixed. Second the performance could be poor
-     * because calculation is done bitwise.
+     * because calculation is done bitwise. Decoding uses a {@link SignalExtractor}
+     * that produces the same results with word operations.
      * @param data The byte array to work with
      * @param offset The first bit to be extracted
      * @param length The number of bits that have to be extracted
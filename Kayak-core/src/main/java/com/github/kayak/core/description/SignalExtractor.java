@@ -0,0 +1,199 @@
+/**
+ * 	This file is part of Kayak.
+ *
+ *	Kayak is free software: you can redistribute it and/or modify
+ *	it under the terms of the GNU Lesser General Public License as published by
+ *	the Free Software Foundation, either version 3 of the License, or
+ *	(at your option) any later version.
+ *
+ *	Kayak is distributed in the hope that it will be useful,
+ *	but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *	GNU General Public License for more details.
+ *
+ *	You should have received a copy of the GNU Lesser General Public License
+ *	along with Kayak.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.kayak.core.description;
+
+import java.nio.ByteOrder;
+
+/**
+ * A SignalExtractor is compiled once for the position of a signal and
+ * extracts its raw value from the payload with a single load, shift and
+ * mask instead of walking the payload bit by bit. The result is identical
+ * to {@link SignalDescription#extractBits(byte[], int, int, java.nio.ByteOrder)}.
+ * Signals that do not fit into the first 8 bytes of the payload are
+ * extracted with the bitwise implementation.
+ * @author Jan-Niklas Meier <dschanoeh@googlemail.com>
+ */
+final class SignalExtractor {
+
+    private final int offset;
+    private final int length;
+    private final ByteOrder order;
+    private final boolean bigEndian;
+    /* minimum number of payload bytes */
+    private final int requiredBytes;
+    /* true if the signal can be extracted from a single 64 bit word */
+    private final boolean word;
+    /* true if the signal has 32 bits or more (see emulateIntShift) */
+    private final boolean wide;
+    private final int shift;
+    private final long mask;
+
+    public SignalExtractor(int offset, int length, ByteOrder order) {
+        this.offset = offset;
+        this.length = length;
+        this.order = order;
+        this.bigEndian = order != ByteOrder.LITTLE_ENDIAN;
+        this.requiredBytes = (offset + length + 7) / 8;
+        this.word = offset >= 0 && length >= 0 && offset + length <= 64;
+        this.wide = length >= 32;
+
+        if(word) {
+            shift = bigEndian ? 64 - offset - length : offset;
+            mask = length == 64 ? -1L : (1L << length) - 1;
+        } else {
+            shift = 0;
+            mask = 0;
+        }
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    public ByteOrder getByteOrder() {
+        return order;
+    }
+
+    public boolean isBigEndian() {
+        return bigEndian;
+    }
+
+    /**
+     * Returns true if the value can be extracted with
+     * {@link #extract(long, long)} from the preloaded payload words.
+     */
+    public boolean isWordAligned() {
+        return word;
+    }
+
+    /**
+     * Returns the bits of the payload word (little endian or big endian
+     * depending on the byte order) that the value is extracted from. Only
+     * valid if {@link #isWordAligned()}.
+     */
+    public long getWordMask() {
+        return mask << shift;
+    }
+
+    /**
+     * Returns the minimum number of payload bytes that are needed.
+     */
+    public int getRequiredBytes() {
+        return requiredBytes;
+    }
+
+    /**
+     * Extracts the raw value from the payload.
+     * @throws DescriptionException if the payload is too short
+     */
+    public long extract(byte[] data) throws DescriptionException {
+        if(!word)
+            return SignalDescription.extractBits(data, offset, length, order);
+
+        if(data.length < requiredBytes)
+            throw new DescriptionException(DescriptionException.Cause.FRAME_LENGTH);
+
+        return fromWord(bigEndian ? loadBigEndian(data) : loadLittleEndian(data));
+    }
+
+    /**
+     * Extracts the raw value from payload words that were loaded with
+     * {@link #loadLittleEndian(byte[])} and {@link #loadBigEndian(byte[])}.
+     * The caller has to check the payload length and
+     * {@link #isWordAligned()}.
+     */
+    public long extract(long littleEndian, long bigEndian) {
+        return fromWord(this.bigEndian ? bigEndian : littleEndian);
+    }
+
+    /**
+     * Extracts the raw value from the preloaded payload words if possible
+     * and from the payload otherwise.
+     * @throws DescriptionException if the payload is too short
+     */
+    public long extract(byte[] data, long littleEndian, long bigEndian) throws DescriptionException {
+        if(word && data.length >= requiredBytes)
+            return fromWord(this.bigEndian ? bigEndian : littleEndian);
+
+        return extract(data);
+    }
+
+    private long fromWord(long word) {
+        long value = (word >>> shift) & mask;
+        return wide ? emulateIntShift(value) : value;
+    }
+
+    /**
+     * The bitwise extraction shifts every bit as an int. Bit 31 and bit 63
+     * are therefore sign extended and bits 32 to 63 end up at position 0
+     * to 31. Signals with less than 32 bits are not affected.
+     */
+    private static long emulateIntShift(long value) {
+        return (long) (int) value | (long) (int) (value >>> 32);
+    }
+
+    /**
+     * Loads the first 8 bytes of the payload with byte 0 in the least
+     * significant bits. Missing bytes are zero.
+     */
+    public static long loadLittleEndian(byte[] data) {
+        if(data.length >= 8) {
+            return (data[0] & 0xFFL)
+                    | (data[1] & 0xFFL) << 8
+                    | (data[2] & 0xFFL) << 16
+                    | (data[3] & 0xFFL) << 24
+                    | (data[4] & 0xFFL) << 32
+                    | (data[5] & 0xFFL) << 40
+                    | (data[6] & 0xFFL) << 48
+                    | (data[7] & 0xFFL) << 56;
+        }
+
+        long value = 0;
+        for(int i=data.length-1;i>=0;i--) {
+            value = (value << 8) | (data[i] & 0xFFL);
+        }
+        return value;
+    }
+
+    /**
+     * Loads the first 8 bytes of the payload with byte 0 in the most
+     * significant bits. Missing bytes are zero.
+     */
+    public static long loadBigEndian(byte[] data) {
+        if(data.length >= 8) {
+            return (data[0] & 0xFFL) << 56
+                    | (data[1] & 0xFFL) << 48
+                    | (data[2] & 0xFFL) << 40
+                    | (data[3] & 0xFFL) << 32
+                    | (data[4] & 0xFFL) << 24
+                    | (data[5] & 0xFFL) << 16
+                    | (data[6] & 0xFFL) << 8
+                    | (data[7] & 0xFFL);
+        }
+
+        long value = 0;
+        for(int i=0;i<data.length;i++) {
+            value |= (data[i] & 0xFFL) << (56 - 8 * i);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,39 @@
+/**
+ * 	This file is part of Kayak.
+ *
+ *	Kayak is free software: you can redistribute it and/or modify
+ *	it under the terms of the GNU Lesser General Public License as published by
+ *	the Free Software Foundation, either version 3 of the License, or
+ *	(at your option) any later version.
+ *
+ *	Kayak is distributed in the hope that it will be useful,
+ *	but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *	GNU General Public License for more details.
+ *
+ *	You should have received a copy of the GNU Lesser General Public License
+ *	along with Kayak.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.kayak.core.description;
+
+/**
+ * Receives the signals of a message while it is decoded with
+ * {@link MessageDescription#decodeFrame(com.github.kayak.core.Frame, SignalSink)}.
+ * No objects are created for the decoded signals. The index identifies the
+ * {@link SignalDescription} within its message and does not change (see
+ * {@link MessageDescription#getSignalDescription(int)}). A {@link DecodePlan}
+ * uses the position of the signal in the plan instead.
+ * @author Jan-Niklas Meier <dschanoeh@googlemail.com>
+ */
+public interface SignalSink {
+
+    /**
+     * Called for every signal that is present in the decoded frame.
+     * Multiplexed signals are only reported if the multiplex value matches.
+     * @param index index of the signal in the message or plan
+     * @param rawValue the extracted raw value
+     * @param value the raw value after applying slope and intercept
+     */
+    public void signalDecoded(int index, long rawValue, double value);
+}
@@ -0,0 +1,180 @@
+/**
+ * 	This file is part of Kayak.
+ *
+ *	Kayak is free software: you can redistribute it and/or modify
+ *	it under the terms of the GNU Lesser General Public License as published by
+ *	the Free Software Foundation, either version 3 of the License, or
+ *	(at your option) any later version.
+ *
+ *	Kayak is distributed in the hope that it will be useful,
+ *	but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *	GNU General Public License for more details.
+ *
+ *	You should have received a copy of the GNU Lesser General Public License
+ *	along with Kayak.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.kayak.core;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Jan-Niklas Meier < dschanoeh@googlemail.com >
+ */
+public class BinaryLogReaderTest {
+
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("binarylog", BinaryLogWriter.EXTENSION);
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    private BinaryLogWriter createWriter() throws IOException {
+        Map<String, String> aliases = new LinkedHashMap<String, String>();
+        aliases.put("can0", "Body");
+        aliases.put("can1", "Chassis");
+        return new BinaryLogWriter(new FileOutputStream(file), "TEST", "A test", aliases);
+    }
+
+    @Test
+    public void testHeader() throws IOException {
+        System.out.println("testHeader");
+        createWriter().close();
+
+        BinaryLogReader reader = new BinaryLogReader(file);
+        assertEquals("TEST", reader.getPlatform());
+        assertEquals("A test", reader.getDescription());
+        assertEquals("Body", reader.getDeviceAliases().get("can0"));
+        assertEquals("Chassis", reader.getDeviceAliases().get("can1"));
+        assertFalse(reader.next());
+        reader.close();
+    }
+
+    @Test
+    public void testRecords() throws IOException {
+        System.out.println("testRecords");
+        BinaryLogWriter writer = createWriter();
+        writer.write(new Frame(0x123, false, new byte[] {1, 2, 3}, 1000000L), "can0");
+        writer.write(new Frame(0x1ABCDEF0, true, new byte[] {(byte) 0xFF}, 1000500L), "can1");
+        writer.writeEvent(1000700L, null, "Marker");
+        /* timestamps that go back are allowed */
+        writer.write(new Frame(0x7FF, false, new byte[0], 900000L), "can0");
+        writer.close();
+
+        BinaryLogReader reader = new BinaryLogReader(file);
+
+        assertTrue(reader.next());
+        assertFalse(reader.isEvent());
+        assertEquals(1000000L, reader.getTimestamp());
+        assertEquals("can0", reader.getBusName());
+        assertEquals(0x123, reader.getIdentifier());
+        assertFalse(reader.isExtended());
+        assertArrayEquals(new byte[] {1, 2, 3}, reader.getData());
+
+        assertTrue(reader.next());
+        assertEquals(1000500L, reader.getTimestamp());
+        assertEquals("can1", reader.getBusName());
+        assertEquals(0x1ABCDEF0, reader.getIdentifier());
+        assertTrue(reader.isExtended());
+        assertArrayEquals(new byte[] {(byte) 0xFF}, reader.getData());
+
+        assertTrue(reader.next());
+        assertTrue(reader.isEvent());
+        assertEquals(1000700L, reader.getTimestamp());
+        assertNull(reader.getBusName());
+        assertEquals("Marker", reader.getMessage());
+
+        assertTrue(reader.next());
+        assertEquals(900000L, reader.getTimestamp());
+        assertEquals(0x7FF, reader.getIdentifier());
+        assertEquals(0, reader.getData().length);
+
+        assertFalse(reader.next());
+        reader.close();
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testUnknownBus() throws IOException {
+        System.out.println("testUnknownBus");
+        BinaryLogWriter writer = createWriter();
+        try {
+            writer.write(new Frame(0x123, false, new byte[0]), "can2");
+        } finally {
+            writer.close();
+        }
+    }
+
+    @Test
+    public void testSeekToSync() throws IOException {
+        System.out.println("testSeekToSync");
+        BinaryLogWriter writer = createWriter();
+        for(int i=0;i<30;i++) {
+            writer.write(new Frame(i, false, new byte[] {(byte) i}, i * 100000L), "can0");
+        }
+        writer.close();
+
+        BinaryLogReader reader = new BinaryLogReader(file);
+        long position = -1;
+        while(reader.nextFrame()) {
+            if(reader.getTimestamp() == 2000000L)
+                position = reader.getResumePosition();
+        }
+
+        /* a sync marker is written at the start of every second */
+        reader.seek(position);
+        assertTrue(reader.nextFrame());
+        assertEquals(2000000L, reader.getTimestamp());
+        assertEquals(20, reader.getIdentifier());
+        reader.close();
+    }
+
+    @Test
+    public void testLastTimestamp() throws IOException {
+        System.out.println("testLastTimestamp");
+        BinaryLogWriter writer = createWriter();
+        for(int i=0;i<20000;i++) {
+            writer.write(new Frame(0x100, false, new byte[8], 5000000L + i * 10L), "can1");
+        }
+        writer.close();
+
+        BinaryLogReader reader = new BinaryLogReader(file);
+        assertEquals(5000000L + 19999 * 10L, reader.findLastTimestamp());
+        reader.close();
+    }
+
+    @Test
+    public void testTruncatedFile() throws IOException {
+        System.out.println("testTruncatedFile");
+        BinaryLogWriter writer = createWriter();
+        writer.write(new Frame(0x100, false, new byte[8], 1000000L), "can0");
+        writer.write(new Frame(0x101, false, new byte[8], 1000010L), "can0");
+        writer.close();
+
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        raf.setLength(raf.length() - 3);
+        raf.close();
+
+        BinaryLogReader reader = new BinaryLogReader(file);
+        assertTrue(reader.next());
+        assertEquals(0x100, reader.getIdentifier());
+        assertFalse(reader.next());
+        reader.close();
+    }
+}
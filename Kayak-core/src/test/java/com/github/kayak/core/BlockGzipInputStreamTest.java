@@ -0,0 +1,178 @@
+/**
+ * 	This file is part of Kayak.
+ *
+ *	Kayak is free software: you can redistribute it and/or modify
+ *	it under the terms of the GNU Lesser General Public License as published by
+ *	the Free Software Foundation, either version 3 of the License, or
+ *	(at your option) any later version.
+ *
+ *	Kayak is distributed in the hope that it will be useful,
+ *	but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *	GNU General Public License for more details.
+ *
+ *	You should have received a copy of the GNU Lesser General Public License
+ *	along with Kayak.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.kayak.core;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Jan-Niklas Meier < dschanoeh@googlemail.com >
+ */
+public class BlockGzipInputStreamTest {
+
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("blockgzip", ".log.gz");
+    }
+
+    @After
+    public void tearDown() {
+        new File(file.getPath() + ".idx").delete();
+        file.delete();
+    }
+
+    private byte[] createData(int length) {
+        /* half random, half compressible */
+        byte[] data = new byte[length];
+        Random random = new Random(42);
+        for(int i=0;i<length;i++) {
+            data[i] = (i / 1000) % 2 == 0 ? (byte) random.nextInt() : (byte) (i % 7);
+        }
+        return data;
+    }
+
+    private void write(byte[] data) throws IOException {
+        OutputStream out = new BlockGzipOutputStream(new FileOutputStream(file));
+        out.write(data, 0, 1000);
+        for(int i=1000;i<data.length;i++) {
+            out.write(data[i]);
+        }
+        out.close();
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int n;
+        while((n = in.read(buffer)) != -1) {
+            out.write(buffer, 0, n);
+        }
+        in.close();
+        return out.toByteArray();
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        System.out.println("testRoundTrip");
+        byte[] data = createData(300000);
+        write(data);
+
+        assertTrue(BlockGzipInputStream.isBlockCompressed(file));
+        assertArrayEquals(data, readAll(new BlockGzipInputStream(file)));
+    }
+
+    @Test
+    public void testGzipCompatibility() throws IOException {
+        System.out.println("testGzipCompatibility");
+        byte[] data = createData(200000);
+        write(data);
+
+        assertArrayEquals(data, readAll(new GZIPInputStream(new FileInputStream(file))));
+    }
+
+    @Test
+    public void testPlainGzip() throws IOException {
+        System.out.println("testPlainGzip");
+        OutputStream out = new GZIPOutputStream(new FileOutputStream(file));
+        out.write(createData(1000));
+        out.close();
+
+        assertFalse(BlockGzipInputStream.isBlockCompressed(file));
+    }
+
+    @Test
+    public void testSeek() throws IOException {
+        System.out.println("testSeek");
+        byte[] data = createData(200000);
+        write(data);
+
+        BlockGzipInputStream in = new BlockGzipInputStream(file);
+        long[] offsets = new long[data.length];
+        for(int i=0;i<data.length;i++) {
+            offsets[i] = in.getVirtualOffset();
+            assertEquals(data[i] & 0xFF, in.read());
+        }
+        assertEquals(-1, in.read());
+
+        int[] positions = new int[] {150000, 7, 65279, 65280, 199999, 0};
+        for(int p : positions) {
+            in.seek(offsets[p]);
+            assertEquals(data[p] & 0xFF, in.read());
+        }
+        in.close();
+    }
+
+    @Test
+    public void testFindBlock() throws IOException {
+        System.out.println("testFindBlock");
+        byte[] data = createData(200000);
+        write(data);
+
+        BlockGzipInputStream in = new BlockGzipInputStream(file);
+        assertEquals(0, in.findBlock(0));
+
+        long address = in.findBlock(1);
+        assertTrue(address > 0);
+        in.seek(address << 16);
+        assertEquals(data[BlockGzipOutputStream.MAX_BLOCK_DATA] & 0xFF, in.read());
+        in.close();
+    }
+
+    @Test
+    public void testLogFile() throws IOException {
+        System.out.println("testLogFile");
+        OutputStream out = new BlockGzipOutputStream(new FileOutputStream(file));
+        out.write("PLATFORM TEST\nDESCRIPTION \"Compressed\"\n".getBytes("US-ASCII"));
+        for(int i=0;i<20000;i++) {
+            long timestamp = 1000000000L + i * 1000L;
+            out.write(String.format("(%d.%06d) can0 123#%04x\n", timestamp / 1000000, timestamp % 1000000, i).getBytes("US-ASCII"));
+        }
+        out.close();
+
+        LogFile logFile = new LogFile(file);
+        assertTrue(logFile.getCompressed());
+        assertTrue(logFile.isSeekable());
+        assertEquals("Compressed", logFile.getDescription());
+        assertEquals(1000000000L, logFile.getStartTime());
+        assertEquals(1000000000L + 19999 * 1000L, logFile.getStopTime());
+
+        LogFileIndex index = LogFileIndex.create(logFile, 10000);
+        index.build(logFile);
+
+        LogFrameSource source = logFile.openFrameSource();
+        source.seek(index.getPosition(12340000));
+        assertTrue(source.nextFrame());
+        assertEquals(1000000000L + 12340000L, source.getTimestamp());
+        source.close();
+    }
+}
@@ -0,0 +1,351 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package com.github.kayak.core;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Jan-Niklas Meier <dschanoeh@googlemail.com>
+ */
+public class BusTest {
+
+    private Bus bus;
+
+    private static class Receiver implements FrameListener {
+        protected final List<Frame> frames = new ArrayList<Frame>();
+
+        @Override
+        public void newFrame(Frame frame) {
+            frames.add(frame);
+        }
+    }
+
+    private static class BatchReceiver extends Receiver implements FrameBatchListener {
+        private int batches = 0;
+
+        @Override
+        public void newFrames(FrameBatch batch) {
+            batches++;
+            frames.addAll(batch);
+        }
+    }
+
+    /**
+     * Minimal socketcand that accepts one RAW and one BCM connection and
+     * records the commands that are sent on the BCM connection.
+     */
+    private static class FakeSocketcand implements Runnable {
+        private final ServerSocket server;
+        private final BlockingQueue<String> bcmCommands = new LinkedBlockingQueue<String>();
+        private volatile Socket rawSocket;
+        private volatile Socket bcmSocket;
+
+        public FakeSocketcand() throws IOException {
+            server = new ServerSocket(0, 5, InetAddress.getByName("127.0.0.1"));
+            Thread thread = new Thread(this);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        public int getPort() {
+            return server.getLocalPort();
+        }
+
+        @Override
+        public void run() {
+            try {
+                while(true) {
+                    final Socket socket = server.accept();
+                    Thread thread = new Thread(new Runnable() {
+
+                        @Override
+                        public void run() {
+                            try {
+                                handle(socket);
+                            } catch (IOException ex) {
+                            }
+                        }
+                    });
+                    thread.setDaemon(true);
+                    thread.start();
+                }
+            } catch (IOException ex) {
+            }
+        }
+
+        private void handle(Socket socket) throws IOException {
+            InputStream in = socket.getInputStream();
+            write(socket, "< hi >");
+            readElement(in);
+            write(socket, "< ok >");
+
+            String element = readElement(in);
+            if("< rawmode >".equals(element)) {
+                write(socket, "< ok >");
+                rawSocket = socket;
+                return;
+            }
+
+            bcmSocket = socket;
+            while(element != null) {
+                bcmCommands.add(element);
+                element = readElement(in);
+            }
+        }
+
+        private static String readElement(InputStream in) throws IOException {
+            StringBuilder sb = new StringBuilder();
+            int c;
+            while((c = in.read()) != -1 && c != '<');
+            if(c == -1)
+                return null;
+
+            sb.append('<');
+            while((c = in.read()) != -1) {
+                sb.append((char) c);
+                if(c == '>')
+                    return sb.toString();
+            }
+            return null;
+        }
+
+        public void write(Socket socket, String s) throws IOException {
+            OutputStream out = socket.getOutputStream();
+            out.write(s.getBytes("ASCII"));
+            out.flush();
+        }
+
+        public String nextBCMCommand() throws InterruptedException {
+            return bcmCommands.poll(5, TimeUnit.SECONDS);
+        }
+
+        public Socket getRAWSocket() throws InterruptedException {
+            for(int i=0;i<100 && rawSocket == null;i++)
+                Thread.sleep(50);
+            return rawSocket;
+        }
+
+        public Socket getBCMSocket() {
+            return bcmSocket;
+        }
+
+        public void close() throws IOException {
+            server.close();
+            if(rawSocket != null)
+                rawSocket.close();
+            if(bcmSocket != null)
+                bcmSocket.close();
+        }
+    }
+
+    public BusTest() {
+    }
+
+    @Before
+    public void setUp() {
+        bus = new Bus();
+        bus.setTimeSource(new TimeSource());
+    }
+
+    @Test
+    public void testDispatchByIdentifier() {
+        System.out.println("dispatchByIdentifier");
+        Receiver standard = new Receiver();
+        Receiver extended = new Receiver();
+        Receiver all = new Receiver();
+
+        Subscription s1 = new Subscription(standard, bus);
+        s1.subscribe(0x123, false);
+        Subscription s2 = new Subscription(extended, bus);
+        s2.subscribe(0x123, true);
+        Subscription s3 = new Subscription(all, bus);
+        s3.setSubscribeAll(true);
+
+        bus.sendFrame(new Frame(0x123, false, new byte[] { 1 }));
+        bus.sendFrame(new Frame(0x123, true, new byte[] { 2 }));
+        bus.sendFrame(new Frame(0x124, false, new byte[] { 3 }));
+
+        assertEquals(1, standard.frames.size());
+        assertEquals(1, standard.frames.get(0).getData()[0]);
+        assertEquals(1, extended.frames.size());
+        assertEquals(2, extended.frames.get(0).getData()[0]);
+        assertEquals(3, all.frames.size());
+    }
+
+    @Test
+    public void testUnsubscribeAndTerminate() {
+        System.out.println("unsubscribeAndTerminate");
+        Receiver r1 = new Receiver();
+        Receiver r2 = new Receiver();
+
+        Subscription s1 = new Subscription(r1, bus);
+        s1.subscribe(0x10, false);
+        Subscription s2 = new Subscription(r2, bus);
+        s2.subscribe(0x10, false);
+
+        bus.sendFrame(new Frame(0x10, false, new byte[0]));
+        s1.unsubscribe(0x10, false);
+        bus.sendFrame(new Frame(0x10, false, new byte[0]));
+        s2.Terminate();
+        bus.sendFrame(new Frame(0x10, false, new byte[0]));
+
+        assertEquals(1, r1.frames.size());
+        assertEquals(2, r2.frames.size());
+    }
+
+    @Test
+    public void testSubscribeAllChanged() {
+        System.out.println("subscribeAllChanged");
+        Receiver r = new Receiver();
+
+        Subscription s = new Subscription(r, bus);
+        s.subscribe(0x20, false);
+        s.setSubscribeAll(true);
+        bus.sendFrame(new Frame(0x21, false, new byte[0]));
+        assertEquals(1, r.frames.size());
+
+        s.setSubscribeAll(false);
+        bus.sendFrame(new Frame(0x21, false, new byte[0]));
+        bus.sendFrame(new Frame(0x20, false, new byte[0]));
+        assertEquals(2, r.frames.size());
+    }
+
+    @Test
+    public void testMuted() {
+        System.out.println("muted");
+        Receiver r = new Receiver();
+
+        Subscription s = new Subscription(r, bus);
+        s.subscribe(0x30, false);
+        s.setMuted(true);
+        bus.sendFrame(new Frame(0x30, false, new byte[0]));
+        assertEquals(0, r.frames.size());
+    }
+
+    @Test
+    public void testBatchDelivery() {
+        System.out.println("batchDelivery");
+        BatchReceiver batched = new BatchReceiver();
+        Receiver single = new Receiver();
+        BatchReceiver all = new BatchReceiver();
+
+        Subscription s1 = new Subscription(batched, bus);
+        s1.subscribe(0x40, false);
+        s1.subscribe(0x41, false);
+        Subscription s2 = new Subscription(single, bus);
+        s2.subscribe(0x41, false);
+        Subscription s3 = new Subscription(all, bus);
+        s3.setSubscribeAll(true);
+
+        bus.sendFrames(Arrays.asList(
+                new Frame(0x40, false, new byte[] { 1 }),
+                new Frame(0x41, false, new byte[] { 2 }),
+                new Frame(0x42, false, new byte[] { 3 }),
+                new Frame(0x40, false, new byte[] { 4 })));
+
+        assertEquals(1, batched.batches);
+        assertEquals(3, batched.frames.size());
+        assertEquals(1, batched.frames.get(0).getData()[0]);
+        assertEquals(2, batched.frames.get(1).getData()[0]);
+        assertEquals(4, batched.frames.get(2).getData()[0]);
+        assertEquals(1, single.frames.size());
+        assertEquals(1, all.batches);
+        assertEquals(4, all.frames.size());
+    }
+
+    @Test
+    public void testRemoveListenerWhenDestroyed() {
+        System.out.println("removeListenerWhenDestroyed");
+        final List<String> events = new ArrayList<String>();
+
+        BusChangeListener listener = new BusChangeListener() {
+
+            @Override
+            public void connectionChanged() {
+            }
+
+            @Override
+            public void nameChanged(String newName) {
+                events.add(newName);
+            }
+
+            @Override
+            public void destroyed() {
+                events.add("destroyed");
+                bus.removeBusChangeListener(this);
+            }
+
+            @Override
+            public void descriptionChanged() {
+            }
+
+            @Override
+            public void aliasChanged(String newAlias) {
+            }
+        };
+        bus.addBusChangeListener(listener);
+
+        bus.destroy();
+        bus.setName("renamed");
+        assertEquals(Arrays.asList("destroyed"), events);
+    }
+
+    @Test
+    public void testRAWConnectionLost() throws Exception {
+        System.out.println("RAWConnectionLost");
+        FakeSocketcand socketcand = new FakeSocketcand();
+        TimeSource ts = new TimeSource();
+        bus.setTimeSource(ts);
+        bus.setConnection(new BusURL("127.0.0.1", socketcand.getPort(), "can0"));
+        ts.play();
+
+        try {
+            final List<Frame> frames = Collections.synchronizedList(new ArrayList<Frame>());
+            FrameListener receiver = new FrameListener() {
+
+                @Override
+                public void newFrame(Frame frame) {
+                    frames.add(frame);
+                }
+            };
+            Subscription bcm = new Subscription(receiver, bus);
+            bcm.subscribe(0x123, false);
+            assertEquals("< subscribe 0 0 123 >", socketcand.nextBCMCommand());
+
+            /* The identifier is served from the RAW connection */
+            Subscription raw = new Subscription(new Receiver(), bus);
+            raw.setSubscribeAll(true);
+            assertEquals("< unsubscribe 123 >", socketcand.nextBCMCommand());
+
+            socketcand.getRAWSocket().close();
+            assertEquals("< subscribe 0 0 123 >", socketcand.nextBCMCommand());
+
+            socketcand.write(socketcand.getBCMSocket(), "< frame 123 1.000000 11 >");
+            for(int i=0;i<100 && frames.isEmpty();i++)
+                Thread.sleep(50);
+            assertEquals(1, frames.size());
+            assertEquals(0x123, frames.get(0).getIdentifier());
+        } finally {
+            ts.stop();
+            socketcand.close();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package com.github.kayak.core;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Jan-Niklas Meier <dschanoeh@googlemail.com>
+ */
+public class IdentifierSetTest {
+
+    public IdentifierSetTest() {
+    }
+
+    @Test
+    public void testStandardAndExtended() {
+        System.out.println("standardAndExtended");
+        IdentifierSet set = new IdentifierSet();
+
+        assertTrue(set.add(0x7ff, false));
+        assertFalse(set.add(0x7ff, false));
+        assertTrue(set.add(0x7ff, true));
+        assertTrue(set.add(0, false));
+        assertTrue(set.add(0x1fffffff, true));
+
+        assertTrue(set.contains(0x7ff, false));
+        assertTrue(set.contains(0x7ff, true));
+        assertFalse(set.contains(0x7fe, false));
+        assertFalse(set.contains(0, true));
+        assertEquals(2, set.size(false));
+        assertEquals(2, set.size(true));
+
+        assertTrue(Arrays.equals(new int[] { 0, 0x7ff }, set.toArray(false)));
+
+        assertTrue(set.remove(0x7ff, true));
+        assertFalse(set.remove(0x7ff, true));
+        assertFalse(set.contains(0x7ff, true));
+        assertTrue(set.contains(0x7ff, false));
+
+        set.clear();
+        assertTrue(set.isEmpty());
+    }
+
+    @Test
+    public void testRandomizedExtended() {
+        System.out.println("randomizedExtended");
+        IdentifierSet set = new IdentifierSet();
+        Set<Integer> reference = new HashSet<Integer>();
+        Random random = new Random(7);
+
+        for(int i=0;i<5000;i++) {
+            int id = random.nextInt(300) * 0x10001;
+            if(random.nextBoolean())
+                assertEquals(reference.add(id), set.add(id, true));
+            else
+                assertEquals(reference.remove(id), set.remove(id, true));
+        }
+
+        assertEquals(reference.size(), set.size(true));
+        for(int id : set.toArray(true))
+            assertTrue(reference.contains(id));
+    }
+
+    @Test
+    public void testRefCount() {
+        System.out.println("refCount");
+        IdentifierRefCount count = new IdentifierRefCount();
+
+        assertEquals(1, count.increment(0x123, false));
+        assertEquals(2, count.increment(0x123, false));
+        assertEquals(1, count.increment(0x123, true));
+        assertEquals(1, count.decrement(0x123, false));
+        assertTrue(Arrays.equals(new int[] { 0x123 }, count.toArray(false)));
+        assertEquals(0, count.decrement(0x123, false));
+        assertEquals(0, count.decrement(0x123, false));
+        assertEquals(0, count.toArray(false).length);
+        assertEquals(1, count.getCount(0x123, true));
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package com.github.kayak.core;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Jan-Niklas Meier <dschanoeh@googlemail.com>
+ */
+public class IntObjectHashMapTest {
+
+    public IntObjectHashMapTest() {
+    }
+
+    @Test
+    public void testPutGetRemove() {
+        System.out.println("putGetRemove");
+        IntObjectHashMap<String> map = new IntObjectHashMap<String>();
+
+        assertNull(map.put(0, "zero"));
+        assertNull(map.put(0x1FFFFFFF, "max"));
+        assertEquals("zero", map.put(0, "null"));
+        assertEquals(2, map.size());
+        assertEquals("null", map.get(0));
+        assertEquals("max", map.get(0x1FFFFFFF));
+        assertNull(map.get(1));
+
+        assertEquals("max", map.remove(0x1FFFFFFF));
+        assertNull(map.remove(0x1FFFFFFF));
+        assertFalse(map.containsKey(0x1FFFFFFF));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    public void testRandomized() {
+        System.out.println("randomized");
+        IntObjectHashMap<Integer> map = new IntObjectHashMap<Integer>();
+        Map<Integer, Integer> reference = new HashMap<Integer, Integer>();
+        Random random = new Random(42);
+
+        for(int i=0;i<20000;i++) {
+            int key = random.nextInt(512);
+            if(random.nextBoolean()) {
+                assertEquals(reference.put(key, i), map.put(key, i));
+            } else {
+                assertEquals(reference.remove(key), map.remove(key));
+            }
+        }
+
+        assertEquals(reference.size(), map.size());
+        for(int key=0;key<512;key++) {
+            assertEquals(reference.get(key), map.get(key));
+        }
+        assertEquals(reference.size(), map.keys().length);
+    }
+
+    @Test
+    public void testCopy() {
+        System.out.println("copy");
+        IntObjectHashMap<String> map = new IntObjectHashMap<String>();
+        map.put(5, "five");
+
+        IntObjectHashMap<String> copy = new IntObjectHashMap<String>(map);
+        copy.put(6, "six");
+        copy.remove(5);
+
+        assertEquals("five", map.get(5));
+        assertNull(map.get(6));
+        assertEquals("six", copy.get(6));
+    }
+}
@@ -0,0 +1,104 @@
+/**
+ * 	This file is part of Kayak.
+ *
+ *	Kayak is free software: you can redistribute it and/or modify
+ *	it under the terms of the GNU Lesser General Public License as published by
+ *	the Free Software Foundation, either version 3 of the License, or
+ *	(at your option) any later version.
+ *
+ *	Kayak is distributed in the hope that it will be useful,
+ *	but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *	GNU General Public License for more details.
+ *
+ *	You should have received a copy of the GNU Lesser General Public License
+ *	along with Kayak.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.kayak.core;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Jan-Niklas Meier < dschanoeh@googlemail.com >
+ */
+public class LogFileConverterTest {
+
+    private static final String LOG =
+            "PLATFORM TEST\n"
+            + "DESCRIPTION \"Converter test\"\n"
+            + "DEVICE_ALIAS Body can0\n"
+            + "(1244101432.788973) can0 040#4b0b000000000000\n"
+            + "EVENT (1244101432.790000) can0 \"Marker\"\n"
+            + "(1244101432.830624) can1 12345678#01\n"
+            + "(1244101433.000001) can0 7ff#00\n";
+
+    private File text;
+    private File binary;
+    private File back;
+
+    @Before
+    public void setUp() throws IOException {
+        text = File.createTempFile("converter", ".log");
+        binary = File.createTempFile("converter", BinaryLogWriter.EXTENSION);
+        back = File.createTempFile("converterback", ".log");
+
+        FileWriter writer = new FileWriter(text);
+        writer.write(LOG);
+        writer.close();
+    }
+
+    @After
+    public void tearDown() {
+        text.delete();
+        binary.delete();
+        back.delete();
+    }
+
+    private static String read(File file) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        BufferedReader reader = new BufferedReader(new FileReader(file));
+        String line;
+        while((line = reader.readLine()) != null) {
+            sb.append(line).append('\n');
+        }
+        reader.close();
+        return sb.toString();
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        System.out.println("testRoundTrip");
+        LogFileConverter.toBinary(new LogFile(text), binary);
+
+        LogFile binaryLog = new LogFile(binary);
+        assertTrue(binaryLog.isBinary());
+        assertEquals("TEST", binaryLog.getPlatform());
+        assertEquals("Converter test", binaryLog.getDescription());
+        assertEquals("Body", binaryLog.getAlias("can0"));
+        assertEquals("can1", binaryLog.getAlias("can1"));
+        assertEquals(1244101432788973L, binaryLog.getStartTime());
+        assertEquals(1244101433000001L, binaryLog.getStopTime());
+        assertTrue(binary.length() < text.length());
+
+        LogFileConverter.toText(binaryLog, back);
+        String expected = LOG.replace("DEVICE_ALIAS Body can0\n", "DEVICE_ALIAS Body can0\nDEVICE_ALIAS can1 can1\n");
+        assertEquals(expected, read(back));
+    }
+
+    @Test
+    public void testConvertedFile() throws IOException {
+        System.out.println("testConvertedFile");
+        File converted = LogFileConverter.getConvertedFile(new LogFile(text));
+        assertEquals(text.getName().replace(".log", BinaryLogWriter.EXTENSION), converted.getName());
+    }
+}
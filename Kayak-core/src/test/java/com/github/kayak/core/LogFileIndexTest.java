@@ -0,0 +1,137 @@
+/**
+ * 	This file is part of Kayak.
+ *
+ *	Kayak is free software: you can redistribute it and/or modify
+ *	it under the terms of the GNU Lesser General Public License as published by
+ *	the Free Software Foundation, either version 3 of the License, or
+ *	(at your option) any later version.
+ *
+ *	Kayak is distributed in the hope that it will be useful,
+ *	but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *	GNU General Public License for more details.
+ *
+ *	You should have received a copy of the GNU Lesser General Public License
+ *	along with Kayak.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.kayak.core;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Jan-Niklas Meier < dschanoeh@googlemail.com >
+ */
+public class LogFileIndexTest {
+
+    private static final String HEADER = "PLATFORM TEST\nDESCRIPTION \"Index test\"\n";
+
+    private File file;
+    private LogFile logFile;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("logfileindex", ".log");
+
+        /* one frame every 5 ms for two seconds */
+        FileWriter writer = new FileWriter(file);
+        writer.write(HEADER);
+        for(int i=0;i<=400;i++) {
+            long timestamp = 1000000000L + i * 5000L;
+            writer.write(String.format("(%d.%06d) can0 123#%02x\n", timestamp / 1000000, timestamp % 1000000, i & 0xFF));
+        }
+        writer.close();
+
+        logFile = new LogFile(file);
+    }
+
+    @After
+    public void tearDown() {
+        LogFileIndex.getIndexFile(logFile).delete();
+        file.delete();
+    }
+
+    private long timestampAt(long position) throws IOException {
+        LogFrameSource source = logFile.openFrameSource();
+        try {
+            source.seek(position);
+            assertTrue(source.nextFrame());
+            return source.getTimestamp();
+        } finally {
+            source.close();
+        }
+    }
+
+    @Test
+    public void testBuild() throws IOException {
+        System.out.println("testBuild");
+        LogFileIndex index = LogFileIndex.create(logFile, 10000);
+        assertFalse(index.isComplete());
+        assertEquals(logFile.getStartPosition(), index.getPosition(500000));
+
+        index.build(logFile);
+        assertTrue(index.isComplete());
+        assertEquals(10000, index.getGranularity());
+        assertEquals(logFile.getStartPosition(), index.getPosition(0));
+        assertEquals(1000000000L + 500000L, timestampAt(index.getPosition(500000)));
+        assertEquals(1000000000L + 510000L, timestampAt(index.getPosition(515000)));
+        assertEquals(1000000000L + 2000000L, timestampAt(index.getPosition(5000000)));
+    }
+
+    @Test
+    public void testStoreAndLoad() throws IOException {
+        System.out.println("testStoreAndLoad");
+        assertNull(LogFileIndex.load(logFile, 10000));
+
+        LogFileIndex index = LogFileIndex.create(logFile, 10000);
+        index.build(logFile);
+        index.store(logFile);
+        assertTrue(LogFileIndex.getIndexFile(logFile).exists());
+
+        LogFileIndex loaded = LogFileIndex.load(logFile, 10000);
+        assertNotNull(loaded);
+        assertTrue(loaded.isComplete());
+        for(long time=0;time<=2000000;time+=2500) {
+            assertEquals(index.getPosition(time), loaded.getPosition(time));
+        }
+
+        /* a different granularity needs a new index */
+        assertNull(LogFileIndex.load(logFile, 1000));
+    }
+
+    @Test
+    public void testChangedLogFile() throws IOException {
+        System.out.println("testChangedLogFile");
+        LogFileIndex index = LogFileIndex.create(logFile, 10000);
+        index.build(logFile);
+        index.store(logFile);
+
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        raf.seek(raf.length());
+        raf.write("(1000002.005000) can0 123#00\n".getBytes("US-ASCII"));
+        raf.close();
+
+        assertNull(LogFileIndex.load(new LogFile(file), 10000));
+    }
+
+    @Test
+    public void testCoarseGranularityForLongLogs() throws IOException {
+        System.out.println("testCoarseGranularityForLongLogs");
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        raf.seek(raf.length());
+        /* 100 hours later */
+        raf.write("(1360000.000000) can0 123#00\n".getBytes("US-ASCII"));
+        raf.close();
+
+        LogFileIndex index = LogFileIndex.create(new LogFile(file), 10000);
+        assertTrue(index.getGranularity() > 10000);
+    }
+}
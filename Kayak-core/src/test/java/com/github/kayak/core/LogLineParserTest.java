@@ -0,0 +1,120 @@
+/**
+ * 	This file is part of Kayak.
+ *
+ *	Kayak is free software: you can redistribute it and/or modify
+ *	it under the terms of the GNU Lesser General Public License as published by
+ *	the Free Software Foundation, either version 3 of the License, or
+ *	(at your option) any later version.
+ *
+ *	Kayak is distributed in the hope that it will be useful,
+ *	but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *	GNU General Public License for more details.
+ *
+ *	You should have received a copy of the GNU Lesser General Public License
+ *	along with Kayak.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.kayak.core;
+
+import java.nio.ByteBuffer;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Jan-Niklas Meier < dschanoeh@googlemail.com >
+ */
+public class LogLineParserTest {
+
+    private static byte[] bytes(String s) throws Exception {
+        return s.getBytes("US-ASCII");
+    }
+
+    @Test
+    public void testStandardFrame() {
+        System.out.println("testStandardFrame");
+        LogLineParser parser = new LogLineParser();
+
+        assertTrue(parser.parse("(1244101432.788973)  can1 040#4B0B000000000000"));
+        assertEquals(1244101432788973L, parser.getTimestamp());
+        assertEquals("can1", parser.getBusName());
+        assertEquals(0x40, parser.getIdentifier());
+        assertFalse(parser.isExtended());
+        assertArrayEquals(new byte[] {0x4B, 0x0B, 0, 0, 0, 0, 0, 0}, parser.getData());
+    }
+
+    @Test
+    public void testExtendedFrame() {
+        System.out.println("testExtendedFrame");
+        LogLineParser parser = new LogLineParser();
+
+        assertTrue(parser.parse("(1.000001) vcan0 1FFFFFFF#ff"));
+        assertEquals(1000001L, parser.getTimestamp());
+        assertEquals(0x1FFFFFFF, parser.getIdentifier());
+        assertTrue(parser.isExtended());
+        assertArrayEquals(new byte[] {(byte) 0xFF}, parser.getData());
+    }
+
+    @Test
+    public void testOddPayload() {
+        System.out.println("testOddPayload");
+        LogLineParser parser = new LogLineParser();
+
+        assertTrue(parser.parse("(1.000000) can0 123#abc"));
+        assertArrayEquals(new byte[] {0x0A, (byte) 0xBC}, parser.getData());
+    }
+
+    @Test
+    public void testByteRanges() throws Exception {
+        System.out.println("testByteRanges");
+        LogLineParser parser = new LogLineParser();
+        byte[] line = bytes("xx(2.500000) can0 7ff#0102yy");
+
+        assertTrue(parser.parse(line, 2, line.length - 4));
+        assertEquals(2500000L, parser.getTimestamp());
+        assertEquals(0x7FF, parser.getIdentifier());
+        assertArrayEquals(new byte[] {1, 2}, parser.getData());
+
+        ByteBuffer buffer = ByteBuffer.wrap(line);
+        assertTrue(parser.parse(buffer, 2, line.length - 4));
+        assertEquals("can0", parser.getBusName());
+        assertEquals(0, buffer.position());
+    }
+
+    @Test
+    public void testInternedBusNames() throws Exception {
+        System.out.println("testInternedBusNames");
+        LogLineParser parser = new LogLineParser();
+        byte[] line = bytes("(1.000000) can0 123#00");
+
+        assertTrue(parser.parse(line, 0, line.length));
+        String first = parser.getBusName();
+        assertTrue(parser.parse("(1.000001) can0 124#00"));
+        assertSame(first, parser.getBusName());
+
+        for(int i=0;i<100;i++) {
+            assertTrue(parser.parse("(1.000000) bus" + i + " 123#00"));
+        }
+        assertTrue(parser.parse(line, 0, line.length));
+        assertSame(first, parser.getBusName());
+    }
+
+    @Test
+    public void testInvalidLines() {
+        System.out.println("testInvalidLines");
+        LogLineParser parser = new LogLineParser();
+
+        assertFalse(parser.parse(""));
+        assertFalse(parser.parse("DESCRIPTION \"test\""));
+        assertFalse(parser.parse("(1.00000) can0 123#00"));
+        assertFalse(parser.parse("(.000000) can0 123#00"));
+        assertFalse(parser.parse("(1.000000)can0 123#00"));
+        assertFalse(parser.parse("(1.000000) can0 12#00"));
+        assertFalse(parser.parse("(1.000000) can0 123456789#00"));
+        assertFalse(parser.parse("(1.000000) can0 123#"));
+        assertFalse(parser.parse("(1.000000) can0 123#0g"));
+        assertFalse(parser.parse("(1.000000) can0_1 123#00"));
+        assertFalse(parser.parse("(1.000000) can0 123#00 "));
+    }
+}
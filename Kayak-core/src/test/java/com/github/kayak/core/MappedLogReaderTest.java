@@ -0,0 +1,142 @@
+/**
+ * 	This file is part of Kayak.
+ *
+ *	Kayak is free software: you can redistribute it and/or modify
+ *	it under the terms of the GNU Lesser General Public License as published by
+ *	the Free Software Foundation, either version 3 of the License, or
+ *	(at your option) any later version.
+ *
+ *	Kayak is distributed in the hope that it will be useful,
+ *	but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *	GNU General Public License for more details.
+ *
+ *	You should have received a copy of the GNU Lesser General Public License
+ *	along with Kayak.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.kayak.core;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Jan-Niklas Meier < dschanoeh@googlemail.com >
+ */
+public class MappedLogReaderTest {
+
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("mappedlogreader", ".log");
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    private void write(String s) throws IOException {
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(s.getBytes("US-ASCII"));
+        } finally {
+            out.close();
+        }
+    }
+
+    @Test
+    public void testLines() throws IOException {
+        System.out.println("testLines");
+        write("first\nsecond\r\n\nlast");
+        MappedLogReader reader = new MappedLogReader(file, 0);
+
+        assertEquals("first", reader.readLine());
+        assertEquals(0, reader.getPositionOfLastLine());
+        assertEquals("second", reader.readLine());
+        assertEquals(6, reader.getPositionOfLastLine());
+        assertEquals("", reader.readLine());
+        assertEquals("last", reader.readLine());
+        assertEquals(15, reader.getPositionOfLastLine());
+        assertNull(reader.readLine());
+        reader.close();
+    }
+
+    @Test
+    public void testOffsets() throws IOException {
+        System.out.println("testOffsets");
+        write("(1.000000) can0 123#00\n");
+        MappedLogReader reader = new MappedLogReader(file, 0);
+
+        assertTrue(reader.nextLine());
+        assertEquals(22, reader.getLineLength());
+        assertEquals((byte) '(', reader.byteAt(0));
+        assertEquals((byte) '#', reader.getBuffer().get(reader.getLineOffset() + 19));
+        assertFalse(reader.nextLine());
+        reader.close();
+    }
+
+    @Test
+    public void testSeek() throws IOException {
+        System.out.println("testSeek");
+        write("aaa\nbbb\nccc\n");
+        MappedLogReader reader = new MappedLogReader(file, 4);
+
+        assertEquals("bbb", reader.readLine());
+        reader.seek(8);
+        assertEquals("ccc", reader.readLine());
+        reader.seek(0);
+        assertEquals("aaa", reader.readLine());
+        reader.close();
+    }
+
+    @Test
+    public void testWindows() throws IOException {
+        System.out.println("testWindows");
+        StringBuilder sb = new StringBuilder();
+        for(int i=0;i<100;i++) {
+            sb.append("line").append(i).append('\n');
+        }
+        write(sb.toString());
+
+        MappedLogReader reader = new MappedLogReader(file, 0, 16);
+        for(int i=0;i<100;i++) {
+            assertEquals("line" + i, reader.readLine());
+        }
+        assertNull(reader.readLine());
+        reader.close();
+    }
+
+    @Test(expected=IOException.class)
+    public void testLineLongerThanWindow() throws IOException {
+        System.out.println("testLineLongerThanWindow");
+        write("0123456789abcdefghij\nx\n");
+        MappedLogReader reader = new MappedLogReader(file, 0, 8);
+        try {
+            reader.nextLine();
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Test
+    public void testDelete() throws IOException {
+        System.out.println("testDelete");
+        write("aaa\nbbb\n");
+
+        MappedLogReader reader = new MappedLogReader(file, 0);
+        assertTrue(reader.nextLine());
+        reader.close();
+
+        assertTrue(MappedLogReader.delete(file));
+        assertFalse(file.exists());
+        assertFalse(MappedLogReader.delete(file));
+    }
+}
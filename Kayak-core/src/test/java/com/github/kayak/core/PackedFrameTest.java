@@ -0,0 +1,91 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package com.github.kayak.core;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Jan-Niklas Meier <dschanoeh@googlemail.com>
+ */
+public class PackedFrameTest {
+
+    public PackedFrameTest() {
+    }
+
+    @Test
+    public void testHeader() {
+        System.out.println("header");
+        long header = PackedFrame.header(0x1fffffff, true, 8);
+        assertEquals(0x1fffffff, PackedFrame.getIdentifier(header));
+        assertTrue(PackedFrame.isExtended(header));
+        assertEquals(8, PackedFrame.getLength(header));
+
+        header = PackedFrame.header(0x7ff, false, 0);
+        assertEquals(0x7ff, PackedFrame.getIdentifier(header));
+        assertFalse(PackedFrame.isExtended(header));
+        assertEquals(0, PackedFrame.getLength(header));
+    }
+
+    @Test
+    public void testPayload() {
+        System.out.println("payload");
+        byte[] data = new byte[] { (byte) 0x01, (byte) 0x80, (byte) 0xff, 0x7f, 0, 0x12, 0x34, (byte) 0xfe };
+        long payload = PackedFrame.payload(data);
+
+        for(int i=0;i<data.length;i++) {
+            assertEquals(data[i], PackedFrame.getByte(payload, i));
+        }
+
+        long header = PackedFrame.header(0x123, false, data.length);
+        assertArrayEquals(data, PackedFrame.getData(header, payload));
+    }
+
+    @Test
+    public void testFrameConversion() {
+        System.out.println("frameConversion");
+        Frame frame = new Frame(0x123, false, new byte[] { 1, 2, 3 }, 123456789L);
+        PackedFrameBuffer buffer = new PackedFrameBuffer(1);
+        buffer.add(frame);
+        buffer.add(new Frame(0x10000, true, new byte[0], 5));
+
+        assertEquals(2, buffer.size());
+        Frame result = buffer.getFrame(0);
+        assertEquals(0x123, result.getIdentifier());
+        assertFalse(result.isExtended());
+        assertEquals(123456789L, result.getTimestamp());
+        assertArrayEquals(frame.getData(), result.getData());
+        assertEquals(3, buffer.getByte(0, 2));
+        assertTrue(buffer.isExtended(1));
+        assertEquals(0, buffer.getLength(1));
+
+        buffer.removeFirst(1);
+        assertEquals(1, buffer.size());
+        assertEquals(0x10000, buffer.getIdentifier(0));
+    }
+
+    @Test
+    public void testCopy() {
+        System.out.println("copy");
+        PackedFrameBuffer buffer = new PackedFrameBuffer(1);
+        for(int i=0;i<100;i++)
+            buffer.add(PackedFrame.header(i, false, 1), i, i * 10L);
+
+        PackedFrameBuffer copy = new PackedFrameBuffer(buffer);
+        buffer.removeFirst(50);
+
+        assertEquals(100, copy.size());
+        assertEquals(99, copy.getIdentifier(99));
+        assertEquals(990L, copy.getTimestamp(99));
+        assertEquals(50, buffer.getIdentifier(0));
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testTooLong() {
+        System.out.println("tooLong");
+        new PackedFrameBuffer().add(new Frame(1, false, new byte[9]));
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package com.github.kayak.core;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Jan-Niklas Meier <dschanoeh@googlemail.com>
+ */
+public class SendJobSchedulerTest {
+
+    public SendJobSchedulerTest() {
+    }
+
+    @Test
+    public void testLocalSending() throws InterruptedException {
+        System.out.println("localSending");
+        Bus bus = new Bus();
+        TimeSource ts = new TimeSource();
+        bus.setTimeSource(ts);
+        ts.play();
+
+        final AtomicInteger fast = new AtomicInteger();
+        final AtomicInteger slow = new AtomicInteger();
+
+        Subscription s = new Subscription(new FrameListener() {
+
+            @Override
+            public void newFrame(Frame frame) {
+                if(frame.getIdentifier() == 0x100)
+                    fast.incrementAndGet();
+                else
+                    slow.incrementAndGet();
+            }
+        }, bus);
+        s.setSubscribeAll(true);
+
+        SendJobScheduler scheduler = new SendJobScheduler();
+        SendJob job1 = new SendJob(0x100, false, new byte[] { 1 }, 10000, scheduler);
+        SendJob job2 = new SendJob(0x200, false, new byte[] { 2 }, 50000, scheduler);
+        job1.startSending(bus);
+        job2.startSending(bus);
+        assertEquals(2, scheduler.getJobCount());
+
+        Thread.sleep(500);
+        job1.stopSending();
+        job2.stopSending();
+        assertEquals(0, scheduler.getJobCount());
+
+        int fastCount = fast.get();
+        int slowCount = slow.get();
+        assertTrue("fast job sent " + fastCount, fastCount >= 40 && fastCount <= 52);
+        assertTrue("slow job sent " + slowCount, slowCount >= 8 && slowCount <= 12);
+
+        /* no frames after the jobs were stopped */
+        Thread.sleep(50);
+        assertEquals(fastCount, fast.get());
+        assertEquals(slowCount, slow.get());
+    }
+}
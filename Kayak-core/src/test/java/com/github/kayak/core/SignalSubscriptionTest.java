@@ -0,0 +1,203 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package com.github.kayak.core;
+
+import com.github.kayak.core.description.MessageDescription;
+import com.github.kayak.core.description.SignalDescription;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Jan-Niklas Meier <dschanoeh@googlemail.com>
+ */
+public class SignalSubscriptionTest {
+
+    private Bus bus;
+    private MessageDescription message;
+    private SignalDescription signal1;
+    private SignalDescription signal2;
+
+    private static class Receiver implements SignalListener {
+        private final List<Double> values = Collections.synchronizedList(new ArrayList<Double>());
+
+        @Override
+        public void signalReceived(SignalDescription description, long rawValue, double value, Frame frame) {
+            values.add(value);
+        }
+    }
+
+    public SignalSubscriptionTest() {
+    }
+
+    @Before
+    public void setUp() {
+        bus = new Bus();
+        bus.setTimeSource(new TimeSource());
+
+        message = new MessageDescription(0x200, false);
+        signal1 = message.createSignalDescription();
+        signal1.setOffset(0);
+        signal1.setLength(8);
+        signal2 = message.createSignalDescription();
+        signal2.setOffset(8);
+        signal2.setLength(8);
+        signal2.setSlope(2);
+    }
+
+    private static void waitFor(List<Double> values, int count) throws InterruptedException {
+        for(int i=0;i<100 && values.size() < count;i++) {
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    public void testFanOut() throws InterruptedException {
+        System.out.println("fanOut");
+        Receiver r1 = new Receiver();
+        Receiver r2 = new Receiver();
+
+        SignalSubscription s1 = new SignalSubscription(r1, bus);
+        s1.subscribe(signal1);
+        SignalSubscription s2 = new SignalSubscription(r2, bus);
+        s2.subscribe(signal1);
+        s2.subscribe(signal2);
+
+        bus.sendFrame(new Frame(0x200, false, new byte[] { 3, 4 }));
+        bus.sendFrame(new Frame(0x201, false, new byte[] { 5, 6 }));
+
+        waitFor(r2.values, 2);
+        waitFor(r1.values, 1);
+        assertEquals(1, r1.values.size());
+        assertEquals(3.0, r1.values.get(0), 0.0);
+        assertEquals(2, r2.values.size());
+        assertTrue(r2.values.contains(3.0));
+        assertTrue(r2.values.contains(8.0));
+
+        s2.unsubscribe(signal1);
+        s1.Terminate();
+        bus.sendFrame(new Frame(0x200, false, new byte[] { 1, 1 }));
+        waitFor(r2.values, 3);
+        Thread.sleep(20);
+        assertEquals(1, r1.values.size());
+        assertEquals(3, r2.values.size());
+        assertEquals(2.0, r2.values.get(2), 0.0);
+    }
+
+    @Test
+    public void testChangesOnly() throws InterruptedException {
+        System.out.println("changesOnly");
+        Receiver changes = new Receiver();
+        Receiver all = new Receiver();
+
+        SignalSubscription s1 = new SignalSubscription(changes, bus, true);
+        s1.subscribe(signal1);
+        s1.subscribe(signal2);
+        SignalSubscription s2 = new SignalSubscription(all, bus);
+        s2.subscribe(signal1);
+
+        bus.sendFrame(new Frame(0x200, false, new byte[] { 3, 4 }));
+        bus.sendFrame(new Frame(0x200, false, new byte[] { 3, 4 }));
+        bus.sendFrame(new Frame(0x200, false, new byte[] { 3, 5 }));
+
+        waitFor(all.values, 3);
+        waitFor(changes.values, 3);
+        Thread.sleep(20);
+        assertEquals(3, all.values.size());
+        assertEquals(3, changes.values.size());
+        assertTrue(changes.values.contains(3.0));
+        assertTrue(changes.values.contains(8.0));
+        assertEquals(10.0, changes.values.get(2), 0.0);
+
+        s1.Terminate();
+        s2.Terminate();
+    }
+
+    @Test
+    public void testChangesAfterSubscribe() throws InterruptedException {
+        System.out.println("changesAfterSubscribe");
+        Receiver first = new Receiver();
+        Receiver second = new Receiver();
+        Receiver all = new Receiver();
+
+        SignalSubscription s1 = new SignalSubscription(first, bus, true);
+        s1.subscribe(signal1);
+        bus.sendFrame(new Frame(0x200, false, new byte[] { 3, 4 }));
+        waitFor(first.values, 1);
+
+        /* Neither subscription changes the signals of the message */
+        SignalSubscription s2 = new SignalSubscription(second, bus, true);
+        s2.subscribe(signal1);
+        SignalSubscription s3 = new SignalSubscription(all, bus);
+        s3.subscribe(signal1);
+        s3.Terminate();
+
+        bus.sendFrame(new Frame(0x200, false, new byte[] { 3, 4 }));
+        bus.sendFrame(new Frame(0x200, false, new byte[] { 3, 4 }));
+        waitFor(second.values, 1);
+        Thread.sleep(20);
+
+        assertEquals(1, first.values.size());
+        assertEquals(1, second.values.size());
+        assertEquals(3.0, second.values.get(0), 0.0);
+
+        bus.sendFrame(new Frame(0x200, false, new byte[] { 5, 4 }));
+        waitFor(second.values, 2);
+        waitFor(first.values, 2);
+        assertEquals(2, first.values.size());
+        assertEquals(2, second.values.size());
+
+        s1.Terminate();
+        s2.Terminate();
+    }
+
+    @Test
+    public void testSubscribeFromListener() throws InterruptedException {
+        System.out.println("subscribeFromListener");
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final SignalSubscription other = new SignalSubscription(new Receiver(), bus);
+
+        final SignalSubscription s = new SignalSubscription(new SignalListener() {
+
+            @Override
+            public void signalReceived(SignalDescription description, long rawValue, double value, Frame frame) {
+                entered.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException ex) {
+                }
+                other.subscribe(signal2);
+            }
+        }, bus);
+        s.subscribe(signal1);
+
+        bus.sendFrame(new Frame(0x200, false, new byte[] { 3, 4 }));
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+        /* Removing the last signal waits for the listener which needs the dispatcher */
+        Thread terminator = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                s.Terminate();
+            }
+        });
+        terminator.start();
+        Thread.sleep(50);
+        release.countDown();
+        terminator.join(5000);
+
+        assertFalse(terminator.isAlive());
+        assertTrue(other.getSignals().contains(signal2));
+        other.Terminate();
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package com.github.kayak.core;
+
+import java.nio.charset.Charset;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Jan-Niklas Meier <dschanoeh@googlemail.com>
+ */
+public class SocketcandParserTest {
+
+    private static final Charset ASCII = Charset.forName("US-ASCII");
+
+    public SocketcandParserTest() {
+    }
+
+    private static Frame parse(String element) {
+        byte[] data = element.getBytes(ASCII);
+        return SocketcandParser.parseFrame(data, 0, data.length);
+    }
+
+    @Test
+    public void testStandardFrame() {
+        System.out.println("standardFrame");
+        Frame f = parse("< frame 123 23.424242 11 22 33 44 >");
+
+        assertEquals(0x123, f.getIdentifier());
+        assertFalse(f.isExtended());
+        assertEquals(23424242L, f.getTimestamp());
+        assertEquals(4, f.getLength());
+        assertEquals((byte) 0x11, f.getData()[0]);
+        assertEquals((byte) 0x44, f.getData()[3]);
+    }
+
+    @Test
+    public void testExtendedFrame() {
+        System.out.println("extendedFrame");
+        Frame f = parse("< frame 1FFFFFFF 1.000001 aB >");
+
+        assertEquals(0x1FFFFFFF, f.getIdentifier());
+        assertTrue(f.isExtended());
+        assertEquals(1000001L, f.getTimestamp());
+        assertEquals(1, f.getLength());
+        assertEquals((byte) 0xAB, f.getData()[0]);
+    }
+
+    @Test
+    public void testEmptyPayload() {
+        System.out.println("emptyPayload");
+        Frame f = parse("< frame 7ff 0.0 >");
+
+        assertEquals(0x7ff, f.getIdentifier());
+        assertEquals(0, f.getLength());
+    }
+
+    @Test
+    public void testConcatenatedPayload() {
+        System.out.println("concatenatedPayload");
+        Frame f = parse("< frame 001 5.5 112 >");
+
+        /* odd number of digits is padded like Util.hexStringToByteArray */
+        assertEquals(2, f.getLength());
+        assertEquals((byte) 0x01, f.getData()[0]);
+        assertEquals((byte) 0x12, f.getData()[1]);
+    }
+
+    @Test
+    public void testOffset() {
+        System.out.println("offset");
+        byte[] data = "< ok >< frame 010 2.000003 ff >< hi >".getBytes(ASCII);
+
+        assertFalse(SocketcandParser.isFrame(data, 0, 6));
+        assertTrue(SocketcandParser.isFrame(data, 6, 25));
+
+        Frame f = SocketcandParser.parseFrame(data, 6, 25);
+        assertEquals(0x10, f.getIdentifier());
+        assertEquals(2000003L, f.getTimestamp());
+        assertEquals((byte) 0xFF, f.getData()[0]);
+    }
+
+    @Test
+    public void testNoFrame() {
+        System.out.println("noFrame");
+        assertNull(parse("< error could not send >"));
+        assertNull(parse("< frames >"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMalformed() {
+        System.out.println("malformed");
+        parse("< frame 12g 1.0 00 >");
+    }
+}
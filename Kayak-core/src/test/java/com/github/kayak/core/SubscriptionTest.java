@@ -0,0 +1,183 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package com.github.kayak.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Jan-Niklas Meier <dschanoeh@googlemail.com>
+ */
+public class SubscriptionTest {
+
+    private Bus bus;
+
+    /**
+     * Receiver that blocks on the first frame until it is released.
+     */
+    private static class BlockingReceiver implements FrameListener {
+        private final List<Frame> frames = Collections.synchronizedList(new ArrayList<Frame>());
+        private final CountDownLatch entered = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private final CountDownLatch done;
+
+        public BlockingReceiver(int expected) {
+            done = new CountDownLatch(expected);
+        }
+
+        @Override
+        public void newFrame(Frame frame) {
+            entered.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException ex) {
+            }
+            frames.add(frame);
+            done.countDown();
+        }
+    }
+
+    public SubscriptionTest() {
+    }
+
+    @Before
+    public void setUp() {
+        bus = new Bus();
+        bus.setTimeSource(new TimeSource());
+    }
+
+    private static Frame frame(int id, int value) {
+        return new Frame(id, false, new byte[] { (byte) value });
+    }
+
+    @Test
+    public void testAsynchronousDelivery() throws InterruptedException {
+        System.out.println("asynchronousDelivery");
+        BlockingReceiver receiver = new BlockingReceiver(100);
+        receiver.release.countDown();
+
+        Subscription s = new Subscription(receiver, bus);
+        s.setAsynchronous(16, Subscription.OverflowPolicy.BLOCK);
+        s.subscribe(0x100, false);
+
+        for(int i=0;i<100;i++)
+            bus.sendFrame(frame(0x100, i));
+
+        assertTrue(receiver.done.await(5, TimeUnit.SECONDS));
+        for(int i=0;i<100;i++)
+            assertEquals((byte) i, receiver.frames.get(i).getData()[0]);
+        assertEquals(0, s.getDroppedFrames());
+        s.Terminate();
+    }
+
+    @Test
+    public void testDropNewest() throws InterruptedException {
+        System.out.println("dropNewest");
+        BlockingReceiver receiver = new BlockingReceiver(5);
+
+        Subscription s = new Subscription(receiver, bus);
+        s.setAsynchronous(4, Subscription.OverflowPolicy.DROP_NEWEST);
+        s.setSubscribeAll(true);
+
+        bus.sendFrame(frame(1, 0));
+        assertTrue(receiver.entered.await(5, TimeUnit.SECONDS));
+        for(int i=1;i<10;i++)
+            bus.sendFrame(frame(1, i));
+
+        assertEquals(5, s.getDroppedFrames());
+        receiver.release.countDown();
+        assertTrue(receiver.done.await(5, TimeUnit.SECONDS));
+        assertEquals((byte) 4, receiver.frames.get(4).getData()[0]);
+        s.Terminate();
+        assertEquals(5, s.getDroppedFrames());
+    }
+
+    @Test
+    public void testDrain() throws InterruptedException {
+        System.out.println("drain");
+        BlockingReceiver receiver = new BlockingReceiver(10);
+
+        final Subscription s = new Subscription(receiver, bus);
+        s.setAsynchronous(16, Subscription.OverflowPolicy.BLOCK);
+        s.setSubscribeAll(true);
+
+        bus.sendFrame(frame(1, 0));
+        assertTrue(receiver.entered.await(5, TimeUnit.SECONDS));
+        for(int i=1;i<10;i++)
+            bus.sendFrame(frame(1, i));
+
+        Thread terminator = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                s.Terminate(true);
+            }
+        });
+        terminator.start();
+        receiver.release.countDown();
+        terminator.join(5000);
+
+        assertFalse(terminator.isAlive());
+        assertEquals(10, receiver.frames.size());
+        assertEquals((byte) 9, receiver.frames.get(9).getData()[0]);
+        assertEquals(0, s.getDroppedFrames());
+    }
+
+    @Test
+    public void testDropOldest() throws InterruptedException {
+        System.out.println("dropOldest");
+        BlockingReceiver receiver = new BlockingReceiver(5);
+
+        Subscription s = new Subscription(receiver, bus);
+        s.setAsynchronous(4, Subscription.OverflowPolicy.DROP_OLDEST);
+        s.setSubscribeAll(true);
+
+        bus.sendFrame(frame(1, 0));
+        assertTrue(receiver.entered.await(5, TimeUnit.SECONDS));
+        for(int i=1;i<10;i++)
+            bus.sendFrame(frame(1, i));
+
+        assertEquals(5, s.getDroppedFrames());
+        receiver.release.countDown();
+        assertTrue(receiver.done.await(5, TimeUnit.SECONDS));
+        assertEquals((byte) 6, receiver.frames.get(1).getData()[0]);
+        assertEquals((byte) 9, receiver.frames.get(4).getData()[0]);
+        s.Terminate();
+    }
+
+    @Test
+    public void testLatestPerId() throws InterruptedException {
+        System.out.println("latestPerId");
+        BlockingReceiver receiver = new BlockingReceiver(4);
+
+        Subscription s = new Subscription(receiver, bus);
+        s.setAsynchronous(16, Subscription.OverflowPolicy.LATEST_PER_ID);
+        s.setSubscribeAll(true);
+
+        bus.sendFrame(frame(1, 0));
+        assertTrue(receiver.entered.await(5, TimeUnit.SECONDS));
+        for(int i=1;i<=10;i++) {
+            bus.sendFrame(frame(2, i));
+            bus.sendFrame(new Frame(2, true, new byte[] { (byte) (i + 100) }));
+            bus.sendFrame(frame(3, i));
+        }
+
+        receiver.release.countDown();
+        assertTrue(receiver.done.await(5, TimeUnit.SECONDS));
+        assertEquals((byte) 10, receiver.frames.get(1).getData()[0]);
+        assertEquals((byte) 110, receiver.frames.get(2).getData()[0]);
+        assertTrue(receiver.frames.get(2).isExtended());
+        assertEquals((byte) 10, receiver.frames.get(3).getData()[0]);
+        assertEquals(27, s.getDroppedFrames());
+        s.Terminate();
+    }
+}
@@ -0,0 +1,93 @@
+/**
+ * 	This file is part of Kayak.
+ *
+ *	Kayak is free software: you can redistribute it and/or modify
+ *	it under the terms of the GNU Lesser General Public License as published by
+ *	the Free Software Foundation, either version 3 of the License, or
+ *	(at your option) any later version.
+ *
+ *	Kayak is distributed in the hope that it will be useful,
+ *	but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *	GNU General Public License for more details.
+ *
+ *	You should have received a copy of the GNU Lesser General Public License
+ *	along with Kayak.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.kayak.core.description;
+
+import com.github.kayak.core.Frame;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Jan-Niklas Meier < dschanoeh@googlemail.com >
+ */
+public class BusDescriptionTest {
+
+    static BusDescription bus;
+    static MessageDescription standard;
+    static MessageDescription extended;
+    static MessageDescription j1939;
+
+    public BusDescriptionTest() {
+    }
+
+    @BeforeClass
+    public static void setUpBeforeClass() throws Exception {
+        Document document = new Document();
+        bus = document.createBusDescription();
+
+        standard = new MessageDescription(0x42, false);
+        standard.setName("Standard");
+        extended = new MessageDescription(0x42, true);
+        extended.setName("Extended");
+        j1939 = new MessageDescription(0x18FEF100, true);
+        j1939.setName("CCVS");
+
+        bus.addMessageDescription(standard);
+        bus.addMessageDescription(extended);
+        bus.compile();
+    }
+
+    @Test
+    public void testLookupHonoursExtendedFlag() {
+        System.out.println("testLookupHonoursExtendedFlag");
+        assertSame(standard, bus.getMessageDescription(0x42, false));
+        assertSame(extended, bus.getMessageDescription(0x42, true));
+        assertNull(bus.getMessageDescription(0x43, false));
+        assertNull(bus.getMessageDescription(0x43, true));
+        assertNull(bus.getMessageDescription(0x800, false));
+        assertNull(bus.getMessageDescription(-1, false));
+        assertTrue(bus.getMessageDescriptions().contains(standard));
+        assertTrue(bus.getMessageDescriptions().contains(extended));
+    }
+
+    @Test
+    public void testAddAfterCompile() {
+        System.out.println("testAddAfterCompile");
+        bus.addMessageDescription(j1939);
+        assertSame(j1939, bus.getMessageDescription(0x18FEF100, true));
+        assertNull(bus.getMessageDescription(0x18FEF100 & 0x7FF, false));
+    }
+
+    @Test
+    public void testDecodeFrame() throws DescriptionException {
+        System.out.println("testDecodeFrame");
+        Frame standardFrame = new Frame(0x42, false, new byte[] { 0x01 });
+        Frame extendedFrame = new Frame(0x42, true, new byte[] { 0x01 });
+
+        Message m = bus.decodeFrame(standardFrame);
+        assertNotNull(m);
+        assertEquals("Standard", m.getName());
+
+        Message m2 = bus.decodeFrame(extendedFrame);
+        assertNotNull(m2);
+        assertEquals("Extended", m2.getName());
+
+        assertNull(bus.decodeFrame(new Frame(0x43, false, new byte[] { 0x01 })));
+    }
+}
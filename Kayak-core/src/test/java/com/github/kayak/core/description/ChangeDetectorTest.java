@@ -0,0 +1,149 @@
+/**
+ * 	This file is part of Kayak.
+ *
+ *	Kayak is free software: you can redistribute it and/or modify
+ *	it under the terms of the GNU Lesser General Public License as published by
+ *	the Free Software Foundation, either version 3 of the License, or
+ *	(at your option) any later version.
+ *
+ *	Kayak is distributed in the hope that it will be useful,
+ *	but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *	GNU General Public License for more details.
+ *
+ *	You should have received a copy of the GNU Lesser General Public License
+ *	along with Kayak.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.kayak.core.description;
+
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Jan-Niklas Meier < dschanoeh@googlemail.com >
+ */
+public class ChangeDetectorTest {
+
+    private MessageDescription message;
+    private SignalDescription little;
+    private SignalDescription big;
+    private SignalDescription muxed;
+    private SignalDescription tail;
+    private ChangeDetector detector;
+
+    public ChangeDetectorTest() {
+    }
+
+    @Before
+    public void setUp() {
+        message = new MessageDescription(0x300, false);
+
+        little = message.createSignalDescription();
+        little.setByteOrder(ByteOrder.LITTLE_ENDIAN);
+        little.setOffset(4);
+        little.setLength(8);
+
+        big = message.createSignalDescription();
+        big.setByteOrder(ByteOrder.BIG_ENDIAN);
+        big.setOffset(16);
+        big.setLength(8);
+
+        MultiplexDescription mux = message.createMultiplexDescription();
+        mux.setByteOrder(ByteOrder.LITTLE_ENDIAN);
+        mux.setOffset(24);
+        mux.setLength(4);
+        muxed = mux.createMultiplexedSignal(1);
+        muxed.setByteOrder(ByteOrder.LITTLE_ENDIAN);
+        muxed.setOffset(32);
+        muxed.setLength(8);
+
+        /* beyond the first 8 bytes */
+        tail = message.createSignalDescription();
+        tail.setByteOrder(ByteOrder.LITTLE_ENDIAN);
+        tail.setOffset(64);
+        tail.setLength(8);
+
+        List<SignalDescription> signals = new ArrayList<SignalDescription>();
+        signals.add(little);
+        signals.add(big);
+        signals.add(muxed);
+        detector = new ChangeDetector(new DecodePlan(message, signals));
+    }
+
+    private void assertChanged(boolean... expected) {
+        for(int i=0;i<expected.length;i++) {
+            assertEquals("signal " + i, expected[i], detector.isChanged(i));
+        }
+    }
+
+    @Test
+    public void testChanges() {
+        System.out.println("testChanges");
+        byte[] data = new byte[9];
+
+        assertTrue(detector.update(data));
+        assertChanged(true, true, true);
+
+        assertFalse(detector.update(data.clone()));
+        assertChanged(false, false, false);
+
+        /* bits 0 to 3 do not belong to any signal */
+        data[0] = 0x0F;
+        assertFalse(detector.update(data.clone()));
+
+        data[0] = 0x10;
+        assertTrue(detector.update(data.clone()));
+        assertChanged(true, false, false);
+
+        data[2] = 0x01;
+        assertTrue(detector.update(data.clone()));
+        assertChanged(false, true, false);
+
+        /* the multiplexor changes the multiplexed signal */
+        data[3] = 0x01;
+        assertTrue(detector.update(data.clone()));
+        assertChanged(false, false, true);
+
+        /* the payload beyond the first 8 bytes is not checked */
+        data[8] = 0x01;
+        assertFalse(detector.update(data.clone()));
+    }
+
+    @Test
+    public void testLongPayload() {
+        System.out.println("testLongPayload");
+        List<SignalDescription> signals = new ArrayList<SignalDescription>();
+        signals.add(little);
+        signals.add(tail);
+        detector = new ChangeDetector(new DecodePlan(message, signals));
+
+        byte[] data = new byte[9];
+        detector.update(data);
+
+        /* signals beyond the first 8 bytes are compared byte wise */
+        data[8] = 0x01;
+        assertTrue(detector.update(data.clone()));
+        assertChanged(false, true);
+
+        assertFalse(detector.update(data.clone()));
+        assertChanged(false, false);
+    }
+
+    @Test
+    public void testLengthChange() {
+        System.out.println("testLengthChange");
+        detector.update(new byte[9]);
+        assertTrue(detector.update(new byte[8]));
+        assertChanged(true, true, true);
+
+        detector.reset();
+        assertTrue(detector.update(new byte[8]));
+        assertChanged(true, true, true);
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package com.github.kayak.core.description;
+
+import com.github.kayak.core.Frame;
+import java.nio.ByteOrder;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Jan-Niklas Meier <dschanoeh@googlemail.com>
+ */
+public class DecodedSignalsTest {
+
+    private MessageDescription message;
+    private SignalDescription plain;
+    private SignalDescription signed;
+    private SignalDescription mux0;
+    private SignalDescription mux1;
+
+    public DecodedSignalsTest() {
+    }
+
+    @Before
+    public void setUp() {
+        message = new MessageDescription(0x100, false);
+
+        plain = message.createSignalDescription();
+        plain.setOffset(0);
+        plain.setLength(8);
+        plain.setSlope(0.5);
+        plain.setIntercept(10);
+
+        signed = message.createSignalDescription();
+        signed.setOffset(16);
+        signed.setLength(16);
+        signed.setByteOrder(ByteOrder.BIG_ENDIAN);
+        signed.setType(SignalDescription.Type.SIGNED);
+
+        MultiplexDescription multiplex = message.createMultiplexDescription();
+        multiplex.setOffset(8);
+        multiplex.setLength(4);
+        multiplex.setByteOrder(ByteOrder.LITTLE_ENDIAN);
+
+        mux0 = multiplex.createMultiplexedSignal(0);
+        mux0.setOffset(32);
+        mux0.setLength(8);
+        mux1 = multiplex.createMultiplexedSignal(1);
+        mux1.setOffset(40);
+        mux1.setLength(8);
+    }
+
+    @Test
+    public void testIndex() {
+        System.out.println("index");
+        assertEquals(4, message.getSignalCount());
+        assertSame(plain, message.getSignalDescription(plain.getIndex()));
+        assertSame(signed, message.getSignalDescription(signed.getIndex()));
+        assertSame(mux0, message.getSignalDescription(mux0.getIndex()));
+        assertSame(mux1, message.getSignalDescription(mux1.getIndex()));
+    }
+
+    @Test
+    public void testDecode() throws DescriptionException {
+        System.out.println("decode");
+        Frame frame = new Frame(0x100, false, new byte[] { 20, 1, (byte) 0xff, (byte) 0xfe, 3, 4 });
+        DecodedSignals decoded = new DecodedSignals(message);
+
+        assertTrue(decoded.decode(frame));
+        assertTrue(decoded.isPresent(plain.getIndex()));
+        assertEquals(20, decoded.getRawValue(plain.getIndex()));
+        assertEquals(20.0, decoded.getValue(plain.getIndex()), 0.0);
+        assertEquals(-2.0, decoded.getValue(signed.getIndex()), 0.0);
+        assertFalse(decoded.isPresent(mux0.getIndex()));
+        assertTrue(decoded.isPresent(mux1.getIndex()));
+        assertEquals(4, decoded.getRawValue(mux1.getIndex()));
+
+        /* The object API returns the same values */
+        Message m = message.decodeFrame(frame);
+        assertEquals(3, m.getSignals().size());
+        for(Signal s : m.getSignals()) {
+            int index = s.getDescription().getIndex();
+            assertEquals(decoded.getRawValue(index), s.getRawValue());
+            assertEquals(decoded.getValue(index), s.getValue(), 0.0);
+            assertEquals(s.getDescription().isMultiplexed(), s.isMultiplexed());
+        }
+
+        assertFalse(decoded.decode(new Frame(0x101, false, new byte[6])));
+        assertFalse(decoded.isPresent(plain.getIndex()));
+    }
+}
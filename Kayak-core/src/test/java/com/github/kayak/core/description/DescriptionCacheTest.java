@@ -0,0 +1,192 @@
+/**
+ * 	This file is part of Kayak.
+ *
+ *	Kayak is free software: you can redistribute it and/or modify
+ *	it under the terms of the GNU Lesser General Public License as published by
+ *	the Free Software Foundation, either version 3 of the License, or
+ *	(at your option) any later version.
+ *
+ *	Kayak is distributed in the hope that it will be useful,
+ *	but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *	GNU General Public License for more details.
+ *
+ *	You should have received a copy of the GNU Lesser General Public License
+ *	along with Kayak.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.kayak.core.description;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Jan-Niklas Meier < dschanoeh@googlemail.com >
+ */
+public class DescriptionCacheTest {
+
+    private File directory;
+    private File descriptionFile;
+    private DescriptionCache cache;
+    private CountingLoader loader;
+
+    private static class CountingLoader implements DescriptionLoader {
+        private int count = 0;
+
+        @Override
+        public Document parseFile(File file) {
+            count++;
+            return createDocument();
+        }
+
+        @Override
+        public String[] getSupportedExtensions() {
+            return new String[] { "test" };
+        }
+    }
+
+    public DescriptionCacheTest() {
+    }
+
+    private static Document createDocument() {
+        Document document = new Document();
+        document.setName("Test");
+        document.setAuthor("Author");
+        Node node = document.createNode("1", "Engine");
+
+        BusDescription bus = document.createBusDescription();
+        bus.setName("Powertrain");
+        bus.setBaudrate(250000);
+
+        MessageDescription message = new MessageDescription(0x18FEF100, true);
+        message.setName("CCVS");
+        message.setInterval(100);
+        message.setProducer(node);
+
+        SignalDescription speed = message.createSignalDescription();
+        speed.setName("Speed");
+        speed.setOffset(8);
+        speed.setLength(16);
+        speed.setSlope(1.0 / 256);
+        speed.setUnit("km/h");
+        speed.setByteOrder(ByteOrder.BIG_ENDIAN);
+        speed.addLabel(new Label(0xFFFF, "not available"));
+        speed.addConsumer(node);
+
+        MultiplexDescription mux = message.createMultiplexDescription();
+        mux.setName("Mux");
+        mux.setOffset(0);
+        mux.setLength(4);
+        mux.setByteOrder(ByteOrder.LITTLE_ENDIAN);
+        SignalDescription muxed = mux.createMultiplexedSignal(3);
+        muxed.setName("Muxed");
+        muxed.setOffset(32);
+        muxed.setLength(8);
+        muxed.setType(SignalDescription.Type.SIGNED);
+
+        bus.addMessageDescription(message);
+        return document;
+    }
+
+    private static void write(File file, String content) throws IOException {
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(content.getBytes("UTF-8"));
+        } finally {
+            out.close();
+        }
+    }
+
+    private static void delete(File file) {
+        if(file.isDirectory()) {
+            for(File f : file.listFiles())
+                delete(f);
+        }
+        file.delete();
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        directory = File.createTempFile("descriptioncache", "");
+        directory.delete();
+        descriptionFile = File.createTempFile("description", ".test");
+        write(descriptionFile, "first");
+        cache = new DescriptionCache(new File(directory, "cache"));
+        loader = new CountingLoader();
+    }
+
+    @After
+    public void tearDown() {
+        delete(directory);
+        descriptionFile.delete();
+    }
+
+    @Test
+    public void testRoundTrip() {
+        System.out.println("testRoundTrip");
+        assertNull(cache.load(descriptionFile));
+        assertNotNull(cache.parseFile(descriptionFile, loader));
+        assertEquals(1, loader.count);
+
+        Document document = cache.parseFile(descriptionFile, loader);
+        assertEquals(1, loader.count);
+        assertEquals("Test", document.getName());
+        assertEquals("Author", document.getAuthor());
+        assertEquals(descriptionFile.getAbsolutePath(), document.getFileName());
+        assertEquals("Engine", document.getNodeWithID("1").getName());
+
+        BusDescription bus = document.getBusDescriptions().iterator().next();
+        assertEquals("Powertrain", bus.getName());
+        assertEquals(250000, bus.getBaudrate());
+
+        MessageDescription message = bus.getMessageDescription(0x18FEF100, true);
+        assertNotNull(message);
+        assertEquals("CCVS", message.getName());
+        assertEquals(100, message.getInterval());
+        assertSame(document.getNodeWithID("1"), message.getProducer());
+        assertEquals(2, message.getSignalCount());
+
+        SignalDescription speed = message.getSignalDescription(0);
+        assertEquals("Speed", speed.getName());
+        assertEquals(8, speed.getOffset());
+        assertEquals(16, speed.getLength());
+        assertEquals(1.0 / 256, speed.getSlope(), 0.0);
+        assertEquals("km/h", speed.getUnit());
+        assertEquals(ByteOrder.BIG_ENDIAN, speed.getByteOrder());
+        assertTrue(speed.getLabels(0xFFFF).contains("not available"));
+        assertEquals(1, speed.getConsumers().size());
+
+        SignalDescription muxed = message.getSignalDescription(1);
+        assertTrue(muxed.isMultiplexed());
+        assertEquals(3, muxed.getMultiplexCount());
+        assertEquals(SignalDescription.Type.SIGNED, muxed.getType());
+        assertEquals(4, muxed.getMultiplexDescription().getLength());
+        assertEquals(ByteOrder.LITTLE_ENDIAN, muxed.getMultiplexDescription().getByteOrder());
+    }
+
+    @Test
+    public void testChangedFile() throws IOException {
+        System.out.println("testChangedFile");
+        cache.parseFile(descriptionFile, loader);
+        long modified = descriptionFile.lastModified();
+
+        /* same size and modification time but different content */
+        write(descriptionFile, "other");
+        descriptionFile.setLastModified(modified);
+        assertNull(cache.load(descriptionFile));
+
+        cache.parseFile(descriptionFile, loader);
+        assertEquals(2, loader.count);
+        assertNotNull(cache.load(descriptionFile));
+
+        cache.invalidate(descriptionFile);
+        assertNull(cache.load(descriptionFile));
+    }
+}
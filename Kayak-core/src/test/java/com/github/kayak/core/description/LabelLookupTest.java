@@ -0,0 +1,95 @@
+/**
+ * 	This file is part of Kayak.
+ *
+ *	Kayak is free software: you can redistribute it and/or modify
+ *	it under the terms of the GNU Lesser General Public License as published by
+ *	the Free Software Foundation, either version 3 of the License, or
+ *	(at your option) any later version.
+ *
+ *	Kayak is distributed in the hope that it will be useful,
+ *	but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *	GNU General Public License for more details.
+ *
+ *	You should have received a copy of the GNU Lesser General Public License
+ *	along with Kayak.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.kayak.core.description;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Jan-Niklas Meier < dschanoeh@googlemail.com >
+ */
+public class LabelLookupTest {
+
+    public LabelLookupTest() {
+    }
+
+    private static void assertLabels(List<Label> labels, LabelLookup lookup, long rawValue) {
+        List<String> expected = new ArrayList<String>();
+        for(Label l : labels) {
+            if(l.isInRange(rawValue) && !expected.contains(l.getLabel()))
+                expected.add(l.getLabel());
+        }
+
+        Set<String> actual = lookup.get(rawValue);
+        assertEquals(expected.size(), actual.size());
+        assertTrue(actual.containsAll(expected));
+    }
+
+    @Test
+    public void testDirectLookup() {
+        System.out.println("testDirectLookup");
+        List<Label> labels = new ArrayList<Label>();
+        for(int i=0;i<200;i++) {
+            labels.add(new Label(i * 2, "value" + i));
+        }
+        labels.add(new Label(10, 20, "range"));
+        labels.add(new Label(15, 15, "range"));
+        labels.add(new Label(30, 25, "empty"));
+
+        LabelLookup lookup = new LabelLookup(labels);
+
+        for(long i=-5;i<420;i++) {
+            assertLabels(labels, lookup, i);
+        }
+        assertSame(lookup.get(11), lookup.get(13));
+    }
+
+    @Test
+    public void testSearchLookup() {
+        System.out.println("testSearchLookup");
+        List<Label> labels = new ArrayList<Label>();
+        labels.add(new Label(Long.MIN_VALUE, -1, "negative"));
+        labels.add(new Label(0, "zero"));
+        labels.add(new Label(100000, Long.MAX_VALUE, "large"));
+        labels.add(new Label(0xFFFFFFFFL, "not available"));
+
+        LabelLookup lookup = new LabelLookup(labels);
+
+        long[] values = { Long.MIN_VALUE, -1, 0, 1, 99999, 100000, 0xFFFFFFFEL,
+            0xFFFFFFFFL, 0x100000000L, Long.MAX_VALUE };
+        for(long v : values) {
+            assertLabels(labels, lookup, v);
+        }
+    }
+
+    @Test
+    public void testSignalLabels() {
+        System.out.println("testSignalLabels");
+        SignalDescription description = new SignalDescription(new MessageDescription(0x12, false));
+        description.addLabel(new Label(1, "on"));
+        assertTrue(description.getLabels(1).contains("on"));
+        assertTrue(description.getLabels(0).isEmpty());
+
+        description.addLabel(new Label(0, "off"));
+        assertTrue(description.getLabels(0).contains("off"));
+    }
+}
@@ -88,4 +88,44 @@ public class MultiplexDescriptionTest {
         assertTrue(found);
     }
 
+    @Test
+    public void testMultiplexValueOutOfRange() throws DescriptionException {
+        System.out.println("testMultiplexValueOutOfRange");
+        description.setByteOrder(ByteOrder.LITTLE_ENDIAN);
+        SignalDescription signal2 = description.createMultiplexedSignal(7);
+        signal2.setByteOrder(ByteOrder.LITTLE_ENDIAN);
+        signal2.setOffset(16);
+        signal2.setLength(8);
+        description.createMultiplexedSignal(8);
+
+        DecodedSignals decoded = new DecodedSignals(messageDescription);
+        decoded.decode(new Frame(0x12, false, new byte[] {(byte) 0x00, (byte) 0x07, (byte) 0x42}));
+        assertFalse(decoded.isPresent(signal1.getIndex()));
+        assertTrue(decoded.isPresent(signal2.getIndex()));
+        assertEquals(0x42, decoded.getRawValue(signal2.getIndex()));
+    }
+
+    @Test
+    public void testWideMultiplex() throws DescriptionException {
+        System.out.println("testWideMultiplex");
+        description.setByteOrder(ByteOrder.LITTLE_ENDIAN);
+        SignalDescription signal2 = description.createMultiplexedSignal(0x1234);
+        signal2.setByteOrder(ByteOrder.LITTLE_ENDIAN);
+        signal2.setOffset(24);
+        signal2.setLength(8);
+
+        /* the length changes after the signals were created */
+        description.setLength(16);
+
+        Set<Signal> signals = description.decodeData(new byte[] {(byte) 0x00, (byte) 0x34, (byte) 0x12, (byte) 0x55});
+        assertNotNull(signals);
+        assertEquals(1, signals.size());
+        Signal s = signals.iterator().next();
+        assertSame(signal2, s.getDescription());
+        assertEquals(0x55, s.getRawValue());
+        assertTrue(s.isMultiplexed());
+
+        assertNull(description.decodeData(new byte[] {(byte) 0x00, (byte) 0x35, (byte) 0x12, (byte) 0x55}));
+    }
+
 }
@@ -0,0 +1,78 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package com.github.kayak.core.description;
+
+import java.nio.ByteOrder;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Jan-Niklas Meier <dschanoeh@googlemail.com>
+ */
+public class SignalExtractorTest {
+
+    public SignalExtractorTest() {
+    }
+
+    private static Long extractBits(byte[] data, int offset, int length, ByteOrder order) {
+        try {
+            return SignalDescription.extractBits(data, offset, length, order);
+        } catch (DescriptionException ex) {
+            return null;
+        }
+    }
+
+    private static Long extract(SignalExtractor extractor, byte[] data) {
+        try {
+            return extractor.extract(data);
+        } catch (DescriptionException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * The compiled extractor must return exactly the same values as the
+     * bitwise implementation for all positions.
+     */
+    @Test
+    public void testEquivalence() {
+        System.out.println("equivalence");
+        Random random = new Random(42);
+        ByteOrder[] orders = new ByteOrder[] { ByteOrder.LITTLE_ENDIAN, ByteOrder.BIG_ENDIAN };
+
+        for(int dataLength=0;dataLength<=8;dataLength++) {
+            for(int round=0;round<4;round++) {
+                byte[] data = new byte[dataLength];
+                random.nextBytes(data);
+
+                for(ByteOrder order : orders) {
+                    for(int offset=0;offset<64;offset++) {
+                        for(int length=0;offset+length<=64;length++) {
+                            SignalExtractor extractor = new SignalExtractor(offset, length, order);
+                            Long expected = extractBits(data, offset, length, order);
+                            assertEquals(expected, extract(extractor, data));
+
+                            if(expected != null) {
+                                long value = extractor.extract(SignalExtractor.loadLittleEndian(data), SignalExtractor.loadBigEndian(data));
+                                assertEquals(expected.longValue(), value);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testBeyondWord() {
+        System.out.println("beyondWord");
+        byte[] data = new byte[] { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10 };
+        SignalExtractor extractor = new SignalExtractor(60, 16, ByteOrder.LITTLE_ENDIAN);
+        assertFalse(extractor.isWordAligned());
+        assertEquals(extractBits(data, 60, 16, ByteOrder.LITTLE_ENDIAN), extract(extractor, data));
+    }
+}
@@ -0,0 +1,306 @@
+/**
+ * 	This file is part of Kayak.
+ *
+ *	Kayak is free software: you can redistribute it and/or modify
+ *	it under the terms of the GNU Lesser General Public License as published by
+ *	the Free Software Foundation, either version 3 of the License, or
+ *	(at your option) any later version.
+ *
+ *	Kayak is distributed in the hope that it will be useful,
+ *	but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *	GNU General Public License for more details.
+ *
+ *	You should have received a copy of the GNU Lesser General Public License
+ *	along with Kayak.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.kayak.canio.kcd.loader;
+
+import com.github.kayak.core.description.BusDescription;
+import com.github.kayak.core.description.Document;
+import com.github.kayak.core.description.Label;
+import com.github.kayak.core.description.MessageDescription;
+import com.github.kayak.core.description.MultiplexDescription;
+import com.github.kayak.core.description.Node;
+import com.github.kayak.core.description.SignalDescription;
+import java.io.InputStream;
+import java.nio.ByteOrder;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Reads a KCD file with a StAX cursor and builds the description model
+ * directly. Unlike the JAXB based loading no intermediate object tree is
+ * created, so large files are loaded faster and with less memory. The
+ * parser does not validate the file against the schema. Missing required
+ * attributes and malformed numbers are reported as
+ * {@link XMLStreamException}. Elements that are not part of the
+ * description model are skipped.
+ * @author Jan-Niklas Meier <dschanoeh@googlemail.com>
+ */
+public class KCDStreamParser {
+
+    private static final XMLInputFactory factory;
+
+    static {
+        factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+    }
+
+    private XMLStreamReader reader;
+    private Document document;
+
+    /**
+     * Parse a KCD document from the stream. The stream is not closed.
+     */
+    public Document parse(InputStream in) throws XMLStreamException {
+        document = new Document();
+        reader = factory.createXMLStreamReader(in);
+
+        try {
+            reader.nextTag();
+            expect("NetworkDefinition");
+
+            while(reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+                String element = reader.getLocalName();
+
+                if(element.equals("Document")) {
+                    parseDocumentInfo();
+                } else if(element.equals("Node")) {
+                    document.createNode(require("id"), optional("name", ""));
+                    skip();
+                } else if(element.equals("Bus")) {
+                    parseBus();
+                } else {
+                    skip();
+                }
+            }
+
+            return document;
+        } finally {
+            reader.close();
+            reader = null;
+            document = null;
+        }
+    }
+
+    private void parseDocumentInfo() throws XMLStreamException {
+        document.setName(optional("name", null));
+        document.setVersion(optional("version", null));
+        document.setAuthor(optional("author", null));
+        document.setCompany(optional("company", null));
+        document.setDate(optional("date", null));
+        skip();
+    }
+
+    private void parseBus() throws XMLStreamException {
+        BusDescription bus = document.createBusDescription();
+        bus.setName(require("name"));
+        bus.setBaudrate(parseInt(optional("baudrate", "500000")));
+
+        while(reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            if(reader.getLocalName().equals("Message"))
+                bus.addMessageDescription(parseMessage());
+            else
+                skip();
+        }
+
+        bus.compile();
+    }
+
+    private MessageDescription parseMessage() throws XMLStreamException {
+        String idString = require("id");
+        int id;
+        try {
+            id = Integer.parseInt(idString.substring(2), 16);
+        } catch(RuntimeException ex) {
+            throw new XMLStreamException("Invalid message id " + idString, reader.getLocation(), ex);
+        }
+
+        boolean extended = optional("format", "standard").equals("extended");
+        MessageDescription message = new MessageDescription(id, extended);
+        message.setName(require("name"));
+        message.setInterval(parseInt(optional("interval", "0")));
+
+        while(reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            String element = reader.getLocalName();
+
+            if(element.equals("Producer")) {
+                parseProducer(message);
+            } else if(element.equals("Multiplex")) {
+                parseMultiplex(message);
+            } else if(element.equals("Signal")) {
+                parseSignal(message.createSignalDescription());
+            } else {
+                skip();
+            }
+        }
+
+        return message;
+    }
+
+    /**
+     * The producer is only set if exactly one node is referenced.
+     */
+    private void parseProducer(MessageDescription message) throws XMLStreamException {
+        Node producer = null;
+        int count = 0;
+
+        while(reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            if(reader.getLocalName().equals("NodeRef")) {
+                producer = document.getNodeWithID(require("id"));
+                count++;
+            }
+            skip();
+        }
+
+        if(count == 1 && producer != null)
+            message.setProducer(producer);
+    }
+
+    private void parseMultiplex(MessageDescription message) throws XMLStreamException {
+        MultiplexDescription multiplex = message.createMultiplexDescription();
+        multiplex.setByteOrder(parseByteOrder(optional("endianess", "little")));
+        multiplex.setLength(parseInt(optional("length", "1")));
+        multiplex.setOffset(parseInt(require("offset")));
+        multiplex.setName(require("name"));
+
+        while(reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            String element = reader.getLocalName();
+
+            if(element.equals("MuxGroup")) {
+                long count = parseLong(require("count"));
+
+                while(reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+                    if(reader.getLocalName().equals("Signal"))
+                        parseSignal(multiplex.createMultiplexedSignal(count));
+                    else
+                        skip();
+                }
+            } else if(element.equals("Value")) {
+                multiplex.setType(parseType(optional("type", "unsigned")));
+                skip();
+            } else {
+                skip();
+            }
+        }
+    }
+
+    private void parseSignal(SignalDescription signal) throws XMLStreamException {
+        signal.setByteOrder(parseByteOrder(optional("endianess", "little")));
+        signal.setLength(parseInt(optional("length", "1")));
+        signal.setName(require("name"));
+        signal.setOffset(parseInt(require("offset")));
+        signal.setNotes(null);
+
+        while(reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            String element = reader.getLocalName();
+
+            if(element.equals("Notes")) {
+                signal.setNotes(reader.getElementText());
+            } else if(element.equals("Value")) {
+                signal.setIntercept(parseDouble(optional("intercept", "0")));
+                signal.setSlope(parseDouble(optional("slope", "1")));
+                signal.setType(parseType(optional("type", "unsigned")));
+                signal.setUnit(optional("unit", "1"));
+                skip();
+            } else if(element.equals("LabelSet")) {
+                parseLabels(signal);
+            } else {
+                skip();
+            }
+        }
+    }
+
+    private void parseLabels(SignalDescription signal) throws XMLStreamException {
+        while(reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            String element = reader.getLocalName();
+
+            if(element.equals("Label")) {
+                String value = optional("value", null);
+                if(value != null)
+                    signal.addLabel(new Label(parseLong(value), require("name")));
+            } else if(element.equals("LabelGroup")) {
+                signal.addLabel(new Label(parseLong(require("from")), parseLong(require("to")), require("name")));
+            }
+            skip();
+        }
+    }
+
+    private void expect(String element) throws XMLStreamException {
+        if(!reader.getLocalName().equals(element))
+            throw new XMLStreamException("Expected element " + element + " but found " + reader.getLocalName(), reader.getLocation());
+    }
+
+    /**
+     * Skips the rest of the current element including all children. The
+     * reader is positioned on the end tag afterwards.
+     */
+    private void skip() throws XMLStreamException {
+        int depth = 1;
+        while(depth > 0) {
+            int event = reader.next();
+            if(event == XMLStreamConstants.START_ELEMENT)
+                depth++;
+            else if(event == XMLStreamConstants.END_ELEMENT)
+                depth--;
+        }
+    }
+
+    private String optional(String name, String defaultValue) {
+        String value = reader.getAttributeValue(null, name);
+        return value != null ? value : defaultValue;
+    }
+
+    private String require(String name) throws XMLStreamException {
+        String value = reader.getAttributeValue(null, name);
+        if(value == null)
+            throw new XMLStreamException("Missing attribute " + name + " of element " + reader.getLocalName(), reader.getLocation());
+        return value;
+    }
+
+    private int parseInt(String value) throws XMLStreamException {
+        try {
+            return Integer.parseInt(value.trim());
+        } catch(NumberFormatException ex) {
+            throw new XMLStreamException("Invalid number " + value, reader.getLocation(), ex);
+        }
+    }
+
+    private long parseLong(String value) throws XMLStreamException {
+        try {
+            return Long.parseLong(value.trim());
+        } catch(NumberFormatException ex) {
+            throw new XMLStreamException("Invalid number " + value, reader.getLocation(), ex);
+        }
+    }
+
+    private double parseDouble(String value) throws XMLStreamException {
+        try {
+            return Double.parseDouble(value.trim());
+        } catch(NumberFormatException ex) {
+            throw new XMLStreamException("Invalid number " + value, reader.getLocation(), ex);
+        }
+    }
+
+    private static ByteOrder parseByteOrder(String value) {
+        return value.trim().equals("big") ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN;
+    }
+
+    private static SignalDescription.Type parseType(String value) {
+        value = value.trim();
+        if(value.equals("signed"))
+            return SignalDescription.Type.SIGNED;
+        else if(value.equals("double"))
+            return SignalDescription.Type.DOUBLE;
+        else if(value.equals("float"))
+            return SignalDescription.Type.SINGLE;
+        else
+            return SignalDescription.Type.UNSIGNED;
+    }
+}
@@ -27,6 +27,7 @@ import com.github.kayak.core.description.Document;
 import com.github.kayak.core.description.MessageDescription;
 import com.github.kayak.core.description.SignalDescription;
 import java.io.File;
+import java.io.FileWriter;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
 import org.junit.Test;
@@ -137,6 +138,42 @@ public class KCDLoaderTest {
         }
     }
 
+    @Test
+    public void testValidation() throws Exception {
+        System.out.println("validation");
+        /* a network definition needs at least one bus */
+        File file = File.createTempFile("invalid", ".kcd");
+        FileWriter writer = new FileWriter(file);
+        writer.write("<NetworkDefinition xmlns=\"http://kayak.2codeornot2code.org/1.0\">"
+                + "<Document name=\"Invalid\"/></NetworkDefinition>");
+        writer.close();
+
+        try {
+            KCDLoader validating = new KCDLoader();
+            assertTrue(validating.isValidating());
+            assertNull(validating.parseFile(file));
+
+            KCDLoader lenient = new KCDLoader();
+            lenient.setValidating(false);
+            Document doc = lenient.parseFile(file);
+            assertNotNull(doc);
+            assertEquals("Invalid", doc.getName());
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testJAXB() {
+        System.out.println("JAXB");
+        KCDLoader jaxb = new KCDLoader();
+        jaxb.setUsingJAXB(true);
+        Document doc = jaxb.parseFile(new File(sample));
+        assertNotNull(doc);
+        assertEquals(document.getName(), doc.getName());
+        assertEquals(document.getBusDescriptions().size(), doc.getBusDescriptions().size());
+    }
+
     /**
      * Test of getSupportedExtensions method, of class KCDLoader.
      */
@@ -0,0 +1,88 @@
+/**
+ * 	This file is part of Kayak.
+ *
+ *	Kayak is free software: you can redistribute it and/or modify
+ *	it under the terms of the GNU Lesser General Public License as published by
+ *	the Free Software Foundation, either version 3 of the License, or
+ *	(at your option) any later version.
+ *
+ *	Kayak is distributed in the hope that it will be useful,
+ *	but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *	GNU General Public License for more details.
+ *
+ *	You should have received a copy of the GNU Lesser General Public License
+ *	along with Kayak.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.kayak.canio.kcd.loader;
+
+import com.github.kayak.core.description.BusDescription;
+import com.github.kayak.core.description.Document;
+import com.github.kayak.core.description.MessageDescription;
+import com.github.kayak.core.description.SignalDescription;
+import java.io.ByteArrayInputStream;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import javax.xml.stream.XMLStreamException;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Jan-Niklas Meier < dschanoeh@googlemail.com >
+ */
+public class KCDStreamParserTest {
+    private static String sample = "src/test/resources/can_definition_sample.kcd";
+
+    public KCDStreamParserTest() {
+    }
+
+    @Test
+    public void testParse() throws Exception {
+        System.out.println("parse");
+        InputStream in = new FileInputStream(sample);
+        Document document;
+        try {
+            document = new KCDStreamParser().parse(in);
+        } finally {
+            in.close();
+        }
+
+        assertEquals("The Homer", document.getName());
+        assertEquals(3, document.getBusDescriptions().size());
+        assertEquals("Motor ACME", document.getNodeWithID("1").getName());
+
+        for(BusDescription bus : document.getBusDescriptions()) {
+            if(bus.getName().equals("Motor")) {
+                MessageDescription message = bus.getMessageDescription(0x0b2, false);
+                assertNotNull(message);
+                assertEquals(100, message.getInterval());
+                assertEquals(1, message.getMultiplexes().size());
+                assertEquals(11, message.getSignalCount());
+
+                /* two producers are referenced so none is set */
+                assertNull(message.getProducer());
+                assertEquals("Brake ACME", bus.getMessageDescription(0x00a, false).getProducer().getName());
+
+                for(SignalDescription s : message.getSignals()) {
+                    if(s.getName().equals("OutsideTemp")) {
+                        assertEquals(0.05, s.getSlope(), 0.0);
+                        assertEquals(-40, s.getIntercept(), 0.0);
+                        assertEquals("Cel", s.getUnit());
+                        assertEquals(2, s.getAllLabels().size());
+                    }
+                }
+            }
+        }
+    }
+
+    @Test(expected=XMLStreamException.class)
+    public void testMissingAttribute() throws XMLStreamException {
+        System.out.println("missingAttribute");
+        String kcd = "<NetworkDefinition xmlns=\"http://kayak.2codeornot2code.org/1.0\">"
+                + "<Document/><Bus name=\"Test\"><Message name=\"NoId\"/></Bus></NetworkDefinition>";
+
+        new KCDStreamParser().parse(new ByteArrayInputStream(kcd.getBytes()));
+    }
+}
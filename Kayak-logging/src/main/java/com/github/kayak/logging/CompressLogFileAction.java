@@ -19,14 +19,16 @@ package com.github.kayak.logging;
 
 import java.awt.event.ActionEvent;
 import javax.swing.AbstractAction;
+import com.github.kayak.core.BlockGzipOutputStream;
 import com.github.kayak.core.LogFile;
+import com.github.kayak.core.LogFileIndex;
+import com.github.kayak.core.MappedLogReader;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.zip.GZIPOutputStream;
 import org.openide.awt.ActionID;
 import org.openide.awt.ActionReference;
 import org.openide.awt.ActionReferences;
@@ -59,7 +61,7 @@ public class CompressLogFileAction extends AbstractAction {
                 try {
 
                     File newFile = new File(f.getAbsolutePath() + ".gz");
-                    GZIPOutputStream out = new GZIPOutputStream(new FileOutputStream(newFile));
+                    BlockGzipOutputStream out = new BlockGzipOutputStream(new FileOutputStream(newFile));
                     FileInputStream in = new FileInputStream(f);
 
                     byte[] buf = new byte[1024];
@@ -69,9 +71,10 @@ public class CompressLogFileAction extends AbstractAction {
                     }
                     in.close();
 
-                    out.finish();
                     out.close();
-                    f.delete();
+                    MappedLogReader.delete(f);
+                    /* the index refers to positions in the uncompressed file */
+                    LogFileIndex.getIndexFile(lf).delete();
                     LogFileManager.getGlobalLogFileManager().removeLogFile(lf);
                     LogFileManager.getGlobalLogFileManager().addLogFile(new LogFile(newFile));
                 } catch (IOException ex) {
@@ -0,0 +1,87 @@
+/**
+ * 	This file is part of Kayak.
+ *
+ *	Kayak is free software: you can redistribute it and/or modify
+ *	it under the terms of the GNU Lesser General Public License as published by
+ *	the Free Software Foundation, either version 3 of the License, or
+ *	(at your option) any later version.
+ *
+ *	Kayak is distributed in the hope that it will be useful,
+ *	but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *	GNU General Public License for more details.
+ *
+ *	You should have received a copy of the GNU Lesser General Public License
+ *	along with Kayak.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.kayak.logging;
+
+import java.awt.event.ActionEvent;
+import javax.swing.AbstractAction;
+import com.github.kayak.core.LogFile;
+import com.github.kayak.core.LogFileConverter;
+import java.io.File;
+import java.io.IOException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.openide.awt.ActionID;
+import org.openide.awt.ActionReference;
+import org.openide.awt.ActionReferences;
+import org.openide.awt.ActionRegistration;
+
+/**
+ * Converts a text log file to the binary format and a binary log file back
+ * to text. The original log file is kept.
+ * @author Jan-Niklas Meier <dschanoeh@googlemail.com>
+ */
+@ActionRegistration(displayName="Convert Log file...", iconBase="org/tango-project/tango-icon-theme/16x16/actions/document-new.png", iconInMenu=true, surviveFocusChange=true)
+@ActionID(category="Log files", id="com.github.kayak.logging.ConvertLogFileAction")
+@ActionReferences(value = {
+    @ActionReference(path="Menu/Log files", position=30)})
+public class ConvertLogFileAction extends AbstractAction {
+
+    private LogFile lf;
+    private static final Logger logger = Logger.getLogger(ConvertLogFileAction.class.getCanonicalName());
+
+    public ConvertLogFileAction(LogFile context) {
+            lf = context;
+            if(lf != null && lf.isBinary())
+                putValue (NAME, "Convert to text");
+            else
+                putValue (NAME, "Convert to binary");
+        }
+
+        @Override
+        public void actionPerformed(ActionEvent e) {
+
+            if (lf != null) {
+                File newFile = LogFileConverter.getConvertedFile(lf);
+                if(newFile.exists()) {
+                    logger.log(Level.WARNING, "Could not convert log file. {0} already exists.", newFile.getName());
+                    return;
+                }
+
+                /* convert to a temporary file so that no incomplete log file is found */
+                File tempFile = new File(newFile.getAbsolutePath() + ".tmp");
+                try {
+                    if(lf.isBinary())
+                        LogFileConverter.toText(lf, tempFile);
+                    else
+                        LogFileConverter.toBinary(lf, tempFile);
+
+                    if(!tempFile.renameTo(newFile)) {
+                        logger.log(Level.WARNING, "Could not rename converted log file");
+                        return;
+                    }
+                    LogFileManager.getGlobalLogFileManager().addLogFile(new LogFile(newFile));
+                } catch (IOException ex) {
+                    logger.log(Level.WARNING, "Could not convert log file", ex);
+                    tempFile.delete();
+                } catch (IllegalArgumentException ex) {
+                    logger.log(Level.WARNING, "Could not convert log file", ex);
+                    tempFile.delete();
+                }
+            }
+        }
+}
@@ -5,6 +5,8 @@
 package com.github.kayak.logging;
 
 import com.github.kayak.core.LogFile;
+import com.github.kayak.core.LogFileIndex;
+import com.github.kayak.core.MappedLogReader;
 import java.awt.event.ActionEvent;
 import java.io.File;
 import javax.swing.AbstractAction;
@@ -38,7 +40,8 @@ public class DeleteLogFileAction extends AbstractAction {
 
             if (res == JOptionPane.YES_OPTION) {
                 File f = lf.getFile();
-                f.delete();
+                MappedLogReader.delete(f);
+                LogFileIndex.getIndexFile(lf).delete();
                 LogFileManager.getGlobalLogFileManager().removeLogFile(lf);
             }
         }
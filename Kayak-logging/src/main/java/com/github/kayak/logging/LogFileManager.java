@@ -18,6 +18,7 @@
 
 package com.github.kayak.logging;
 
+import com.github.kayak.core.BinaryLogWriter;
 import com.github.kayak.core.LogFile;
 import com.github.kayak.logging.options.Options;
 import java.io.File;
@@ -54,6 +55,11 @@ public class LogFileManager {
     private ArrayList<LogFileManagementChangeListener> listeners = new ArrayList<LogFileManagementChangeListener>();
     private ArrayList<LogFile> favourites = new ArrayList<LogFile>();
     private FileObject logFolder;
+
+    private static boolean isLogFile(FileObject file) {
+        String name = file.getNameExt();
+        return name.endsWith(".log") || name.endsWith(".log.gz") || name.endsWith(BinaryLogWriter.EXTENSION);
+    }
     
     private FileChangeListener changeListener = new FileChangeListener() {
 
@@ -65,7 +71,7 @@ public class LogFileManager {
         @Override
         public void fileDataCreated(FileEvent fe) {
             FileObject file = fe.getFile();
-            if(file.getNameExt().endsWith(".log") || file.getNameExt().endsWith(".log.gz")) {
+            if(isLogFile(file)) {
                 LogFile l;
                 try {
                     l = new LogFile(FileUtil.toFile(file));
@@ -83,7 +89,7 @@ public class LogFileManager {
         @Override
         public void fileChanged(FileEvent fe) {
             FileObject file = fe.getFile();
-            if(file.getNameExt().endsWith(".log") || file.getNameExt().endsWith(".log.gz")) {
+            if(isLogFile(file)) {
                 try {
                     LogFile l = new LogFile(FileUtil.toFile(file));
                     removeLogFile(file.getPath());
@@ -166,7 +172,7 @@ public class LogFileManager {
             while (children.hasMoreElements()) {
                 FileObject file = children.nextElement();
 
-                if (file.getNameExt().endsWith(".log") || file.getNameExt().endsWith(".log.gz")) {
+                if (isLogFile(file)) {
                     try {
                         LogFile logFile = new LogFile(FileUtil.toFile(file));
 
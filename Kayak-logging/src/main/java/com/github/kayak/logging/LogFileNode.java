@@ -62,8 +62,9 @@ public class LogFileNode extends AbstractNode {
 
         actions.add(new OpenLogFileAction(logFile));
         actions.add(new DeleteLogFileAction(logFile));
-        if(!logFile.getCompressed())
+        if(!logFile.getCompressed() && !logFile.isBinary())
             actions.add(new CompressLogFileAction(logFile));
+        actions.add(new ConvertLogFileAction(logFile));
 
         if(!manager.getFavouries().contains(logFile))
             actions.add(new BookmarkLogFileAction(logFile));
@@ -21,6 +21,7 @@ import com.github.kayak.core.Bus;
 import com.github.kayak.core.LogFile;
 import com.github.kayak.core.SeekableLogFileReplay;
 import com.github.kayak.core.TimeSource;
+import com.github.kayak.logging.options.Options;
 import com.github.kayak.ui.projects.Project;
 import com.github.kayak.ui.projects.ProjectManager;
 import java.awt.Color;
@@ -494,9 +495,9 @@ public final class LogInputTopComponent extends TopComponent implements BusDropT
             jPanel7.add(buttons[i]);
         }
 
-        if(!logFile.getCompressed()) {
+        if(logFile.isSeekable()) {
             try {
-                replay = new SeekableLogFileReplay(logFile);
+                replay = new SeekableLogFileReplay(logFile, Options.getIndexGranularity());
             } catch(Exception ex) {
                 close();
             }
@@ -17,6 +17,7 @@
  */
 package com.github.kayak.logging.options;
 
+import com.github.kayak.core.LogFileIndex;
 import org.openide.util.NbPreferences;
 
 /**
@@ -25,6 +26,9 @@ import org.openide.util.NbPreferences;
  */
 public class Options {
 
+    /* Smaller granularities would only make the seek index larger */
+    private static final long MIN_INDEX_GRANULARITY = 1000;
+
     public static String getLogFilesFolder() {
         String homeFolder = System.getProperty("user.home");
         return NbPreferences.forModule(Options.class).get("Log file directory", homeFolder + "/kayak/log/");
@@ -42,4 +46,17 @@ public class Options {
         return NbPreferences.forModule(Options.class).getBoolean("Snapshots enabled", true);
     }
 
+    /**
+     * Granularity of the seek index of log files in microseconds. Invalid
+     * values fall back to the default, small ones are raised to 1 ms.
+     */
+    public static long getIndexGranularity() {
+        long granularity = NbPreferences.forModule(Options.class).getLong("Index granularity", LogFileIndex.DEFAULT_GRANULARITY);
+        return Math.max(granularity, MIN_INDEX_GRANULARITY);
+    }
+
+    public static boolean getBinarySnapshots() {
+        return NbPreferences.forModule(Options.class).getBoolean("Binary snapshots", false);
+    }
+
 }
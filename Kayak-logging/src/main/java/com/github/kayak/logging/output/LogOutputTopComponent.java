@@ -4,9 +4,12 @@
  */
 package com.github.kayak.logging.output;
 
+import com.github.kayak.core.BinaryLogWriter;
+import com.github.kayak.core.BlockGzipOutputStream;
 import com.github.kayak.core.Bus;
 import com.github.kayak.core.Frame;
-import com.github.kayak.core.FrameListener;
+import com.github.kayak.core.FrameBatch;
+import com.github.kayak.core.FrameBatchListener;
 import com.github.kayak.core.LogFile;
 import com.github.kayak.core.Subscription;
 import com.github.kayak.logging.input.BusDropTargetAdapter;
@@ -20,9 +23,10 @@ import java.io.OutputStreamWriter;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.zip.GZIPOutputStream;
 import javax.swing.AbstractListModel;
 import javax.swing.JFileChooser;
 import org.openide.util.NbBundle;
@@ -47,11 +51,13 @@ preferredID = "LogOutputTopComponent")
 public final class LogOutputTopComponent extends TopComponent implements ExplorerManager.Provider, BusDropTargetAdapter.BusDropReceiver  {
 
     private static final Logger logger = Logger.getLogger(LogOutputTopComponent.class.getCanonicalName());
+    private static final int DELIVERY_QUEUE_SIZE = 65536;
 
     private ExplorerManager manager;
     private BusListModel model = new BusListModel();
     private boolean recording = false;
     private BufferedWriter out;
+    private BinaryLogWriter binaryOut;
     private ArrayList<Subscription> subscriptions = new ArrayList<Subscription>();
 
     private class BusListModel extends AbstractListModel {
@@ -80,18 +86,45 @@ public final class LogOutputTopComponent extends TopComponent implements Explore
         }
     };
 
-    private FrameListener receiver = new FrameListener() {
+    private FrameBatchListener receiver = new FrameBatchListener() {
 
         @Override
         public void newFrame(Frame frame) {
             if(recording) {
                 try {
-                    out.write(frame.toLogFileNotation());
+                    if(binaryOut != null)
+                        binaryOut.write(frame);
+                    else
+                        out.write(frame.toLogFileNotation());
                 } catch (IOException ex) {
                     logger.log(Level.WARNING, "could not write frame to file");
                 }
             }
         }
+
+        @Override
+        public void newFrames(FrameBatch batch) {
+            if(recording && binaryOut != null) {
+                try {
+                    for(int i=0;i<batch.size();i++) {
+                        binaryOut.write(batch.get(i));
+                    }
+                } catch (IOException ex) {
+                    logger.log(Level.WARNING, "could not write frames to file");
+                }
+            } else if(recording) {
+                StringBuilder sb = new StringBuilder(batch.size() * 40);
+                for(int i=0;i<batch.size();i++) {
+                    sb.append(batch.get(i).toLogFileNotation());
+                }
+
+                try {
+                    out.write(sb.toString());
+                } catch (IOException ex) {
+                    logger.log(Level.WARNING, "could not write frames to file");
+                }
+            }
+        }
     };
 
     public LogOutputTopComponent() {
@@ -334,22 +367,31 @@ public final class LogOutputTopComponent extends TopComponent implements Explore
         }
 
         try {
-            OutputStreamWriter osw;
-            if(file.getAbsolutePath().endsWith(".gz")) {
-                FileOutputStream fos = new FileOutputStream(file);
-                GZIPOutputStream zipstream = new GZIPOutputStream(fos);
-                osw = new OutputStreamWriter(zipstream);
+            if(file.getName().endsWith(BinaryLogWriter.EXTENSION)) {
+                Map<String, String> aliases = new LinkedHashMap<String, String>();
+                for(int i=0;i<model.getSize();i++) {
+                    Bus b = ((Bus) model.getElementAt(i));
+                    aliases.put(b.getName(), b.getAlias());
+                }
+                binaryOut = new BinaryLogWriter(new FileOutputStream(file), platform, description, aliases);
             } else {
-                FileOutputStream fos = new FileOutputStream(file);
-                osw = new OutputStreamWriter(fos);
-            }
-            out = new BufferedWriter(osw);
-            out.write("PLATFORM " + platform + "\n");
-            out.write("DESCRIPTION \"" + description + "\"\n");
+                OutputStreamWriter osw;
+                if(file.getAbsolutePath().endsWith(".gz")) {
+                    FileOutputStream fos = new FileOutputStream(file);
+                    BlockGzipOutputStream zipstream = new BlockGzipOutputStream(fos);
+                    osw = new OutputStreamWriter(zipstream);
+                } else {
+                    FileOutputStream fos = new FileOutputStream(file);
+                    osw = new OutputStreamWriter(fos);
+                }
+                out = new BufferedWriter(osw);
+                out.write("PLATFORM " + platform + "\n");
+                out.write("DESCRIPTION \"" + description + "\"\n");
 
-            for(int i=0;i<model.getSize();i++) {
-                Bus b = ((Bus) model.getElementAt(i));
-                out.write("DEVICE_ALIAS " + b.getAlias() + " " + b.getName() + "\n");
+                for(int i=0;i<model.getSize();i++) {
+                    Bus b = ((Bus) model.getElementAt(i));
+                    out.write("DEVICE_ALIAS " + b.getAlias() + " " + b.getName() + "\n");
+                }
             }
 
             jList1.setEnabled(false);
@@ -365,6 +407,8 @@ public final class LogOutputTopComponent extends TopComponent implements Explore
             for(int i=0;i<model.getSize();i++) {
                 Bus bus = ((Bus) model.getElementAt(i));
                 Subscription s = new Subscription(receiver, bus);
+                /* Writing is done in an own thread so a slow disk does not stall the bus */
+                s.setAsynchronous(DELIVERY_QUEUE_SIZE, Subscription.OverflowPolicy.DROP_NEWEST);
                 s.setSubscribeAll(true);
                 subscriptions.add(s);
             }
@@ -375,7 +419,6 @@ public final class LogOutputTopComponent extends TopComponent implements Explore
     }//GEN-LAST:event_jButton1ActionPerformed
 
     private void jButton4ActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jButton4ActionPerformed
-        recording = false;
         jList1.setEnabled(true);
         jButton1.setEnabled(true);
         jButton2.setEnabled(true);
@@ -385,13 +428,23 @@ public final class LogOutputTopComponent extends TopComponent implements Explore
         jTextField2.setEnabled(true);
         jTextField3.setEnabled(true);
 
+        /* Write all frames that are still queued before the file is closed */
         for(Subscription s : subscriptions) {
-            s.Terminate();
+            s.Terminate(true);
+            long dropped = s.getDroppedFrames();
+            if(dropped > 0)
+                logger.log(Level.WARNING, "{0} frames could not be written to the log file", dropped);
         }
         subscriptions.clear();
+        recording = false;
 
         try {
-            out.close();
+            if(binaryOut != null) {
+                binaryOut.close();
+                binaryOut = null;
+            } else {
+                out.close();
+            }
         } catch (IOException ex) {
             logger.log(Level.WARNING, "Could not close log file");
         }
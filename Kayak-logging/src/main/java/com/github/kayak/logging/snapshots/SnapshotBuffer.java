@@ -17,9 +17,13 @@
  */
 package com.github.kayak.logging.snapshots;
 
+import com.github.kayak.core.BinaryLogWriter;
 import com.github.kayak.core.Bus;
 import com.github.kayak.core.Frame;
-import com.github.kayak.core.FrameListener;
+import com.github.kayak.core.FrameBatch;
+import com.github.kayak.core.FrameBatchListener;
+import com.github.kayak.core.PackedFrame;
+import com.github.kayak.core.PackedFrameBuffer;
 import com.github.kayak.core.Subscription;
 import com.github.kayak.core.TimeSource;
 import com.github.kayak.logging.options.Options;
@@ -38,9 +42,10 @@ import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.TreeSet;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.openide.filesystems.FileObject;
@@ -53,6 +58,8 @@ import org.openide.util.Exceptions;
  * subscription. After receiving Frames the Buffer can be connected to
  * a different (or the same) bus to replay the frames.
  * The depth of the buffer may be set and is per default 5 seconds.
+ * Frames are kept as {@link PackedFrame}s in one {@link PackedFrameBuffer}
+ * per bus so a deep buffer does not need an object per frame.
  * @author Jan-Niklas Meier <dschanoeh@googlemail.com>
  *
  */
@@ -62,7 +69,7 @@ public class SnapshotBuffer {
     private static final Calendar cal = Calendar.getInstance();
     private static final SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd-hh-mm-ss");
     private static final int depth = Options.getSnapshotBufferDepth();
-    private final Set<Frame> frames = new TreeSet<Frame>(new Frame.TimestampComparator());
+    private final Map<Bus, PackedFrameBuffer> buffers = new HashMap<Bus, PackedFrameBuffer>();
     private Thread cleanupThread;
     private int stopTimeout = 0;
     private boolean stopRequest = false;
@@ -136,15 +143,44 @@ public class SnapshotBuffer {
         return isBuffering;
     }
 
-    private FrameListener receiver = new FrameListener() {
+    private FrameBatchListener receiver = new FrameBatchListener() {
 
         @Override
         public void newFrame(Frame frame) {
-            synchronized(frames) {
-                frames.add(frame);
+            synchronized(buffers) {
+                add(frame);
             }
         }
+
+        @Override
+        public void newFrames(FrameBatch batch) {
+            synchronized(buffers) {
+                for(int i=0;i<batch.size();i++) {
+                    add(batch.get(i));
+                }
+            }
+        }
+
+        private void add(Frame frame) {
+            /* Only classic CAN frames of a known bus are buffered */
+            if(frame.getBus() == null || !PackedFrame.isPackable(frame))
+                return;
+
+            PackedFrameBuffer buffer = buffers.get(frame.getBus());
+            if(buffer == null) {
+                buffer = new PackedFrameBuffer();
+                buffers.put(frame.getBus(), buffer);
+            }
+            buffer.add(frame);
+        }
     };
+
+    /**
+     * Receives the buffered frames when they are written to a file.
+     */
+    private interface FrameSink {
+        void write(Frame frame, String busName) throws IOException;
+    }
     private Runnable cleanupRunnable = new Runnable() {
 
         private TimeSource ts = TimeSourceManager.getGlobalTimeSource();
@@ -164,15 +200,14 @@ public class SnapshotBuffer {
                 }
 
                 long currentTime = ts.getTime();
-                Frame[] frameArray = new Frame[frames.size()];
-                synchronized(frames) {
-                    frameArray = frames.toArray(frameArray);
-                    for (Frame f : frameArray) {
-                        if ((f.getTimestamp()/1000) < (currentTime - depth)) {
-                            frames.remove(f);
-                        } else { /* set is ordered so we can stop here */
-                            break;
+                synchronized(buffers) {
+                    for (PackedFrameBuffer buffer : buffers.values()) {
+                        /* frames of a bus are ordered so we can stop at the first recent one */
+                        int count = 0;
+                        while (count < buffer.size() && (buffer.getTimestamp(count)/1000) < (currentTime - depth)) {
+                            count++;
                         }
+                        buffer.removeFirst(count);
                     }
                 }
             }
@@ -225,7 +260,9 @@ public class SnapshotBuffer {
      */
     public void startBuffering() {
 
-        frames.clear();
+        synchronized(buffers) {
+            buffers.clear();
+        }
         for (Subscription s : subscriptions.values()) {
             s.setSubscribeAll(true);
         }
@@ -262,6 +299,11 @@ public class SnapshotBuffer {
     }
 
     public void writeToFile() {
+        if(Options.getBinarySnapshots()) {
+            writeToBinaryFile();
+            return;
+        }
+
         String fileName = "Snapshot_" + sdf.format(cal.getTime()) + ".log";
 
         FileObject logFolder = FileUtil.toFileObject(new File(Options.getLogFilesFolder()));
@@ -272,7 +314,7 @@ public class SnapshotBuffer {
 
             os = fo.getOutputStream();
             OutputStreamWriter osw = new OutputStreamWriter(os);
-            BufferedWriter out = new BufferedWriter(osw);
+            final BufferedWriter out = new BufferedWriter(osw);
             out.write("PLATFORM SNAPSHOTS\n");
             out.write("DESCRIPTION \"Snapshot of project " + currentProject.getName() + "\"\n");
 
@@ -285,9 +327,13 @@ public class SnapshotBuffer {
                     out.write("DEVICE_ALIAS " + bus.getName() + " " + bus.getName() + "\n");
             }
 
-            for (Frame frame : frames) {
-                out.write(frame.toLogFileNotation());
-            }
+            writeFrames(new FrameSink() {
+
+                @Override
+                public void write(Frame frame, String busName) throws IOException {
+                    out.write(frame.toLogFileNotation(busName));
+                }
+            });
             out.close();
         } catch (IOException ex) {
             Exceptions.printStackTrace(ex);
@@ -300,4 +346,80 @@ public class SnapshotBuffer {
             }
         }
     }
+
+    private void writeToBinaryFile() {
+        String fileName = "Snapshot_" + sdf.format(cal.getTime()) + BinaryLogWriter.EXTENSION;
+
+        FileObject logFolder = FileUtil.toFileObject(new File(Options.getLogFilesFolder()));
+
+        BinaryLogWriter out = null;
+        try {
+            FileObject fo = logFolder.createData(fileName);
+
+            Map<String, String> aliases = new LinkedHashMap<String, String>();
+            for (Bus bus : subscriptions.keySet()) {
+                if(bus.getAlias() != null && !bus.getAlias().equals(""))
+                    aliases.put(bus.getName(), bus.getAlias());
+                else
+                    aliases.put(bus.getName(), bus.getName());
+            }
+
+            out = new BinaryLogWriter(fo.getOutputStream(), "SNAPSHOTS",
+                    "Snapshot of project " + currentProject.getName(), aliases);
+
+            final BinaryLogWriter writer = out;
+            writeFrames(new FrameSink() {
+
+                @Override
+                public void write(Frame frame, String busName) throws IOException {
+                    writer.write(frame, busName);
+                }
+            });
+        } catch (IOException ex) {
+            Exceptions.printStackTrace(ex);
+        } finally {
+            try {
+                if(out != null)
+                    out.close();
+            } catch (IOException ex) {
+                Exceptions.printStackTrace(ex);
+            }
+        }
+    }
+
+    /**
+     * Hands the buffered frames of all busses to the sink in the order of
+     * their timestamps. The buffers are copied first so buffering can
+     * continue while the frames are written.
+     */
+    private void writeFrames(FrameSink sink) throws IOException {
+        List<Bus> busses = new ArrayList<Bus>();
+        List<PackedFrameBuffer> copies = new ArrayList<PackedFrameBuffer>();
+
+        synchronized(buffers) {
+            for (Map.Entry<Bus, PackedFrameBuffer> entry : buffers.entrySet()) {
+                busses.add(entry.getKey());
+                copies.add(new PackedFrameBuffer(entry.getValue()));
+            }
+        }
+
+        int[] positions = new int[copies.size()];
+        while (true) {
+            int next = -1;
+            long nextTimestamp = Long.MAX_VALUE;
+            for (int i=0;i<copies.size();i++) {
+                PackedFrameBuffer buffer = copies.get(i);
+                if (positions[i] < buffer.size() && (next == -1 || buffer.getTimestamp(positions[i]) < nextTimestamp)) {
+                    next = i;
+                    nextTimestamp = buffer.getTimestamp(positions[i]);
+                }
+            }
+
+            if (next == -1)
+                break;
+
+            Frame frame = copies.get(next).getFrame(positions[next]++);
+            sink.write(frame, busses.get(next).getName());
+        }
+    }
 }
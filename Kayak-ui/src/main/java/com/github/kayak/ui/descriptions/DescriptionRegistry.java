@@ -0,0 +1,263 @@
+/**
+ * 	This file is part of Kayak.
+ *
+ *	Kayak is free software: you can redistribute it and/or modify
+ *	it under the terms of the GNU Lesser General Public License as published by
+ *	the Free Software Foundation, either version 3 of the License, or
+ *	(at your option) any later version.
+ *
+ *	Kayak is distributed in the hope that it will be useful,
+ *	but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *	GNU General Public License for more details.
+ *
+ *	You should have received a copy of the GNU Lesser General Public License
+ *	along with Kayak.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.kayak.ui.descriptions;
+
+import com.github.kayak.core.Bus;
+import com.github.kayak.core.BusChangeListener;
+import com.github.kayak.core.description.BusDescription;
+import com.github.kayak.core.description.DescriptionLoader;
+import com.github.kayak.core.description.Document;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.openide.util.Lookup;
+
+/**
+ * The DescriptionRegistry makes sure that each description file is parsed
+ * only once and that all projects and the {@link DescriptionManagement}
+ * share the same {@link Document}. Documents are loaded on first use and
+ * are reference counted. A document is dropped from the registry as soon
+ * as nobody holds a reference any more. Busses that are attached to the
+ * registry hold a reference to the document of their description as long
+ * as they use it.
+ * @author Jan-Niklas Meier <dschanoeh@googlemail.com>
+ */
+public class DescriptionRegistry {
+
+    private static final Logger logger = Logger.getLogger(DescriptionRegistry.class.getCanonicalName());
+
+    private static DescriptionRegistry instance;
+
+    private final Map<String, Entry> entries = new HashMap<String, Entry>();
+    private final Map<Document, Entry> documents = new IdentityHashMap<Document, Entry>();
+    private final Map<Bus, BusReference> busses = new IdentityHashMap<Bus, BusReference>();
+
+    private static class Entry {
+        private final String path;
+        private final Document document;
+        private final long size;
+        private final long modified;
+        private int references = 0;
+
+        public Entry(String path, Document document, File file) {
+            this.path = path;
+            this.document = document;
+            this.size = file.length();
+            this.modified = file.lastModified();
+        }
+
+        public boolean isCurrent(File file) {
+            return file.length() == size && file.lastModified() == modified;
+        }
+    }
+
+    /**
+     * Keeps track of the document a bus uses.
+     */
+    private class BusReference implements BusChangeListener {
+        private final Bus bus;
+        private Document document;
+
+        public BusReference(Bus bus) {
+            this.bus = bus;
+        }
+
+        @Override
+        public void descriptionChanged() {
+            update(this);
+        }
+
+        @Override
+        public void destroyed() {
+            detach(bus);
+        }
+
+        @Override
+        public void connectionChanged() {
+        }
+
+        @Override
+        public void nameChanged(String newName) {
+        }
+
+        @Override
+        public void aliasChanged(String newAlias) {
+        }
+    }
+
+    public static synchronized DescriptionRegistry getDefault() {
+        if(instance == null)
+            instance = new DescriptionRegistry();
+
+        return instance;
+    }
+
+    private static String getPath(File file) {
+        try {
+            return file.getCanonicalPath();
+        } catch (IOException ex) {
+            return file.getAbsolutePath();
+        }
+    }
+
+    private static DescriptionLoader findLoader(File file) {
+        for(DescriptionLoader loader : Lookup.getDefault().lookupAll(DescriptionLoader.class)) {
+            for(String extension : loader.getSupportedExtensions()) {
+                if(file.getName().endsWith("." + extension))
+                    return loader;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the document of the description file and adds a reference
+     * to it. The file is only parsed if it is not in the registry yet or
+     * if it changed since it was loaded. Every call must be matched by a
+     * call to {@link #release(Document)}.
+     * @return the document or null if the file could not be loaded
+     */
+    public synchronized Document acquire(File file) {
+        String path = getPath(file);
+        Entry entry = entries.get(path);
+
+        if(entry == null || !entry.isCurrent(file)) {
+            DescriptionLoader loader = findLoader(file);
+            if(loader == null)
+                return null;
+
+            Document document = DescriptionManagement.getDescriptionCache().parseFile(file, loader);
+            if(document == null)
+                return null;
+
+            /* holders of an outdated document keep it until they release it */
+            entry = new Entry(path, document, file);
+            entries.put(path, entry);
+            documents.put(document, entry);
+            logger.log(Level.INFO, "Loaded description {0}", path);
+        }
+
+        entry.references++;
+        return entry.document;
+    }
+
+    /**
+     * Adds a reference to a document that is part of the registry.
+     * Documents that were not loaded by the registry are ignored.
+     */
+    public synchronized void retain(Document document) {
+        Entry entry = documents.get(document);
+        if(entry != null)
+            entry.references++;
+    }
+
+    /**
+     * Removes a reference. If it was the last one the document is dropped
+     * from the registry.
+     */
+    public synchronized void release(Document document) {
+        Entry entry = documents.get(document);
+        if(entry == null)
+            return;
+
+        entry.references--;
+        if(entry.references <= 0) {
+            documents.remove(document);
+            if(entries.get(entry.path) == entry)
+                entries.remove(entry.path);
+            logger.log(Level.INFO, "Released description {0}", entry.path);
+        }
+    }
+
+    /**
+     * Returns the number of references to the document or 0 if it is not
+     * part of the registry.
+     */
+    public synchronized int getReferenceCount(Document document) {
+        Entry entry = documents.get(document);
+        return entry != null ? entry.references : 0;
+    }
+
+    /**
+     * Starts tracking the description of the bus. The bus holds a reference
+     * to the document of its description until the description is changed,
+     * the bus is destroyed or it is detached.
+     */
+    public void attach(Bus bus) {
+        BusReference reference;
+
+        synchronized(this) {
+            if(busses.containsKey(bus))
+                return;
+
+            reference = new BusReference(bus);
+            busses.put(bus, reference);
+        }
+
+        /* the listener is added without holding the lock because the bus
+         * calls its listeners while holding its own lock */
+        bus.addBusChangeListener(reference);
+        update(reference);
+    }
+
+    /**
+     * Stops tracking the bus and releases the reference to its document.
+     */
+    public void detach(Bus bus) {
+        BusReference reference = forget(bus);
+
+        if(reference != null)
+            bus.removeBusChangeListener(reference);
+    }
+
+    private synchronized BusReference forget(Bus bus) {
+        BusReference reference = busses.remove(bus);
+        if(reference == null)
+            return null;
+
+        if(reference.document != null) {
+            release(reference.document);
+            reference.document = null;
+        }
+
+        return reference;
+    }
+
+    private synchronized void update(BusReference reference) {
+        if(busses.get(reference.bus) != reference)
+            return;
+
+        BusDescription description = reference.bus.getDescription();
+        Document document = description != null ? description.getDocument() : null;
+
+        if(document == reference.document)
+            return;
+
+        if(reference.document != null)
+            release(reference.document);
+
+        reference.document = document;
+
+        if(document != null)
+            retain(document);
+    }
+}
@@ -19,18 +19,15 @@ package com.github.kayak.ui.gaugeview;
 
 import com.github.kayak.core.Bus;
 import com.github.kayak.core.Frame;
-import com.github.kayak.core.FrameListener;
-import com.github.kayak.core.Subscription;
-import com.github.kayak.core.description.DescriptionException;
+import com.github.kayak.core.SignalListener;
+import com.github.kayak.core.SignalSubscription;
 import com.github.kayak.core.description.MessageDescription;
 import com.github.kayak.core.description.MultiplexDescription;
-import com.github.kayak.core.description.Signal;
 import com.github.kayak.core.description.SignalDescription;
 import com.github.kayak.ui.messageview.MessageSignalDropAdapter;
 import com.github.kayak.ui.projects.Project;
 import com.github.kayak.ui.projects.ProjectChangeListener;
 import com.github.kayak.ui.projects.ProjectManager;
-import com.github.kayak.ui.useroutput.UserOutput;
 import java.awt.dnd.DropTarget;
 import org.openide.util.NbBundle;
 import org.openide.windows.TopComponent;
@@ -50,7 +47,7 @@ public final class GaugeTopComponent extends TopComponent {
 
     private SignalDescription signalDescription;
     private Project project;
-    private Subscription subscription;
+    private SignalSubscription subscription;
     private Bus bus;
     private double minimum = 0.0;
     private double maximum = 100.0;
@@ -67,10 +64,9 @@ public final class GaugeTopComponent extends TopComponent {
                 subscription.Terminate();
             }
 
-            int id = signal.getMessageDescription().getId();
-            subscription = new Subscription(listener, b);
-            subscription.subscribe(id, signal.getMessageDescription().isExtended());
             signalDescription = signal;
+            subscription = new SignalSubscription(listener, b, true);
+            subscription.subscribe(signal);
             gauge.setUnitString(signalDescription.getUnit());
             gauge.setTitle(signalDescription.getName());
             setName(NbBundle.getMessage(GaugeTopComponent.class, "CTL_GaugeTopComponent") + " - " + signal.getName());
@@ -96,10 +92,9 @@ public final class GaugeTopComponent extends TopComponent {
             
             SignalDescription signal = multiplex.getMultiplexAsSignal();
 
-            int id = signal.getMessageDescription().getId();
-            subscription = new Subscription(listener, b);
-            subscription.subscribe(id, signal.getMessageDescription().isExtended());
             signalDescription = signal;
+            subscription = new SignalSubscription(listener, b, true);
+            subscription.subscribe(signal);
             gauge.setUnitString(signalDescription.getUnit());
             gauge.setTitle(signalDescription.getName());
             setName(NbBundle.getMessage(GaugeTopComponent.class, "CTL_GaugeTopComponent") + " - " + signal.getName());
@@ -113,22 +108,11 @@ public final class GaugeTopComponent extends TopComponent {
         }
     };
 
-    FrameListener listener = new FrameListener() {
+    SignalListener listener = new SignalListener() {
 
         @Override
-        public void newFrame(Frame frame) {
-            try {
-                if(frame.isExtended() == signalDescription.getMessageDescription().isExtended()) {
-                    Signal s = signalDescription.decodeData(frame.getData());
-
-                    if(s != null)
-                    updateValue(s.getValue());
-                }
-            } catch (DescriptionException ex) {
-                UserOutput.printWarning(ex.getMessage());
-            }
-
-
+        public void signalReceived(SignalDescription description, long rawValue, double value, Frame frame) {
+            updateValue(value);
         }
     };
 
@@ -21,7 +21,6 @@ import com.github.kayak.core.Bus;
 import com.github.kayak.core.description.BusDescription;
 import com.github.kayak.core.description.MessageDescription;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
 import org.openide.nodes.ChildFactory;
@@ -43,12 +42,8 @@ public class MessageNodeFactory extends ChildFactory<MessageDescription> {
 
     @Override
     protected boolean createKeys(List<MessageDescription> list) {
-        Map<Integer, MessageDescription> messages = description.getMessages();
-
         Set<MessageDescription> set = new TreeSet<MessageDescription>(MessageDescription.nameComparator);
-	for(Integer key : description.getMessages().keySet()) {
-	    set.add(description.getMessages().get(key));
-	}
+        set.addAll(description.getMessageDescriptions());
 
         list.addAll(set);
 
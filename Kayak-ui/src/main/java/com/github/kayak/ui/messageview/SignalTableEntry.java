@@ -18,6 +18,7 @@
 package com.github.kayak.ui.messageview;
 
 import com.github.kayak.core.Bus;
+import com.github.kayak.core.SignalSubscription;
 import com.github.kayak.core.description.Signal;
 import com.github.kayak.core.description.SignalDescription;
 
@@ -31,6 +32,10 @@ public class SignalTableEntry {
     private SignalDescription description;
     private Signal signal;
     private boolean refresh;
+    private SignalSubscription subscription;
+    private long rawValue;
+    private double value;
+    private boolean valueAvailable = false;
 
     public boolean isRefresh() {
         return refresh;
@@ -56,12 +61,38 @@ public class SignalTableEntry {
         this.description = description;
     }
 
-    public Signal getSignal() {
+    public SignalSubscription getSubscription() {
+        return subscription;
+    }
+
+    public void setSubscription(SignalSubscription subscription) {
+        this.subscription = subscription;
+    }
+
+    /**
+     * Returns the signal for the latest value. The signal is only created
+     * when it is requested.
+     */
+    public synchronized Signal getSignal() {
+        if(signal == null && valueAvailable)
+            signal = description.createSignal(rawValue, value);
+
         return signal;
     }
 
-    public void setSignal(Signal signal) {
+    public synchronized void setSignal(Signal signal) {
         this.signal = signal;
+        valueAvailable = false;
+    }
+
+    /**
+     * Store a new decoded value.
+     */
+    public synchronized void setValue(long rawValue, double value) {
+        this.rawValue = rawValue;
+        this.value = value;
+        valueAvailable = true;
+        signal = null;
     }
 
 
@@ -16,6 +16,11 @@ public class Options {
         return NbPreferences.forModule(Options.class).get("Bus description directory", homeFolder + "/kayak/descriptions/");
     }
 
+    public static String getDescriptionCacheFolder() {
+        String homeFolder = System.getProperty("user.home");
+        return NbPreferences.forModule(Options.class).get("Description cache directory", homeFolder + "/kayak/cache/descriptions/");
+    }
+
     public static boolean getShowStartPage() {
         return NbPreferences.forModule(Options.class).getBoolean("Show start page", true);
     }
@@ -21,13 +21,14 @@ package com.github.kayak.ui.projects;
 import com.github.kayak.core.Bus;
 import com.github.kayak.core.BusURL;
 import com.github.kayak.core.description.BusDescription;
-import com.github.kayak.core.description.DescriptionLoader;
+import com.github.kayak.ui.descriptions.DescriptionRegistry;
 import java.io.File;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.util.Collection;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -37,9 +38,6 @@ import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
-import org.openide.filesystems.FileObject;
-import org.openide.filesystems.FileUtil;
-import org.openide.util.Lookup;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.NamedNodeMap;
@@ -59,6 +57,31 @@ public class ProjectManager {
     private Project openedProject;
     private HashSet<ProjectManagementListener> listeners = new HashSet<ProjectManagementListener>();
 
+    private ProjectChangeListener descriptionTracker = new ProjectChangeListener() {
+
+        @Override
+        public void projectNameChanged(Project p, String name) {
+        }
+
+        @Override
+        public void projectClosed(Project p) {
+        }
+
+        @Override
+        public void projectOpened(Project p) {
+        }
+
+        @Override
+        public void projectBusAdded(Project p, Bus bus) {
+            DescriptionRegistry.getDefault().attach(bus);
+        }
+
+        @Override
+        public void projectBusRemoved(Project p, Bus bus) {
+            DescriptionRegistry.getDefault().detach(bus);
+        }
+    };
+
     public Project getOpenedProject() {
         return openedProject;
     }
@@ -69,6 +92,7 @@ public class ProjectManager {
 
     public void addProject(Project e) {
         projects.add(e);
+        track(e);
         notifyListeners();
     }
 
@@ -77,9 +101,28 @@ public class ProjectManager {
             closeProject(e);
 
         projects.remove(e);
+        untrack(e);
         notifyListeners();
     }
 
+    /**
+     * Let the description registry know which descriptions are used by
+     * the busses of the project.
+     */
+    private void track(Project p) {
+        p.addProjectChangeListener(descriptionTracker);
+        for(Bus b : p.getBusses()) {
+            DescriptionRegistry.getDefault().attach(b);
+        }
+    }
+
+    private void untrack(Project p) {
+        p.removeProjectChangeListener(descriptionTracker);
+        for(Bus b : p.getBusses()) {
+            DescriptionRegistry.getDefault().detach(b);
+        }
+    }
+
     public void openProject(Project p) {
         if(!projects.contains(p) || p == openedProject)
             return;
@@ -150,7 +193,9 @@ public class ProjectManager {
     }
 
     public void loadFromFile(InputStream stream) {
-    try {
+        List<com.github.kayak.core.description.Document> pendingReleases = new ArrayList<com.github.kayak.core.description.Document>();
+
+        try {
             DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
             DocumentBuilder db = dbf.newDocumentBuilder();
             Document doc = db.parse(stream);
@@ -196,28 +241,23 @@ public class ProjectManager {
                                 String descriptionName = descriptionAttributes.getNamedItem("name").getNodeValue();
 
                                 File file = new File(fileName);
-                                FileObject fileObject = FileUtil.toFileObject(file);
 
                                 if(file.canRead()) {
+                                    /* the registry parses each file only once */
+                                    com.github.kayak.core.description.Document parseFile = DescriptionRegistry.getDefault().acquire(file);
 
-                                    Collection<? extends DescriptionLoader> loaders = Lookup.getDefault().lookupAll(DescriptionLoader.class);
-
-                                    for(DescriptionLoader loader : loaders) {
-                                        String[] extensions = loader.getSupportedExtensions();
-                                        for(String ext : extensions) {
-                                            if(ext.equals(fileObject.getExt())) {
-                                                com.github.kayak.core.description.Document parseFile = loader.parseFile(file);
-                                                Set<BusDescription> busDescriptions = parseFile.getBusDescriptions();
-
-                                                for(BusDescription b : busDescriptions)  {
-                                                    if(b.getName().equals(descriptionName)) {
-                                                        bus.setDescription(b);
-                                                        break;
-                                                    }
-                                                }
+                                    if(parseFile != null) {
+                                        Set<BusDescription> busDescriptions = parseFile.getBusDescriptions();
+
+                                        for(BusDescription b : busDescriptions)  {
+                                            if(b.getName().equals(descriptionName)) {
+                                                bus.setDescription(b);
                                                 break;
                                             }
                                         }
+
+                                        /* the bus holds its own reference once attached */
+                                        pendingReleases.add(parseFile);
                                     }
                                 }
                             }
@@ -227,6 +267,7 @@ public class ProjectManager {
                     }
 
                     this.projects.add(project);
+                    track(project);
 
                     Node openedNode = attributes.getNamedItem("opened");
                     boolean opened = Boolean.parseBoolean(openedNode.getNodeValue());
@@ -237,6 +278,10 @@ public class ProjectManager {
 
         } catch (Exception ex) {
             logger.log(Level.WARNING, "Could not load projects", ex);
+        } finally {
+            for(com.github.kayak.core.description.Document d : pendingReleases) {
+                DescriptionRegistry.getDefault().release(d);
+            }
         }
     }
 